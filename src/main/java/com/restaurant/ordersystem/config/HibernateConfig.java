@@ -1,15 +1,79 @@
 package com.restaurant.ordersystem.config;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.restaurant.ordersystem.model.Category;
+import com.restaurant.ordersystem.model.Coupon;
+import com.restaurant.ordersystem.model.MenuItem;
+import com.restaurant.ordersystem.model.Restaurant;
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+import com.restaurant.ordersystem.model.SubCategory;
+import com.restaurant.ordersystem.model.Variant;
+import com.restaurant.ordersystem.model.Voucher;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
 @Configuration
 public class HibernateConfig {
 
+    private static final String CAFFEINE_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+
     @Bean
-    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer() {
-        return hibernateProperties ->
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
             hibernateProperties.put("hibernate.dialect", "org.hibernate.dialect.MySQL8Dialect");
+
+            // Second-level cache for reference data (entities annotated with @Cache) in the
+            // Caffeine regions below. Discount codes are resolved by one native query over all
+            // code types, so there is no query worth the query cache's invalidation cost
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, "false");
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+        };
+    }
+
+    /**
+     * Caffeine-backed JCache regions used by Hibernate, one per cached entity. Menu and
+     * restaurant data changes a few times a day; coupons and vouchers change on redemption
+     * and expire sooner so that rows edited directly in the database are picked up.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CAFFEINE_PROVIDER).getCacheManager();
+
+        createRegion(cacheManager, MenuItem.class.getName(), 10_000, Duration.ofHours(1));
+        createRegion(cacheManager, Variant.class.getName(), 20_000, Duration.ofHours(1));
+        createRegion(cacheManager, Category.class.getName(), 1_000, Duration.ofHours(1));
+        createRegion(cacheManager, SubCategory.class.getName(), 2_000, Duration.ofHours(1));
+        createRegion(cacheManager, Restaurant.class.getName(), 2_000, Duration.ofHours(1));
+        createRegion(cacheManager, RestaurantWorkingHours.class.getName(), 20_000, Duration.ofHours(1));
+        createRegion(cacheManager, Coupon.class.getName(), 5_000, Duration.ofMinutes(10));
+        createRegion(cacheManager, Voucher.class.getName(), 50_000, Duration.ofMinutes(10));
+
+        return cacheManager;
+    }
+
+    private void createRegion(CacheManager cacheManager, String name, long maxEntries, Duration timeToLive) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (timeToLive != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
     }
 }
@@ -0,0 +1,53 @@
+package com.restaurant.ordersystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Seeds the id_generators rows of the pooled table generators (OrderItem, CartItem) above the
+ * highest id already in their tables. Without this, on a database whose rows were inserted
+ * while the ids were AUTO_INCREMENT, Hibernate would start the generator at its initial value
+ * and hand out ids that already exist.
+ *
+ * Runs once the schema has been updated and before the application takes requests. Values
+ * are only ever raised, so it is safe to run on every start and alongside other instances.
+ */
+@Component
+public class IdGeneratorSeeder {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    // Matches allocationSize of the @TableGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Generator row, table and id column
+    private static final String[][] GENERATORS = {
+            {"order_items", "order_items", "order_item_id"},
+            {"cart_items", "cart_items", "cart_item_id"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory is injected so that Hibernate's schema update, which creates
+    // id_generators, has run first
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void seed() {
+        for (String[] generator : GENERATORS) {
+            Long maxId = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(" + generator[2] + "), 0) FROM " + generator[1], Long.class);
+            long floor = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+            jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?) "
+                    + "ON DUPLICATE KEY UPDATE next_val = GREATEST(COALESCE(next_val, 0), VALUES(next_val))",
+                    generator[0], floor);
+            logger.info("Id generator {} starts at or above {}", generator[0], floor);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.restaurant.ordersystem.config;
+
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
+import org.hibernate.type.descriptor.sql.BinaryTypeDescriptor;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Hibernate type that keeps a UUID as its canonical string in Java (and in the API)
+ * but stores it as BINARY(16). Used for order ids via {@code @Type(type = UuidBinaryType.NAME)}.
+ */
+public class UuidBinaryType extends AbstractSingleColumnStandardBasicType<String> {
+
+    public static final String NAME = "com.restaurant.ordersystem.config.UuidBinaryType";
+
+    public UuidBinaryType() {
+        super(BinaryTypeDescriptor.INSTANCE, UuidStringTypeDescriptor.INSTANCE);
+    }
+
+    @Override
+    public String getName() {
+        return "uuid-binary-string";
+    }
+
+    static class UuidStringTypeDescriptor extends AbstractTypeDescriptor<String> {
+
+        static final UuidStringTypeDescriptor INSTANCE = new UuidStringTypeDescriptor();
+
+        UuidStringTypeDescriptor() {
+            super(String.class);
+        }
+
+        @Override
+        public String toString(String value) {
+            return value;
+        }
+
+        @Override
+        public String fromString(String string) {
+            return string;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+            if (value == null) {
+                return null;
+            }
+            if (byte[].class.isAssignableFrom(type)) {
+                UUID uuid = UUID.fromString(value);
+                return (X) ByteBuffer.allocate(16)
+                        .putLong(uuid.getMostSignificantBits())
+                        .putLong(uuid.getLeastSignificantBits())
+                        .array();
+            }
+            if (String.class.isAssignableFrom(type)) {
+                return (X) value;
+            }
+            throw unknownUnwrap(type);
+        }
+
+        @Override
+        public <X> String wrap(X value, WrapperOptions options) {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof byte[]) {
+                ByteBuffer buffer = ByteBuffer.wrap((byte[]) value);
+                return new UUID(buffer.getLong(), buffer.getLong()).toString();
+            }
+            if (value instanceof String) {
+                return (String) value;
+            }
+            throw unknownWrap(value.getClass());
+        }
+    }
+}
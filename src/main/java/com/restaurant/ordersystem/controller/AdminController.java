@@ -0,0 +1,72 @@
+package com.restaurant.ordersystem.controller;
+
+import com.restaurant.ordersystem.service.DiscountCodeFilter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DiscountCodeFilter discountCodeFilter;
+
+    public AdminController(EntityManagerFactory entityManagerFactory, DiscountCodeFilter discountCodeFilter) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.discountCodeFilter = discountCodeFilter;
+    }
+
+    // GET Hibernate second-level cache hit/miss counts, overall and per region,
+    // and the size and false positive rate of the discount code filter
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        logger.info("Retrieving cache statistics");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> secondLevelCache = new LinkedHashMap<>();
+        secondLevelCache.put("hits", statistics.getSecondLevelCacheHitCount());
+        secondLevelCache.put("misses", statistics.getSecondLevelCacheMissCount());
+        secondLevelCache.put("puts", statistics.getSecondLevelCachePutCount());
+
+        Map<String, Object> regions = new TreeMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, toMap(region));
+            }
+        }
+        secondLevelCache.put("regions", regions);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("statisticsSince", statistics.getStartTime());
+        response.put("secondLevelCache", secondLevelCache);
+        response.put("entityLoads", statistics.getEntityLoadCount());
+        response.put("queryExecutions", statistics.getQueryExecutionCount());
+        response.put("discountCodeFilter", discountCodeFilter.getStats());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    private Map<String, Object> toMap(CacheRegionStatistics region) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("hits", region.getHitCount());
+        values.put("misses", region.getMissCount());
+        values.put("puts", region.getPutCount());
+        values.put("entriesInMemory", region.getElementCountInMemory());
+        return values;
+    }
+}
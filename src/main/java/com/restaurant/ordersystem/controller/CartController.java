@@ -4,6 +4,7 @@ import com.restaurant.ordersystem.dto.AddToCartRequestDTO;
 import com.restaurant.ordersystem.dto.CartDTO;
 import com.restaurant.ordersystem.dto.CartItemDTO;
 import com.restaurant.ordersystem.dto.CartItemRequestDTO;
+import com.restaurant.ordersystem.dto.CartQuoteDTO;
 import com.restaurant.ordersystem.model.Cart;
 import com.restaurant.ordersystem.model.CartItem;
 import com.restaurant.ordersystem.model.Customer;
@@ -12,9 +13,13 @@ import com.restaurant.ordersystem.model.MenuItem;
 import com.restaurant.ordersystem.repository.CartItemRepository;
 import com.restaurant.ordersystem.repository.CartRepository;
 import com.restaurant.ordersystem.repository.CustomerRepository;
-import com.restaurant.ordersystem.repository.MenuItemRepository;
+import com.restaurant.ordersystem.service.CartLines;
+import com.restaurant.ordersystem.service.CartPricingService;
 import com.restaurant.ordersystem.service.CartService;
+import com.restaurant.ordersystem.service.MenuCatalog;
+import com.restaurant.ordersystem.service.MenuCatalogService;
 import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.util.MinorUnits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,17 +43,19 @@ public class CartController {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final CustomerRepository customerRepository;
-    private final MenuItemRepository menuItemRepository;
+    private final MenuCatalogService menuCatalogService;
+    private final CartPricingService cartPricingService;
 
     @Autowired
     public CartController(CartService cartService, CartRepository cartRepository,
                          CartItemRepository cartItemRepository, CustomerRepository customerRepository,
-                         MenuItemRepository menuItemRepository) {
+                         MenuCatalogService menuCatalogService, CartPricingService cartPricingService) {
         this.cartService = cartService;
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.customerRepository = customerRepository;
-        this.menuItemRepository = menuItemRepository;
+        this.menuCatalogService = menuCatalogService;
+        this.cartPricingService = cartPricingService;
     }
 
     @GetMapping("/customer/{customerId}")
@@ -59,6 +66,13 @@ public class CartController {
         return new ResponseEntity<>(cartDTO, HttpStatus.OK);
     }
 
+    // GET - Price the active cart from the current menu, previewing a discount code
+    @GetMapping("/customer/{customerId}/quote")
+    public ResponseEntity<CartQuoteDTO> quoteCart(@PathVariable Integer customerId,
+                                                  @RequestParam(required = false) String discountCode) {
+        return new ResponseEntity<>(cartPricingService.quote(customerId, discountCode), HttpStatus.OK);
+    }
+
     // SPECIFIC ROUTES FIRST - For multiple items 
     @PostMapping("/addmultiple")
     public ResponseEntity<Map<String, Object>> addMultipleItemsToCart(@RequestBody AddToCartRequestDTO requestDTO) {
@@ -79,30 +93,36 @@ public class CartController {
                     return cartRepository.save(newCart);
                 });
 
-        BigDecimal totalAdded = BigDecimal.ZERO;
-        List<Integer> cartItemIds = new ArrayList<>();
+        // Menu items come from the in-memory menu catalog and are priced from its price table
+        MenuCatalog catalog = menuCatalogService.getCatalog();
+
+        List<CartItem> cartItems = new ArrayList<>();
 
         for (CartItemRequestDTO item : items) {
-            MenuItem menuItem = menuItemRepository.findById(item.getMenuItemId())
+            MenuItem menuItem = catalog.findMenuItem(item.getMenuItemId())
                     .orElseThrow(() -> new ResourceNotFoundException("MenuItem", "id", item.getMenuItemId()));
 
-            BigDecimal price = menuItem.getPrice();
-            BigDecimal subtotal = price.multiply(BigDecimal.valueOf(item.getQuantity()));
-
             CartItem cartItem = new CartItem();
             cartItem.setCart(cart);
             cartItem.setMenuItem(menuItem);
+            if (item.getVariantId() != null) {
+                cartItem.setVariant(catalog.findVariant(item.getVariantId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Variant", "id", item.getVariantId())));
+            }
             cartItem.setQuantity(item.getQuantity());
-            cartItem.setPrice(price);
-            cartItem.setSubtotal(subtotal);
             cartItem.setSpecialInstructions(item.getSpecialInstructions());
 
-            cartItem = cartItemRepository.save(cartItem);
+            cartItems.add(cartItem);
+        }
+        CartLines added = cartPricingService.reprice(cartItems);
+
+        // Inserted as one JDBC batch
+        List<Integer> cartItemIds = new ArrayList<>();
+        for (CartItem cartItem : cartItemRepository.saveAll(cartItems)) {
             cartItemIds.add(cartItem.getCartItemId());
-            totalAdded = totalAdded.add(subtotal);
         }
 
-        cart.setTotalAmount(cart.getTotalAmount().add(totalAdded));
+        cart.setTotalAmount(cart.getTotalAmount().add(MinorUnits.toAmount(added.getTotal())));
         cart.setLastModifiedDateTime(LocalDateTime.now());
         cartRepository.save(cart);
 
@@ -129,7 +149,7 @@ public class CartController {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
 
         // Get menu item
-        MenuItem menuItem = menuItemRepository.findById(menuItemId)
+        MenuItem menuItem = menuCatalogService.getCatalog().findMenuItem(menuItemId)
                 .orElseThrow(() -> new ResourceNotFoundException("MenuItem", "id", menuItemId));
 
         // Get or create cart
@@ -149,9 +169,8 @@ public class CartController {
         cartItem.setCart(cart);
         cartItem.setMenuItem(menuItem);
         cartItem.setQuantity(quantity);
-        cartItem.setPrice(menuItem.getPrice());
-        cartItem.setSubtotal(menuItem.getPrice().multiply(BigDecimal.valueOf(quantity)));
         cartItem.setSpecialInstructions(specialInstructions);
+        cartPricingService.reprice(List.of(cartItem));
 
         cartItemRepository.save(cartItem);
 
@@ -195,10 +214,10 @@ public class CartController {
         // Calculate old subtotal
         BigDecimal oldSubtotal = cartItem.getSubtotal();
 
-        // Update cart item
+        // Update cart item, at the current menu price
         cartItem.setQuantity(quantity);
-        cartItem.setSubtotal(cartItem.getPrice().multiply(BigDecimal.valueOf(quantity)));
         cartItem.setSpecialInstructions(specialInstructions);
+        cartPricingService.reprice(List.of(cartItem));
 
         cartItemRepository.save(cartItem);
 
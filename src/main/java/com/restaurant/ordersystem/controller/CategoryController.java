@@ -3,14 +3,16 @@ package com.restaurant.ordersystem.controller;
 import com.restaurant.ordersystem.model.Category;
 import com.restaurant.ordersystem.repository.CategoryRepository;
 import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.service.MenuCatalogService;
+import com.restaurant.ordersystem.service.MenuPayloadCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -19,26 +21,31 @@ public class CategoryController {
     private static final Logger logger = LoggerFactory.getLogger(CategoryController.class);
 
     private final CategoryRepository categoryRepository;
+    private final MenuCatalogService menuCatalogService;
+    private final MenuPayloadCache menuPayloadCache;
 
     @Autowired
-    public CategoryController(CategoryRepository categoryRepository) {
+    public CategoryController(CategoryRepository categoryRepository, MenuCatalogService menuCatalogService,
+                              MenuPayloadCache menuPayloadCache) {
         this.categoryRepository = categoryRepository;
+        this.menuCatalogService = menuCatalogService;
+        this.menuPayloadCache = menuPayloadCache;
     }
 
-    // GET all categories
+    // GET all categories (pre-serialized JSON of the in-memory menu catalog, 304 if the ETag matches)
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
+    public ResponseEntity<byte[]> getAllCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         logger.info("Retrieving all categories");
-        List<Category> categories = categoryRepository.findAll();
-        logger.info("Retrieved {} categories", categories.size());
-        return new ResponseEntity<>(categories, HttpStatus.OK);
+        return menuPayloadCache.respond(MenuPayloadCache.Resource.CATEGORIES, ifNoneMatch, acceptEncoding);
     }
 
     // GET category by ID
     @GetMapping("/{categoryId}")
     public ResponseEntity<Category> getCategoryById(@PathVariable Integer categoryId) {
         logger.info("Retrieving category with ID: {}", categoryId);
-        Category category = categoryRepository.findById(categoryId)
+        Category category = menuCatalogService.getCatalog().findCategory(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
         return new ResponseEntity<>(category, HttpStatus.OK);
     }
@@ -48,6 +55,7 @@ public class CategoryController {
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
         logger.info("Creating new category: {}", category.getName());
         Category savedCategory = categoryRepository.save(category);
+        menuCatalogService.refresh();
         return new ResponseEntity<>(savedCategory, HttpStatus.CREATED);
     }
 
@@ -66,6 +74,7 @@ public class CategoryController {
         category.setLastModifiedDateTime(updatedCategoryData.getLastModifiedDateTime());
 
         Category updatedCategory = categoryRepository.save(category);
+        menuCatalogService.refresh();
         return new ResponseEntity<>(updatedCategory, HttpStatus.OK);
     }
 
@@ -76,6 +85,7 @@ public class CategoryController {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
         categoryRepository.delete(category);
+        menuCatalogService.refresh();
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
@@ -1,8 +1,10 @@
 package com.restaurant.ordersystem.controller;
 
+import com.restaurant.ordersystem.dto.CustomerWalletDTO;
 import com.restaurant.ordersystem.model.Customer;
 import com.restaurant.ordersystem.repository.CustomerRepository;
 import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.service.CustomerWalletService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,10 +21,12 @@ public class CustomerController {
     private static final Logger logger = LoggerFactory.getLogger(CustomerController.class);
 
     private final CustomerRepository customerRepository;
+    private final CustomerWalletService customerWalletService;
 
     @Autowired
-    public CustomerController(CustomerRepository customerRepository) {
+    public CustomerController(CustomerRepository customerRepository, CustomerWalletService customerWalletService) {
         this.customerRepository = customerRepository;
+        this.customerWalletService = customerWalletService;
     }
 
     // GET all customers
@@ -44,6 +48,13 @@ public class CustomerController {
         return new ResponseEntity<>(customer, HttpStatus.OK);
     }
 
+    // GET customer's redeemable rewards, vouchers and referral codes
+    @GetMapping("/{customerId}/wallet")
+    public ResponseEntity<CustomerWalletDTO> getWallet(@PathVariable Integer customerId) {
+        logger.debug("Retrieving wallet of customer with ID: {}", customerId);
+        return new ResponseEntity<>(customerWalletService.getWallet(customerId), HttpStatus.OK);
+    }
+
     // POST - Create new customer
     @PostMapping
     public ResponseEntity<Customer> createCustomer(@RequestBody Customer customer) {
@@ -3,16 +3,18 @@ package com.restaurant.ordersystem.controller;
 import com.restaurant.ordersystem.model.MenuItem;
 import com.restaurant.ordersystem.repository.MenuItemRepository;
 import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.service.MenuCatalogService;
+import com.restaurant.ordersystem.service.MenuPayloadCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/menu-items")
@@ -21,25 +23,31 @@ public class MenuItemController {
     private static final Logger logger = LoggerFactory.getLogger(MenuItemController.class);
 
     private final MenuItemRepository menuItemRepository;
+    private final MenuCatalogService menuCatalogService;
+    private final MenuPayloadCache menuPayloadCache;
 
     @Autowired
-    public MenuItemController(MenuItemRepository menuItemRepository) {
+    public MenuItemController(MenuItemRepository menuItemRepository, MenuCatalogService menuCatalogService,
+                              MenuPayloadCache menuPayloadCache) {
         this.menuItemRepository = menuItemRepository;
+        this.menuCatalogService = menuCatalogService;
+        this.menuPayloadCache = menuPayloadCache;
     }
 
-    // GET all
+    // GET all (pre-serialized JSON of the in-memory menu catalog, 304 if the ETag matches)
     @GetMapping
-    public ResponseEntity<List<MenuItem>> getAllMenuItems() {
+    public ResponseEntity<byte[]> getAllMenuItems(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         logger.info("Retrieving all menu items");
-        List<MenuItem> menuItems = menuItemRepository.findAll();
-        return new ResponseEntity<>(menuItems, HttpStatus.OK);
+        return menuPayloadCache.respond(MenuPayloadCache.Resource.MENU_ITEMS, ifNoneMatch, acceptEncoding);
     }
 
     // GET by ID
     @GetMapping("/{itemId}")
     public ResponseEntity<MenuItem> getMenuItemById(@PathVariable Integer itemId) {
         logger.info("Retrieving menu item with ID: {}", itemId);
-        MenuItem menuItem = menuItemRepository.findById(itemId)
+        MenuItem menuItem = menuCatalogService.getCatalog().findMenuItem(itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("MenuItem", "id", itemId));
         return new ResponseEntity<>(menuItem, HttpStatus.OK);
     }
@@ -49,6 +57,7 @@ public class MenuItemController {
     public ResponseEntity<MenuItem> createMenuItem(@RequestBody MenuItem menuItem) {
         logger.info("Creating new menu item: {}", menuItem.getName());
         MenuItem savedItem = menuItemRepository.save(menuItem);
+        menuCatalogService.refresh();
         return new ResponseEntity<>(savedItem, HttpStatus.CREATED);
     }
 
@@ -74,6 +83,7 @@ public class MenuItemController {
         existingItem.setStatus(updatedItem.getStatus());
 
         MenuItem savedItem = menuItemRepository.save(existingItem);
+        menuCatalogService.refresh();
         return new ResponseEntity<>(savedItem, HttpStatus.OK);
     }
 
@@ -84,6 +94,7 @@ public class MenuItemController {
         MenuItem existingItem = menuItemRepository.findById(itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("MenuItem", "id", itemId));
         menuItemRepository.delete(existingItem);
+        menuCatalogService.refresh();
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
@@ -1,23 +1,44 @@
 package com.restaurant.ordersystem.controller;
 
+import com.restaurant.ordersystem.dto.OrderPageDTO;
 import com.restaurant.ordersystem.dto.OrderRequestDTO;
 import com.restaurant.ordersystem.dto.OrderResponseDTO;
+import com.restaurant.ordersystem.dto.OrderSearchFilter;
+import com.restaurant.ordersystem.dto.OrderStatusHistoryDTO;
+import com.restaurant.ordersystem.dto.OrderTicketDTO;
 import com.restaurant.ordersystem.dto.PaymentStatusUpdateDTO;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.exception.TooManyRequestsException;
+import com.restaurant.ordersystem.model.Order;
 import com.restaurant.ordersystem.model.Payment;
 import com.restaurant.ordersystem.model.PaymentStatus;
+import com.restaurant.ordersystem.service.AsyncOrderPlacementService;
+import com.restaurant.ordersystem.service.IdempotencyService;
 import com.restaurant.ordersystem.service.OrderService;
 import com.restaurant.ordersystem.service.PaymentService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -25,17 +46,56 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
     private final PaymentService paymentService;
-
-    public OrderController(OrderService orderService, PaymentService paymentService) {
+    private final IdempotencyService idempotencyService;
+    private final AsyncOrderPlacementService asyncOrderPlacementService;
+    // Each running export holds two pooled connections and a request thread for minutes
+    private final Semaphore exportPermits;
+    private final int maxConcurrentExports;
+
+    public OrderController(OrderService orderService, PaymentService paymentService,
+                           IdempotencyService idempotencyService,
+                           AsyncOrderPlacementService asyncOrderPlacementService,
+                           @Value("${orders.export.max-concurrent:2}") int maxConcurrentExports) {
         this.orderService = orderService;
         this.paymentService = paymentService; 
+        this.idempotencyService = idempotencyService;
+        this.asyncOrderPlacementService = asyncOrderPlacementService;
+        this.exportPermits = new Semaphore(maxConcurrentExports);
+        this.maxConcurrentExports = maxConcurrentExports;
     }
 
     @PostMapping
-    public ResponseEntity<OrderResponseDTO> placeOrder(@Valid @RequestBody OrderRequestDTO orderRequest) {
+    public ResponseEntity<?> placeOrder(
+            @Valid @RequestBody OrderRequestDTO orderRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestParam(defaultValue = "false") boolean async) {
         logger.info("Received order placement request for customer ID: {}", orderRequest.getCustomerId());
+
+        if (async) {
+            // Accept now, place on a worker lane; the client polls the Location until the order exists
+            OrderTicketDTO ticket = asyncOrderPlacementService.submit(orderRequest, idempotencyKey);
+            return ResponseEntity.accepted()
+                    .location(URI.create(ticket.getStatusUrl()))
+                    .body(ticket);
+        }
+
+        if (idempotencyKey != null) {
+            IdempotencyService.IdempotentResponse result = idempotencyService.placeOrder(idempotencyKey, orderRequest);
+            if (result.isReplayed()) {
+                logger.info("Replayed order ID: {} for Idempotency-Key: {}", result.getResponse().getOrderId(), idempotencyKey);
+            } else {
+                logger.info("Order placed successfully with order ID: {}", result.getResponse().getOrderId());
+            }
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.isReplayed()))
+                    .body(result.getResponse());
+        }
+
         OrderResponseDTO response = orderService.placeOrder(orderRequest);
         logger.info("Order placed successfully with order ID: {}", response.getOrderId());
         return new ResponseEntity<>(response, HttpStatus.CREATED);
@@ -49,14 +109,50 @@ public class OrderController {
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<OrderPageDTO> searchOrders(
+            @RequestParam(required = false) Integer restaurantId,
+            @RequestParam(required = false) Integer customerId,
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        logger.info("Searching orders (restaurant: {}, customer: {}, status: {}, from: {}, to: {}, limit: {})",
+                restaurantId, customerId, status, from, to, limit);
+        OrderSearchFilter filter = new OrderSearchFilter(restaurantId, customerId, status, from, to);
+        OrderPageDTO page = orderService.searchOrders(filter, cursor, limit);
+        logger.info("Retrieved {} orders, hasMore: {}", page.getOrders().size(), page.isHasMore());
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @GetMapping("/{orderId}")
-    public ResponseEntity<OrderResponseDTO> getOrderById(@PathVariable String orderId) {
+    public ResponseEntity<?> getOrderById(@PathVariable String orderId) {
         logger.info("Retrieving order with ID: {}", orderId);
-        OrderResponseDTO order = orderService.getOrderById(orderId);
+        OrderResponseDTO order;
+        try {
+            order = orderService.getOrderById(orderId);
+        } catch (ResourceNotFoundException e) {
+            // Not placed yet if it was accepted asynchronously: 202 while pending, 422 if it was rejected
+            Optional<OrderTicketDTO> ticket = asyncOrderPlacementService.findTicket(orderId);
+            if (!ticket.isPresent()) {
+                throw e;
+            }
+            HttpStatus status = "FAILED".equals(ticket.get().getStatus())
+                    ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.ACCEPTED;
+            return new ResponseEntity<>(ticket.get(), status);
+        }
         logger.info("Retrieved order with ID: {}", orderId);
         return new ResponseEntity<>(order, HttpStatus.OK);
     }
 
+    @GetMapping("/{orderId}/status-history")
+    public ResponseEntity<List<OrderStatusHistoryDTO>> getStatusHistory(@PathVariable String orderId) {
+        logger.info("Retrieving status history for order ID: {}", orderId);
+        List<OrderStatusHistoryDTO> history = orderService.getStatusHistory(orderId);
+        return new ResponseEntity<>(history, HttpStatus.OK);
+    }
+
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<List<OrderResponseDTO>> getOrdersByCustomerId(@PathVariable Integer customerId) {
         logger.info("Retrieving orders for customer ID: {}", customerId);
@@ -83,6 +179,47 @@ public class OrderController {
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        OrderService.ExportFormat exportFormat;
+        try {
+            exportFormat = OrderService.ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOrderException("Unsupported export format: " + format + " (expected ndjson or csv)");
+        }
+
+        // Refuse up front rather than queue; the permit is returned once the body is written
+        if (!exportPermits.tryAcquire()) {
+            throw new TooManyRequestsException("At most " + maxConcurrentExports
+                    + " order exports can run at once; retry when one has finished");
+        }
+
+        logger.info("Exporting orders between {} and {} as {}", startDate, endDate, exportFormat);
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                orderService.exportOrders(startDate, endDate, exportFormat, writer);
+                writer.flush();
+            } finally {
+                exportPermits.release();
+            }
+        };
+
+        MediaType contentType = exportFormat == OrderService.ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.parseMediaType("application/x-ndjson");
+        String fileName = "orders." + exportFormat.name().toLowerCase();
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
 @PutMapping("/{orderId}/payment/status")
 public ResponseEntity<String> updatePaymentStatusByOrderId(
         @PathVariable String orderId,
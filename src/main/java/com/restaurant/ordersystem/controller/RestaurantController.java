@@ -0,0 +1,37 @@
+package com.restaurant.ordersystem.controller;
+
+import com.restaurant.ordersystem.dto.PickupSlotDTO;
+import com.restaurant.ordersystem.service.PickupSlotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/restaurants")
+public class RestaurantController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantController.class);
+
+    private final PickupSlotService pickupSlotService;
+
+    public RestaurantController(PickupSlotService pickupSlotService) {
+        this.pickupSlotService = pickupSlotService;
+    }
+
+    // GET next open pickup slots
+    @GetMapping("/{restaurantId}/slots")
+    public ResponseEntity<List<PickupSlotDTO>> getPickupSlots(
+            @PathVariable Integer restaurantId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) Integer count) {
+        logger.info("Retrieving pickup slots for restaurant ID: {} from: {}, count: {}", restaurantId, from, count);
+        List<PickupSlotDTO> slots = pickupSlotService.findNextSlots(restaurantId, from, count);
+        return new ResponseEntity<>(slots, HttpStatus.OK);
+    }
+}
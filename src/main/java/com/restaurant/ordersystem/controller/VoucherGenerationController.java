@@ -0,0 +1,46 @@
+package com.restaurant.ordersystem.controller;
+
+import com.restaurant.ordersystem.dto.VoucherGenerationJobDTO;
+import com.restaurant.ordersystem.dto.VoucherGenerationRequestDTO;
+import com.restaurant.ordersystem.service.VoucherGenerationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/admin/voucher-jobs")
+public class VoucherGenerationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoucherGenerationController.class);
+
+    private final VoucherGenerationService voucherGenerationService;
+
+    public VoucherGenerationController(VoucherGenerationService voucherGenerationService) {
+        this.voucherGenerationService = voucherGenerationService;
+    }
+
+    // POST - Start generating vouchers in the background
+    @PostMapping
+    public ResponseEntity<VoucherGenerationJobDTO> startJob(@Valid @RequestBody VoucherGenerationRequestDTO request) {
+        logger.info("Starting generation of {} vouchers", request.getCount());
+        VoucherGenerationJobDTO job = voucherGenerationService.startJob(request);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    // GET job progress
+    @GetMapping("/{jobId}")
+    public ResponseEntity<VoucherGenerationJobDTO> getJob(@PathVariable Long jobId) {
+        return new ResponseEntity<>(voucherGenerationService.getJob(jobId), HttpStatus.OK);
+    }
+
+    // POST - Resume a failed or stalled job
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<VoucherGenerationJobDTO> resumeJob(@PathVariable Long jobId) {
+        logger.info("Resuming voucher generation job {}", jobId);
+        return new ResponseEntity<>(voucherGenerationService.resumeJob(jobId), HttpStatus.ACCEPTED);
+    }
+}
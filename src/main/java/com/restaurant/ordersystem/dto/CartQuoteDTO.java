@@ -0,0 +1,33 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A cart priced from the current menu, with the discounts checkout would apply. The discount
+ * code is only previewed, not redeemed, so checkout can still turn it down.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartQuoteDTO {
+
+    private Integer customerId;
+    private Integer cartId;
+    private List<CartItemDTO> cartItems;
+    private BigDecimal totalAmount;
+    private String discountCode;
+    private BigDecimal codeDiscount;
+    // Why the discount code would not be applied, if it would not
+    private String codeRejectionReason;
+    private BigDecimal campaignDiscount;
+    private List<Integer> appliedRuleIds;
+    private BigDecimal discountValue;
+    private BigDecimal finalAmount;
+    private LocalDateTime quotedAt;
+}
@@ -0,0 +1,26 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Everything a customer can currently redeem: free item rewards, reward vouchers, vouchers
+ * issued to them, and their unused referral codes with the number already redeemed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerWalletDTO {
+
+    private Integer customerId;
+    private List<WalletEntryDTO> rewardItems;
+    private List<WalletEntryDTO> rewardVouchers;
+    private List<WalletEntryDTO> vouchers;
+    private List<WalletEntryDTO> referralCodes;
+    private Integer redeemedReferrals;
+    private LocalDateTime loadedAt;
+}
@@ -31,6 +31,7 @@ public class OrderResponseDTO {
     private BigDecimal finalPrice;
     private Integer totalItems;
     private String couponCode;
+    private List<Integer> appliedRuleIds;
     private String pickupInstructions;
     private List<OrderItemDTO> orderItems;
 
@@ -164,6 +165,14 @@ public class OrderResponseDTO {
         this.couponCode = couponCode;
     }
 
+    public List<Integer> getAppliedRuleIds() {
+        return appliedRuleIds;
+    }
+
+    public void setAppliedRuleIds(List<Integer> appliedRuleIds) {
+        this.appliedRuleIds = appliedRuleIds;
+    }
+
     public String getPickupInstructions() {
         return pickupInstructions;
     }
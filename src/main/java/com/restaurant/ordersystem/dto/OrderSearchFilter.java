@@ -0,0 +1,23 @@
+package com.restaurant.ordersystem.dto;
+
+import com.restaurant.ordersystem.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for the paginated order listing. Null fields are not applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchFilter {
+
+    private Integer restaurantId;
+    private Integer customerId;
+    private Order.OrderStatus status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
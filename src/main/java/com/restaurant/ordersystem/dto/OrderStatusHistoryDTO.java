@@ -0,0 +1,17 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusHistoryDTO {
+
+    private String status;
+    private LocalDateTime timestamp;
+    private String notes;
+}
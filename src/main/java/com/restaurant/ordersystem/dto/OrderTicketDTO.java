@@ -0,0 +1,23 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Returned for orders accepted in asynchronous mode until they have been placed.
+ * Poll {@code statusUrl} until it returns the order itself.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTicketDTO {
+
+    private String orderId;
+    private String status;
+    private String errorMessage;
+    private LocalDateTime submittedAt;
+    private String statusUrl;
+}
@@ -0,0 +1,20 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pickup window during which the restaurant is open, with the number of orders it can still take.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PickupSlotDTO {
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private int remainingCapacity;
+}
@@ -0,0 +1,28 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk voucher issue. codesPerSecond is only reported by the instance
+ * currently running the job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoucherGenerationJobDTO {
+
+    private Long jobId;
+    private String status;
+    private Integer requestedCount;
+    private Integer generatedCount;
+    private Double percentComplete;
+    private Long codesPerSecond;
+    private String errorMessage;
+    private LocalDateTime createdDateTime;
+    private LocalDateTime updatedDateTime;
+    private LocalDateTime completedDateTime;
+}
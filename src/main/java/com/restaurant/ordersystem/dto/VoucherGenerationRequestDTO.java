@@ -0,0 +1,36 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk voucher issue. Every voucher gets the same benefit: a percentage, an amount or a
+ * free item.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoucherGenerationRequestDTO {
+
+    @NotNull(message = "Count is required")
+    private Integer count;
+
+    // Optional, e.g. "SUMMER-"; letters, digits and dashes
+    private String codePrefix;
+
+    private String description;
+
+    private Integer discountPercentage;
+
+    private BigDecimal discountAmount;
+
+    private Integer freeItemId;
+
+    @NotNull(message = "Expiry date is required")
+    private LocalDateTime expiryDate;
+}
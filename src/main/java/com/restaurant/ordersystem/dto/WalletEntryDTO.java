@@ -0,0 +1,27 @@
+package com.restaurant.ordersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A reward, voucher or referral code in a customer's wallet. Fields that do not apply to
+ * the kind of entry are null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletEntryDTO {
+
+    private Integer id;
+    private String code;
+    private String description;
+    private Integer discountPercentage;
+    private BigDecimal discountAmount;
+    private Integer itemId;
+    private String itemName;
+    private LocalDateTime expiryDate;
+}
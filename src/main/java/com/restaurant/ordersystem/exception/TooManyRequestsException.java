@@ -0,0 +1,8 @@
+package com.restaurant.ordersystem.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
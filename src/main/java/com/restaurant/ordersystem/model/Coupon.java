@@ -1,8 +1,11 @@
 package com.restaurant.ordersystem.model;
 
+import com.restaurant.ordersystem.util.DiscountCodeListener;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -10,6 +13,9 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "coupons")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(DiscountCodeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,37 @@
+package com.restaurant.ordersystem.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * How often a customer has redeemed a coupon, checked against {@link Coupon#getLimitPerUser()}.
+ * The count is only changed by single conditional statements in CouponRedemptionRepository.
+ */
+@Entity
+@Table(name = "coupon_redemptions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_coupon_redemptions_coupon_customer", columnNames = {"coupon_id", "customer_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponRedemption {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "coupon_id", nullable = false)
+    private Integer couponId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Integer customerId;
+
+    @Column(nullable = false)
+    private Integer redemptionCount;
+
+    private LocalDateTime lastRedeemedAt;
+}
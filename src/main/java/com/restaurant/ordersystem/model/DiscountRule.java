@@ -0,0 +1,83 @@
+package com.restaurant.ordersystem.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Automatic campaign discount, applied to every order that qualifies without a code.
+ * Active rules are compiled into a DiscountRulePipeline and evaluated in priority order.
+ */
+@Entity
+@Table(name = "discount_rules", indexes = {
+        @Index(name = "idx_discount_rules_status_end", columnList = "status, end_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscountRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer ruleId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RuleType ruleType;
+
+    // Percentage rules: percent of the eligible spend
+    private Integer percentage;
+
+    // Fixed rules: amount off
+    private BigDecimal amount;
+
+    // Minimum eligible spend for the rule to apply
+    private BigDecimal minSpend;
+
+    // Restricts the eligible spend to items of this category; the whole cart when null
+    @ManyToOne
+    @JoinColumn(name = "category_id")
+    private Category category;
+
+    // Free item rules: one unit of this item is free when it is in the cart
+    @ManyToOne
+    @JoinColumn(name = "item_id")
+    private MenuItem freeItem;
+
+    // Upper bound of this rule's discount
+    private BigDecimal maxDiscount;
+
+    // Lower values are applied first
+    @Column(nullable = false)
+    private Integer priority;
+
+    // When false, no rule after this one is applied once it applies
+    @Column(nullable = false)
+    private Boolean stackable;
+
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RuleStatus status;
+
+    private LocalDateTime createdDateTime;
+
+    public enum RuleType {
+        Percentage, Fixed, FreeItem
+    }
+
+    public enum RuleStatus {
+        Active, Inactive
+    }
+}
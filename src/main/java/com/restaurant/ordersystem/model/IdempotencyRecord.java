@@ -0,0 +1,67 @@
+package com.restaurant.ordersystem.model;
+
+import com.restaurant.ordersystem.config.UuidBinaryType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Durable record of an order placed under an Idempotency-Key, used to replay the
+ * original response when a client retries the same request.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, to reject reuse of a key for a different request
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    @Type(type = UuidBinaryType.NAME)
+    @Column(columnDefinition = "binary(16)")
+    private String orderId;
+
+    @Lob
+    @Column(columnDefinition = "mediumtext")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDateTime;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Always inserted, never merged, so a concurrent duplicate fails on the primary key
+    @Transient
+    private boolean newRecord = true;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRecord = false;
+    }
+}
@@ -1,28 +1,39 @@
 package com.restaurant.ordersystem.model;
 
+import com.restaurant.ordersystem.config.UuidBinaryType;
+import com.restaurant.ordersystem.util.OrderIdGenerator;
 import com.vladmihalcea.hibernate.type.json.JsonStringType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.Type;
 import org.hibernate.annotations.TypeDef;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset pagination walks (order_date, order_id); the filtered variants lead with the filter column
+        @Index(name = "idx_orders_date_id", columnList = "orderDate, orderId"),
+        @Index(name = "idx_orders_restaurant_date_id", columnList = "restaurant_id, orderDate, orderId"),
+        @Index(name = "idx_orders_customer_date_id", columnList = "customer_id, orderDate, orderId"),
+        @Index(name = "idx_orders_status_date_id", columnList = "status, orderDate, orderId")
+})
 @TypeDef(name = "json", typeClass = JsonStringType.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Order {
+public class Order implements Persistable<String> {
 
+    // Time-ordered UUID, exposed as a string but stored as BINARY(16)
     @Id
-    @Column(length = 36)
+    @Type(type = UuidBinaryType.NAME)
+    @Column(length = 16, columnDefinition = "binary(16)")
     private String orderId;
 
     @ManyToOne
@@ -50,6 +61,19 @@ public class Order {
     @JoinColumn(name = "coupon_id")
     private Coupon coupon;
 
+    // Discount granted at checkout (discount code plus campaign rules), so that later reads
+    // show what was charged instead of re-pricing against today's coupons and rules
+    @Column(precision = 10, scale = 2)
+    private BigDecimal discountAmount;
+
+    // Coupon, voucher or referral code applied at checkout
+    @Column(length = 50)
+    private String discountCode;
+
+    // Comma-separated ids of the campaign rules applied at checkout
+    @Column(length = 255)
+    private String appliedRuleIds;
+
     @Column(length = 80)
     private String cookingInstructions;
 
@@ -68,13 +92,34 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    // Ids are assigned before the first save, so Spring Data cannot tell a new order from
+    // its id; without this every save of a new order is a merge with an extra SELECT
+    @Transient
+    private boolean newOrder = true;
+
     @PrePersist
     public void generateOrderId() {
         if (this.orderId == null) {
-            this.orderId = UUID.randomUUID().toString();
+            this.orderId = OrderIdGenerator.newId();
         }
     }
 
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.newOrder = false;
+    }
+
+    @Override
+    public String getId() {
+        return orderId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newOrder;
+    }
+
     public enum OrderStatus {
         Placed,Received, Preparing, ReadyToPickup, OrderCompleted, Cancelled
     }
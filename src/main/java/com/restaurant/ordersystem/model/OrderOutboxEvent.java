@@ -0,0 +1,63 @@
+package com.restaurant.ordersystem.model;
+
+import com.restaurant.ordersystem.config.UuidBinaryType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Pending change to an order that still has to be mirrored to DynamoDB.
+ * Written in the same transaction as the order itself and drained by OrderOutboxRelay.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_order_outbox_pending", columnList = "status, nextAttemptAt, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Type(type = UuidBinaryType.NAME)
+    @Column(nullable = false, columnDefinition = "binary(16)")
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30, nullable = false)
+    private EventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Earliest next attempt; for an IN_FLIGHT event, when its relay's lease expires
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDateTime;
+
+    private LocalDateTime processedDateTime;
+
+    public enum EventType {
+        ORDER_PLACED, ORDER_UPDATED
+    }
+
+    public enum OutboxStatus {
+        PENDING, IN_FLIGHT, SENT
+    }
+}
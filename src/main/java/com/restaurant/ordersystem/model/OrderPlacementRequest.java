@@ -0,0 +1,66 @@
+package com.restaurant.ordersystem.model;
+
+import com.restaurant.ordersystem.config.UuidBinaryType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Order accepted in asynchronous mode and not placed yet. The order id is assigned up
+ * front and returned to the client as the ticket to poll; the row is deleted in the same
+ * transaction that places the order, and kept as FAILED if the order is rejected.
+ */
+@Entity
+@Table(name = "order_placement_requests", indexes = {
+        @Index(name = "idx_order_placement_requests_status", columnList = "status, createdDateTime"),
+        @Index(name = "idx_order_placement_requests_restaurant", columnList = "restaurantId, status, createdDateTime")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPlacementRequest {
+
+    @Id
+    @Type(type = UuidBinaryType.NAME)
+    @Column(length = 16, columnDefinition = "binary(16)")
+    private String orderId;
+
+    @Column(nullable = false)
+    private Integer customerId;
+
+    @Column(nullable = false)
+    private Integer restaurantId;
+
+    // Idempotency-Key the order was submitted with, if any
+    @Column(length = 100, unique = true)
+    private String idempotencyKey;
+
+    // OrderRequestDTO as JSON
+    @Lob
+    @Column(columnDefinition = "text", nullable = false)
+    private String requestBody;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private PlacementStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDateTime;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedDateTime;
+
+    public enum PlacementStatus {
+        PENDING, FAILED
+    }
+}
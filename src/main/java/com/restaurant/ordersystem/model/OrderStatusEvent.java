@@ -0,0 +1,42 @@
+package com.restaurant.ordersystem.model;
+
+import com.restaurant.ordersystem.config.UuidBinaryType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One status transition of an order. Rows are only ever inserted, so concurrent
+ * status changes cannot overwrite each other's history.
+ */
+@Entity
+@Table(name = "order_status_events", indexes = {
+        @Index(name = "idx_order_status_events_order_ts", columnList = "orderId, ts")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Type(type = UuidBinaryType.NAME)
+    @Column(nullable = false, columnDefinition = "binary(16)")
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime ts;
+
+    @Column(length = 255)
+    private String notes;
+}
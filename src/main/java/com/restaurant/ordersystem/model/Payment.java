@@ -14,6 +14,8 @@ import javax.persistence.ManyToOne;
 import javax.persistence.PrePersist;
 import javax.persistence.Table;
 import com.restaurant.ordersystem.model.PaymentStatus;
+import com.restaurant.ordersystem.config.UuidBinaryType;
+import org.hibernate.annotations.Type;
 
 @Entity
 @Table(name = "payments")
@@ -37,7 +39,8 @@ public class Payment {
     @Id
     @Column(length = 36)
     private String paymentId;
-    @Column(name = "order_id")  // Add this annotation if your column name differs
+    @Type(type = UuidBinaryType.NAME)
+    @Column(name = "order_id", columnDefinition = "binary(16)")
 private String orderId;
 
 // Add getters and setters
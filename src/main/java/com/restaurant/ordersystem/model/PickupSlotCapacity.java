@@ -0,0 +1,39 @@
+package com.restaurant.ordersystem.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Orders reserved in one pickup slot of a restaurant, summed over all instances. Each
+ * instance adds its reservations here periodically and reads back the totals.
+ */
+@Entity
+@Table(name = "pickup_slot_capacity", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_pickup_slot_capacity_slot", columnNames = {"restaurant_id", "slot_start"})
+}, indexes = {
+        @Index(name = "idx_pickup_slot_capacity_start", columnList = "slot_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PickupSlotCapacity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Integer restaurantId;
+
+    @Column(name = "slot_start", nullable = false)
+    private LocalDateTime slotStart;
+
+    @Column(nullable = false)
+    private Integer reserved;
+
+    private LocalDateTime updatedDateTime;
+}
@@ -1,5 +1,7 @@
 package com.restaurant.ordersystem.model;
 
+import com.restaurant.ordersystem.util.CustomerWalletListener;
+import com.restaurant.ordersystem.util.DiscountCodeListener;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,7 +10,8 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "referrals")
+@Table(name = "referrals", indexes = @Index(name = "idx_referrals_created", columnList = "createdDateTime"))
+@EntityListeners({DiscountCodeListener.class, CustomerWalletListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -3,12 +3,16 @@ package com.restaurant.ordersystem.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "restaurants")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +51,9 @@ public class Restaurant {
 
     private String status;
 
+    // Orders accepted per pickup slot; null uses the configured default
+    private Integer slotCapacity;
+
     // Manually added getters and setters
     public Integer getRestaurantId() {
         return restaurantId;
@@ -151,4 +158,12 @@ public class Restaurant {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Integer getSlotCapacity() {
+        return slotCapacity;
+    }
+
+    public void setSlotCapacity(Integer slotCapacity) {
+        this.slotCapacity = slotCapacity;
+    }
 }
@@ -1,8 +1,11 @@
 package com.restaurant.ordersystem.model;
 
+import com.restaurant.ordersystem.util.RestaurantWorkingHoursListener;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -11,6 +14,9 @@ import java.time.LocalTime;
 
 @Entity
 @Table(name = "restaurant_working_hours")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(RestaurantWorkingHoursListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,6 @@
 package com.restaurant.ordersystem.model;
 
+import com.restaurant.ordersystem.util.CustomerWalletListener;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "reward_vouchers")
+@EntityListeners(CustomerWalletListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,15 +1,22 @@
 package com.restaurant.ordersystem.model;
 
+import com.restaurant.ordersystem.util.CustomerWalletListener;
+import com.restaurant.ordersystem.util.DiscountCodeListener;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "vouchers")
+@Table(name = "vouchers", indexes = @Index(name = "idx_vouchers_created", columnList = "createdDateTime"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({DiscountCodeListener.class, CustomerWalletListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,69 @@
+package com.restaurant.ordersystem.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk issue of single-use vouchers. generatedCount is raised in the same transaction that
+ * inserts each chunk of codes, so an interrupted job resumes with exactly the codes still
+ * missing; updatedDateTime doubles as the heartbeat of the instance running it.
+ */
+@Entity
+@Table(name = "voucher_generation_jobs", indexes = {
+        @Index(name = "idx_voucher_generation_jobs_status", columnList = "status, updatedDateTime")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoucherGenerationJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private JobStatus status;
+
+    @Column(length = 20)
+    private String codePrefix;
+
+    @Column(nullable = false)
+    private Integer requestedCount;
+
+    @Column(nullable = false)
+    private Integer generatedCount;
+
+    // Applied to every generated voucher
+    private String description;
+
+    private Integer discountPercentage;
+
+    private BigDecimal discountAmount;
+
+    @ManyToOne
+    @JoinColumn(name = "item_id")
+    private MenuItem freeItem;
+
+    private LocalDateTime expiryDate;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createdDateTime;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedDateTime;
+
+    private LocalDateTime completedDateTime;
+
+    public enum JobStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -3,6 +3,9 @@ package com.restaurant.ordersystem.repository;
 import com.restaurant.ordersystem.model.Cart;
 import com.restaurant.ordersystem.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,9 @@ import java.util.List;
 public interface CartItemRepository extends JpaRepository<CartItem, Integer> {
 
     List<CartItem> findByCart(Cart cart);
+
+    // Single DELETE statement instead of loading and removing the lines one by one
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart = :cart")
+    int deleteByCart(@Param("cart") Cart cart);
 }
@@ -3,12 +3,31 @@ package com.restaurant.ordersystem.repository;
 import com.restaurant.ordersystem.model.Cart;
 import com.restaurant.ordersystem.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Integer> {
     
     Optional<Cart> findByCustomerAndStatus(Customer customer, String status);
+
+    // Everything checkout needs from the cart in one query: the customer, the cart lines,
+    // their menu items with category/subcategory, and the chosen variants.
+    // DISTINCT only de-duplicates the carts in memory and is not sent to the database.
+    @Query("SELECT DISTINCT c FROM Cart c " +
+           "JOIN FETCH c.customer cu " +
+           "LEFT JOIN FETCH c.cartItems ci " +
+           "LEFT JOIN FETCH ci.menuItem mi " +
+           "LEFT JOIN FETCH mi.category " +
+           "LEFT JOIN FETCH mi.subCategory sc " +
+           "LEFT JOIN FETCH sc.category " +
+           "LEFT JOIN FETCH ci.variant " +
+           "WHERE cu.customerId = :customerId AND c.status = :status")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    Optional<Cart> findCheckoutCart(@Param("customerId") Integer customerId, @Param("status") String status);
 }
@@ -0,0 +1,42 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.CouponRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+
+@Repository
+public interface CouponRedemptionRepository extends JpaRepository<CouponRedemption, Long> {
+
+    // Counts one more redemption only while the customer is below the limit; 0 rows means
+    // the limit is reached or the customer has no row yet
+    @Modifying
+    @Query("UPDATE CouponRedemption r SET r.redemptionCount = r.redemptionCount + 1, r.lastRedeemedAt = :now " +
+           "WHERE r.couponId = :couponId AND r.customerId = :customerId AND r.redemptionCount < :limit")
+    int incrementIfBelow(@Param("couponId") Integer couponId,
+                         @Param("customerId") Integer customerId,
+                         @Param("limit") int limit,
+                         @Param("now") LocalDateTime now);
+
+    // First redemption of the coupon by the customer; 0 rows if a concurrent checkout created the row first.
+    // The query space keeps Hibernate from clearing every second-level cache region after this native statement
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES, value = "coupon_redemptions"))
+    @Query(value = "INSERT IGNORE INTO coupon_redemptions (coupon_id, customer_id, redemption_count, last_redeemed_at) " +
+                   "VALUES (:couponId, :customerId, 1, :now)",
+           nativeQuery = true)
+    int insertFirst(@Param("couponId") Integer couponId,
+                    @Param("customerId") Integer customerId,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CouponRedemption r SET r.redemptionCount = r.redemptionCount - 1 " +
+           "WHERE r.couponId = :couponId AND r.customerId = :customerId AND r.redemptionCount > 0")
+    int decrement(@Param("couponId") Integer couponId, @Param("customerId") Integer customerId);
+}
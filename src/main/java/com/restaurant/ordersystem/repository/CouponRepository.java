@@ -2,19 +2,39 @@ package com.restaurant.ordersystem.repository;
 
 import com.restaurant.ordersystem.model.Coupon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Integer> {
     
-    Optional<Coupon> findByCouponCode(String couponCode);
-    
     Optional<Coupon> findByCouponCodeAndStatusAndStartDateBeforeAndEndDateAfter(
             String couponCode, 
             Coupon.CouponStatus status, 
             LocalDateTime currentDate, 
             LocalDateTime currentDate2);
+
+    // Finds a code among coupons, vouchers and referrals in one round trip, each branch
+    // using the unique index on its code column; coupons first, then vouchers, then referrals.
+    // Each match says whether its status and dates allow redemption at :now, so that only
+    // the usable match is loaded
+    @Query(value = "SELECT 'COUPON' AS codeType, coupon_id AS id, " +
+                   "COALESCE(status = 'Active' AND start_date < :now AND end_date > :now, 0) AS usable, 1 AS priority " +
+                   "FROM coupons WHERE coupon_code = :code " +
+                   "UNION ALL SELECT 'VOUCHER', voucher_id, " +
+                   "COALESCE(status = 'Active' AND expiry_date > :now AND is_used = 0, 0), 2 " +
+                   "FROM vouchers WHERE voucher_code = :code " +
+                   "UNION ALL SELECT 'REFERRAL', referral_id, COALESCE(is_used = 0, 0), 3 " +
+                   "FROM referrals WHERE referral_code = :code " +
+                   "ORDER BY priority",
+           nativeQuery = true)
+    List<DiscountCodeMatch> findDiscountCode(@Param("code") String code, @Param("now") LocalDateTime now);
+
+    @Query("SELECT c.couponCode FROM Coupon c")
+    List<String> findAllCodes();
 }
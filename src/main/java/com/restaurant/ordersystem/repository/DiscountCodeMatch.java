@@ -0,0 +1,21 @@
+package com.restaurant.ordersystem.repository;
+
+/**
+ * A coupon, voucher or referral whose code matched a discount code lookup.
+ */
+public interface DiscountCodeMatch {
+
+    String COUPON = "COUPON";
+    String VOUCHER = "VOUCHER";
+    String REFERRAL = "REFERRAL";
+
+    String getCodeType();
+
+    Integer getId();
+
+    /**
+     * 1 if the status, validity dates and used flag allow redemption, else 0. The referral
+     * check against the customer placing the order is left to the caller.
+     */
+    Integer getUsable();
+}
@@ -0,0 +1,19 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.DiscountRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DiscountRuleRepository extends JpaRepository<DiscountRule, Integer> {
+
+    // Rules that are active now or start later, with their category and free item in the same query
+    @Query("SELECT r FROM DiscountRule r LEFT JOIN FETCH r.category LEFT JOIN FETCH r.freeItem " +
+           "WHERE r.status = :status AND (r.endDate IS NULL OR r.endDate > :now)")
+    List<DiscountRule> findUnexpired(@Param("status") DiscountRule.RuleStatus status, @Param("now") LocalDateTime now);
+}
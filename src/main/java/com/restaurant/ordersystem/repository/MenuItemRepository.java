@@ -2,8 +2,19 @@ package com.restaurant.ordersystem.repository;
 
 import com.restaurant.ordersystem.model.MenuItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface MenuItemRepository extends JpaRepository<MenuItem, Integer> {
+
+    // Whole menu with categories in one query, for building the menu catalog
+    @Query("SELECT mi FROM MenuItem mi " +
+           "LEFT JOIN FETCH mi.category " +
+           "LEFT JOIN FETCH mi.subCategory sc " +
+           "LEFT JOIN FETCH sc.category " +
+           "ORDER BY mi.itemId")
+    List<MenuItem> findAllWithCategories();
 }
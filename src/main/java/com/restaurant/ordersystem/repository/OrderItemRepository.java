@@ -3,12 +3,26 @@ package com.restaurant.ordersystem.repository;
 import com.restaurant.ordersystem.model.Order;
 import com.restaurant.ordersystem.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
-    
+
     List<OrderItem> findByOrder(Order order);
+
+    // Loads the items of many orders at once, together with the menu item,
+    // its category/subcategory and the variant, for bulk DTO assembly
+    @Query("SELECT oi FROM OrderItem oi " +
+           "LEFT JOIN FETCH oi.menuItem mi " +
+           "LEFT JOIN FETCH mi.category " +
+           "LEFT JOIN FETCH mi.subCategory " +
+           "LEFT JOIN FETCH oi.variant " +
+           "WHERE oi.order.orderId IN :orderIds " +
+           "ORDER BY oi.orderItemId")
+    List<OrderItem> findByOrderIdsWithMenuDetails(@Param("orderIds") Collection<String> orderIds);
 }
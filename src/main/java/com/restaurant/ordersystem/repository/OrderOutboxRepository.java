@@ -0,0 +1,37 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.OrderOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    // Locks the oldest due events, and in-flight events whose lease expired; a lock timeout
+    // of -2 renders SKIP LOCKED so that several relay instances can drain the outbox without
+    // blocking on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OrderOutboxEvent e " +
+           "WHERE e.status IN (com.restaurant.ordersystem.model.OrderOutboxEvent.OutboxStatus.PENDING, " +
+           "com.restaurant.ordersystem.model.OrderOutboxEvent.OutboxStatus.IN_FLIGHT) " +
+           "AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<OrderOutboxEvent> claimDueEvents(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEvent e " +
+           "WHERE e.status = com.restaurant.ordersystem.model.OrderOutboxEvent.OutboxStatus.SENT " +
+           "AND e.processedDateTime < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,41 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.OrderPlacementRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderPlacementRequestRepository extends JpaRepository<OrderPlacementRequest, String> {
+
+    // Locks the oldest pending request of a restaurant. The lock waits rather than skipping,
+    // so an instance never jumps ahead of a request another instance is still placing
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM OrderPlacementRequest r WHERE r.restaurantId = :restaurantId " +
+           "AND r.status = com.restaurant.ordersystem.model.OrderPlacementRequest.PlacementStatus.PENDING " +
+           "ORDER BY r.createdDateTime, r.orderId")
+    List<OrderPlacementRequest> lockNextPending(@Param("restaurantId") Integer restaurantId, Pageable pageable);
+
+    @Query("SELECT DISTINCT r.restaurantId FROM OrderPlacementRequest r " +
+           "WHERE r.status = com.restaurant.ordersystem.model.OrderPlacementRequest.PlacementStatus.PENDING " +
+           "AND r.updatedDateTime < :before")
+    List<Integer> findRestaurantsWithPendingBefore(@Param("before") LocalDateTime before);
+
+    Optional<OrderPlacementRequest> findFirstByRestaurantIdAndStatusOrderByCreatedDateTimeAscOrderIdAsc(
+            Integer restaurantId, OrderPlacementRequest.PlacementStatus status);
+
+    @Modifying
+    @Query("DELETE FROM OrderPlacementRequest r " +
+           "WHERE r.status = com.restaurant.ordersystem.model.OrderPlacementRequest.PlacementStatus.FAILED " +
+           "AND r.updatedDateTime < :before")
+    int deleteFailedBefore(@Param("before") LocalDateTime before);
+}
@@ -4,23 +4,51 @@ import com.restaurant.ordersystem.model.Customer;
 import com.restaurant.ordersystem.model.Order;
 import com.restaurant.ordersystem.model.OrderItem;
 import com.restaurant.ordersystem.model.Restaurant;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, String> {
+public interface OrderRepository extends JpaRepository<Order, String>, OrderRepositoryCustom {
 
+    // Order lists fetch customer, restaurant and coupon in the same query so that
+    // building the response DTOs does not trigger one select per distinct association
+    @Override
+    @EntityGraph(attributePaths = {"customer", "restaurant", "coupon"})
+    List<Order> findAll();
+
+    @EntityGraph(attributePaths = {"customer", "restaurant", "coupon"})
     List<Order> findByCustomer(Customer customer);
 
+    @EntityGraph(attributePaths = {"customer", "restaurant", "coupon"})
     List<Order> findByRestaurant(Restaurant restaurant);
 
+    @EntityGraph(attributePaths = {"customer", "restaurant", "coupon"})
     List<Order> findByOrderDateBetween(LocalDateTime start, LocalDateTime end);
 
+    // Streams the orders of a date range for exports. A fetch size of Integer.MIN_VALUE makes
+    // Connector/J stream rows one at a time; the connection cannot run other statements until
+    // the stream is closed.
+    @Query("SELECT o FROM Order o " +
+           "JOIN FETCH o.customer " +
+           "JOIN FETCH o.restaurant " +
+           "LEFT JOIN FETCH o.coupon " +
+           "WHERE o.orderDate BETWEEN :start AND :end " +
+           "ORDER BY o.orderDate, o.orderId")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    Stream<Order> streamByOrderDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order = :order")
     List<OrderItem> findOrderItemsByOrder(@Param("order") Order order);
 
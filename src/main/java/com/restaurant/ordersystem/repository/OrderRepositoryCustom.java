@@ -0,0 +1,20 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.dto.OrderSearchFilter;
+import com.restaurant.ordersystem.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Keyset page of orders ordered by (orderDate, orderId) descending.
+     *
+     * @param filter optional restaurant/customer/status/date filters
+     * @param afterOrderDate order date of the last row of the previous page, or null for the first page
+     * @param afterOrderId order id of the last row of the previous page, or null for the first page
+     * @param maxResults maximum number of rows to return
+     */
+    List<Order> findPage(OrderSearchFilter filter, LocalDateTime afterOrderDate, String afterOrderId, int maxResults);
+}
@@ -0,0 +1,67 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.dto.OrderSearchFilter;
+import com.restaurant.ordersystem.model.Order;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Order> findPage(OrderSearchFilter filter, LocalDateTime afterOrderDate, String afterOrderId, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = cb.createQuery(Order.class);
+        Root<Order> order = query.from(Order.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getRestaurantId() != null) {
+            predicates.add(cb.equal(order.get("restaurant").get("restaurantId"), filter.getRestaurantId()));
+        }
+        if (filter.getCustomerId() != null) {
+            predicates.add(cb.equal(order.get("customer").get("customerId"), filter.getCustomerId()));
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(order.get("status"), filter.getStatus()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.<LocalDateTime>get("orderDate"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(order.<LocalDateTime>get("orderDate"), filter.getTo()));
+        }
+
+        // Seek past the last row of the previous page instead of using OFFSET,
+        // so every page is a bounded index range scan
+        if (afterOrderDate != null && afterOrderId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(order.<LocalDateTime>get("orderDate"), afterOrderDate),
+                    cb.and(
+                            cb.equal(order.get("orderDate"), afterOrderDate),
+                            cb.lessThan(order.<String>get("orderId"), afterOrderId))));
+        }
+
+        query.select(order)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(order.get("orderDate")), cb.desc(order.get("orderId")));
+
+        EntityGraph<Order> graph = entityManager.createEntityGraph(Order.class);
+        graph.addAttributeNodes("customer", "restaurant", "coupon");
+
+        return entityManager.createQuery(query)
+                .setHint("javax.persistence.fetchgraph", graph)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+}
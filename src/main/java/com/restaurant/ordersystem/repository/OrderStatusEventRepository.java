@@ -0,0 +1,16 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.OrderStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+
+    List<OrderStatusEvent> findByOrderIdOrderByTsAscIdAsc(String orderId);
+
+    List<OrderStatusEvent> findByOrderIdInOrderByTsAscIdAsc(Collection<String> orderIds);
+}
@@ -5,6 +5,7 @@ import com.restaurant.ordersystem.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +15,6 @@ public interface PaymentRepository extends JpaRepository<Payment, String> {
     
     // Add this method to find payment by order ID
     Payment findByOrderId(String orderId);
-}
\ No newline at end of file
+
+    List<Payment> findByPaymentIdIn(Collection<String> paymentIds);
+}
@@ -0,0 +1,39 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.PickupSlotCapacity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PickupSlotCapacityRepository extends JpaRepository<PickupSlotCapacity, Long> {
+
+    Optional<PickupSlotCapacity> findByRestaurantIdAndSlotStart(Integer restaurantId, LocalDateTime slotStart);
+
+    List<PickupSlotCapacity> findBySlotStartGreaterThanEqual(LocalDateTime from);
+
+    // Adds this instance's reservations to the slot total in one statement, creating the row if needed.
+    // The query space keeps Hibernate from clearing every second-level cache region after this native statement
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES, value = "pickup_slot_capacity"))
+    @Query(value = "INSERT INTO pickup_slot_capacity (restaurant_id, slot_start, reserved, updated_date_time) " +
+                   "VALUES (:restaurantId, :slotStart, GREATEST(:delta, 0), :now) " +
+                   "ON DUPLICATE KEY UPDATE reserved = GREATEST(reserved + :delta, 0), updated_date_time = :now",
+           nativeQuery = true)
+    int addReserved(@Param("restaurantId") Integer restaurantId,
+                    @Param("slotStart") LocalDateTime slotStart,
+                    @Param("delta") int delta,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM PickupSlotCapacity c WHERE c.slotStart < :before")
+    int deleteBefore(@Param("before") LocalDateTime before);
+}
@@ -3,10 +3,16 @@ package com.restaurant.ordersystem.repository;
 import com.restaurant.ordersystem.model.Customer;
 import com.restaurant.ordersystem.model.Referral;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReferralRepository extends JpaRepository<Referral, Integer> {
@@ -16,4 +22,18 @@ public interface ReferralRepository extends JpaRepository<Referral, Integer> {
     List<Referral> findByReferrer(Customer referrer);
     
     Optional<Referral> findByReferralCodeAndIsUsed(String referralCode, Boolean isUsed);
+
+    @Query("SELECT r.referralCode FROM Referral r")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    Stream<String> streamAllCodes();
+
+    @Query("SELECT r.referralCode FROM Referral r WHERE r.createdDateTime >= :since")
+    List<String> findCodesCreatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT r FROM Referral r JOIN FETCH r.referrer LEFT JOIN FETCH r.referred " +
+           "WHERE r.referrer.customerId = :customerId ORDER BY r.createdDateTime")
+    List<Referral> findByReferrerId(@Param("customerId") Integer customerId);
 }
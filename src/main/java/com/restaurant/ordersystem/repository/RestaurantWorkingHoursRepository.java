@@ -15,6 +15,11 @@ import java.util.List;
 public interface RestaurantWorkingHoursRepository extends JpaRepository<RestaurantWorkingHours, Integer> {
     
     List<RestaurantWorkingHours> findByRestaurantAndDayOfTheWeek(Restaurant restaurant, String dayOfWeek);
+
+    // All rows of a restaurant, compiled into its opening hours schedule
+    @Query("SELECT rwh FROM RestaurantWorkingHours rwh WHERE rwh.restaurant.restaurantId = :restaurantId " +
+           "ORDER BY rwh.startTime")
+    List<RestaurantWorkingHours> findByRestaurantId(@Param("restaurantId") Integer restaurantId);
     
     @Query("SELECT rwh FROM RestaurantWorkingHours rwh WHERE rwh.restaurant.restaurantId = :restaurantId " +
            "AND rwh.dayOfTheWeek = :dayOfWeek " +
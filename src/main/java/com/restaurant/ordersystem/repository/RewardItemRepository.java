@@ -0,0 +1,23 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.RewardItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RewardItemRepository extends JpaRepository<RewardItem, Integer> {
+
+    // Active, unused and unexpired rewards of a customer, with the rewarded item
+    @Query("SELECT r FROM RewardItem r JOIN FETCH r.customer JOIN FETCH r.item " +
+           "WHERE r.customer.customerId = :customerId " +
+           "AND r.status = com.restaurant.ordersystem.model.RewardItem.RewardStatus.Active " +
+           "AND (r.isUsed = false OR r.isUsed IS NULL) " +
+           "AND (r.expiryDate IS NULL OR r.expiryDate > :now) " +
+           "ORDER BY r.expiryDate")
+    List<RewardItem> findAvailable(@Param("customerId") Integer customerId, @Param("now") LocalDateTime now);
+}
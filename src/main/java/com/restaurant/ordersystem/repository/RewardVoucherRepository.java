@@ -0,0 +1,23 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.RewardVoucher;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RewardVoucherRepository extends JpaRepository<RewardVoucher, Integer> {
+
+    // Active, unused and unexpired reward vouchers of a customer
+    @Query("SELECT r FROM RewardVoucher r JOIN FETCH r.customer " +
+           "WHERE r.customer.customerId = :customerId " +
+           "AND r.status = com.restaurant.ordersystem.model.RewardVoucher.RewardStatus.Active " +
+           "AND (r.isUsed = false OR r.isUsed IS NULL) " +
+           "AND (r.expiryDate IS NULL OR r.expiryDate > :now) " +
+           "ORDER BY r.expiryDate")
+    List<RewardVoucher> findAvailable(@Param("customerId") Integer customerId, @Param("now") LocalDateTime now);
+}
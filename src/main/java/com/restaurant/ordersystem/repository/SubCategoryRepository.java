@@ -0,0 +1,15 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.SubCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SubCategoryRepository extends JpaRepository<SubCategory, Integer> {
+
+    @Query("SELECT s FROM SubCategory s LEFT JOIN FETCH s.category ORDER BY s.subCategoryId")
+    List<SubCategory> findAllWithCategory();
+}
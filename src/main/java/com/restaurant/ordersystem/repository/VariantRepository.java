@@ -3,6 +3,7 @@ package com.restaurant.ordersystem.repository;
 import com.restaurant.ordersystem.model.MenuItem;
 import com.restaurant.ordersystem.model.Variant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,7 @@ import java.util.List;
 public interface VariantRepository extends JpaRepository<Variant, Integer> {
     
     List<Variant> findByItem(MenuItem item);
+
+    @Query("SELECT v FROM Variant v JOIN FETCH v.item ORDER BY v.item.itemId, v.listingOrder, v.variantId")
+    List<Variant> findAllWithItem();
 }
@@ -0,0 +1,51 @@
+package com.restaurant.ordersystem.repository;
+
+import com.restaurant.ordersystem.model.VoucherGenerationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VoucherGenerationJobRepository extends JpaRepository<VoucherGenerationJob, Long> {
+
+    // Takes over a job that is waiting, or whose runner stopped sending heartbeats; 0 if
+    // another instance got it first
+    @Modifying
+    @Query("UPDATE VoucherGenerationJob j SET j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.RUNNING, " +
+           "j.updatedDateTime = :now, j.errorMessage = NULL " +
+           "WHERE j.jobId = :jobId AND (j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.PENDING " +
+           "OR (j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.RUNNING AND j.updatedDateTime < :staleBefore))")
+    int claim(@Param("jobId") Long jobId, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Query("SELECT j.jobId FROM VoucherGenerationJob j " +
+           "WHERE j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.PENDING " +
+           "OR (j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.RUNNING AND j.updatedDateTime < :staleBefore) " +
+           "ORDER BY j.jobId")
+    List<Long> findResumable(@Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE VoucherGenerationJob j SET j.generatedCount = j.generatedCount + :count, j.updatedDateTime = :now " +
+           "WHERE j.jobId = :jobId")
+    int addGenerated(@Param("jobId") Long jobId, @Param("count") int count, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE VoucherGenerationJob j SET j.status = :status, j.errorMessage = :errorMessage, " +
+           "j.updatedDateTime = :now, j.completedDateTime = :completedAt WHERE j.jobId = :jobId")
+    int finish(@Param("jobId") Long jobId,
+               @Param("status") VoucherGenerationJob.JobStatus status,
+               @Param("errorMessage") String errorMessage,
+               @Param("now") LocalDateTime now,
+               @Param("completedAt") LocalDateTime completedAt);
+
+    // Puts a failed job back in the queue
+    @Modifying
+    @Query("UPDATE VoucherGenerationJob j SET j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.PENDING, " +
+           "j.updatedDateTime = :now " +
+           "WHERE j.jobId = :jobId AND j.status = com.restaurant.ordersystem.model.VoucherGenerationJob.JobStatus.FAILED")
+    int requeue(@Param("jobId") Long jobId, @Param("now") LocalDateTime now);
+}
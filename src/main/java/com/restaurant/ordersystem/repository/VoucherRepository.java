@@ -3,17 +3,20 @@ package com.restaurant.ordersystem.repository;
 import com.restaurant.ordersystem.model.Customer;
 import com.restaurant.ordersystem.model.Voucher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VoucherRepository extends JpaRepository<Voucher, Integer> {
     
-    Optional<Voucher> findByVoucherCode(String voucherCode);
-    
     List<Voucher> findByCustomer(Customer customer);
     
     Optional<Voucher> findByVoucherCodeAndStatusAndExpiryDateAfterAndIsUsed(
@@ -21,4 +24,22 @@ public interface VoucherRepository extends JpaRepository<Voucher, Integer> {
             Voucher.VoucherStatus status, 
             LocalDateTime currentDate, 
             Boolean isUsed);
+
+    @Query("SELECT v.voucherCode FROM Voucher v")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    Stream<String> streamAllCodes();
+
+    @Query("SELECT v.voucherCode FROM Voucher v WHERE v.createdDateTime >= :since")
+    List<String> findCodesCreatedSince(@Param("since") LocalDateTime since);
+
+    // Redeemable vouchers issued to a customer, with their free item
+    @Query("SELECT v FROM Voucher v JOIN FETCH v.customer LEFT JOIN FETCH v.freeItem " +
+           "WHERE v.customer.customerId = :customerId " +
+           "AND v.status = com.restaurant.ordersystem.model.Voucher.VoucherStatus.Active " +
+           "AND v.isUsed = false AND v.expiryDate > :now " +
+           "ORDER BY v.expiryDate")
+    List<Voucher> findRedeemableByCustomerId(@Param("customerId") Integer customerId, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,347 @@
+package com.restaurant.ordersystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.ordersystem.dto.OrderRequestDTO;
+import com.restaurant.ordersystem.dto.OrderResponseDTO;
+import com.restaurant.ordersystem.dto.OrderTicketDTO;
+import com.restaurant.ordersystem.exception.InvalidCouponException;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.model.IdempotencyRecord;
+import com.restaurant.ordersystem.model.OrderPlacementRequest;
+import com.restaurant.ordersystem.repository.OrderPlacementRequestRepository;
+import com.restaurant.ordersystem.util.OrderIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts orders without placing them on the request thread.
+ *
+ * A submitted order is validated, stored in order_placement_requests under a preassigned
+ * order id, and its restaurant is handed to a worker lane. Each restaurant maps to one
+ * single-threaded lane, which places that restaurant's pending requests oldest first, so
+ * orders for a restaurant are placed in the order they were accepted while different
+ * restaurants proceed in parallel. A request whose attempt failed holds back the newer
+ * requests of its restaurant until it is retried or gives up.
+ *
+ * A request sent with an Idempotency-Key claims the key when it is accepted, and the
+ * order's response is stored under it when it is placed; a retry with the same key gets
+ * the ticket of the first request back instead of queueing a second order.
+ *
+ * The table is the queue: a lane that is full, a retry that is due, or a restart only
+ * delays the sweeper's next call to drain the restaurant, and never changes the order.
+ */
+@Service
+public class AsyncOrderPlacementService {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOrderPlacementService.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final String PLACED_STATUS = "PLACED";
+
+    private final OrderPlacementRequestRepository placementRequestRepository;
+    private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    // Restaurants queued on or being drained by a lane, so each is drained by one task at a time
+    private final Set<Integer> draining = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor[] lanes;
+
+    @Value("${orders.async.lanes:8}")
+    private int laneCount = 8;
+
+    @Value("${orders.async.queue-capacity:500}")
+    private int queueCapacity = 500;
+
+    @Value("${orders.async.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${orders.async.retry-delay-seconds:10}")
+    private long retryDelaySeconds = 10;
+
+    @Value("${orders.async.failed-retention-days:7}")
+    private int failedRetentionDays = 7;
+
+    public AsyncOrderPlacementService(OrderPlacementRequestRepository placementRequestRepository,
+                                      OrderService orderService,
+                                      IdempotencyService idempotencyService,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager) {
+        this.placementRequestRepository = placementRequestRepository;
+        this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void startLanes() {
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "order-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, threadName));
+        }
+    }
+
+    @PreDestroy
+    public void stopLanes() throws InterruptedException {
+        // Unplaced requests are still PENDING in the table and will be swept up after restart
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Validate and durably accept an order for asynchronous placement.
+     *
+     * @param orderRequest Order request
+     * @param idempotencyKey Client supplied Idempotency-Key, or null
+     * @return Ticket with the order id to poll; for a repeated key, the ticket of the first request
+     */
+    public OrderTicketDTO submit(OrderRequestDTO orderRequest, String idempotencyKey) {
+        orderService.validateOrderRequest(orderRequest);
+
+        LocalDateTime now = LocalDateTime.now();
+        OrderPlacementRequest request = new OrderPlacementRequest();
+        request.setOrderId(OrderIdGenerator.newId());
+        request.setIdempotencyKey(idempotencyKey);
+        request.setCustomerId(orderRequest.getCustomerId());
+        request.setRestaurantId(orderRequest.getRestaurantId());
+        request.setRequestBody(writeRequest(orderRequest));
+        request.setStatus(OrderPlacementRequest.PlacementStatus.PENDING);
+        request.setAttempts(0);
+        request.setCreatedDateTime(now);
+        request.setUpdatedDateTime(now);
+
+        if (idempotencyKey == null) {
+            placementRequestRepository.save(request);
+        } else {
+            try {
+                Optional<IdempotencyRecord> earlier = transactionTemplate.execute(status -> {
+                    Optional<IdempotencyRecord> claim =
+                            idempotencyService.claimForAsync(idempotencyKey, orderRequest, request.getOrderId());
+                    if (!claim.isPresent()) {
+                        placementRequestRepository.save(request);
+                    }
+                    return claim;
+                });
+                if (earlier.isPresent()) {
+                    logger.info("Returning order {} again for Idempotency-Key {}", earlier.get().getOrderId(), idempotencyKey);
+                    return ticketFor(earlier.get());
+                }
+            } catch (DataIntegrityViolationException e) {
+                // Another request with this key was accepted first
+                IdempotencyRecord winner = idempotencyService.findClaim(idempotencyKey, orderRequest)
+                        .orElseThrow(() -> e);
+                return ticketFor(winner);
+            }
+        }
+
+        dispatch(request.getRestaurantId());
+        logger.info("Accepted order {} for asynchronous placement", request.getOrderId());
+        return toTicket(request);
+    }
+
+    /**
+     * Ticket of an order that has been accepted but not placed, if any.
+     *
+     * @param orderId Order ID
+     * @return The ticket, or empty once the order has been placed or if it is unknown
+     */
+    public Optional<OrderTicketDTO> findTicket(String orderId) {
+        if (!OrderIdGenerator.isValid(orderId)) {
+            return Optional.empty();
+        }
+        return placementRequestRepository.findById(orderId).map(this::toTicket);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.async.sweep-interval-ms:5000}")
+    public void sweepPendingRequests() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(retryDelaySeconds);
+        for (Integer restaurantId : placementRequestRepository.findRestaurantsWithPendingBefore(before)) {
+            dispatch(restaurantId);
+        }
+    }
+
+    @Scheduled(cron = "${orders.async.cleanup-cron:0 30 * * * *}")
+    public void purgeFailedRequests() {
+        Integer deleted = transactionTemplate.execute(status ->
+                placementRequestRepository.deleteFailedBefore(LocalDateTime.now().minusDays(failedRetentionDays)));
+        if (deleted != null && deleted > 0) {
+            logger.info("Purged {} failed order placement requests", deleted);
+        }
+    }
+
+    private void dispatch(Integer restaurantId) {
+        if (!draining.add(restaurantId)) {
+            return;
+        }
+        ThreadPoolExecutor lane = lanes[Math.floorMod(restaurantId, lanes.length)];
+        try {
+            lane.execute(() -> drain(restaurantId));
+        } catch (RejectedExecutionException e) {
+            draining.remove(restaurantId);
+            logger.warn("Order lane full, restaurant {} left for the sweeper", restaurantId);
+        }
+    }
+
+    private void drain(Integer restaurantId) {
+        try {
+            while (placeNext(restaurantId)) {
+                // Keep going until the restaurant has nothing left that may be placed now
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to drain order requests of restaurant {}", restaurantId, e);
+        } finally {
+            draining.remove(restaurantId);
+        }
+        // A request submitted after the last lookup but before the restaurant was released
+        // found it still draining and did not dispatch it
+        if (hasDueRequest(restaurantId)) {
+            dispatch(restaurantId);
+        }
+    }
+
+    /**
+     * Place the oldest pending request of a restaurant.
+     *
+     * @return true if the next request may be placed right away, false if there is none or
+     *         the oldest one is waiting for a retry
+     */
+    private boolean placeNext(Integer restaurantId) {
+        String[] claimed = new String[1];
+        try {
+            // Lock, place and delete in one transaction: either the order and its removal from
+            // the queue commit together, or the request stays PENDING for another attempt
+            Boolean placed = transactionTemplate.execute(status -> {
+                List<OrderPlacementRequest> next = placementRequestRepository.lockNextPending(restaurantId, PageRequest.of(0, 1));
+                if (next.isEmpty() || isWaitingForRetry(next.get(0))) {
+                    return false;
+                }
+                OrderPlacementRequest request = next.get(0);
+                claimed[0] = request.getOrderId();
+                OrderResponseDTO response = orderService.placeOrder(readRequest(request.getRequestBody()), request.getOrderId());
+                if (request.getIdempotencyKey() != null) {
+                    idempotencyService.recordResponse(request.getIdempotencyKey(), response);
+                }
+                placementRequestRepository.delete(request);
+                return true;
+            });
+            if (Boolean.TRUE.equals(placed)) {
+                logger.info("Placed asynchronously accepted order {}", claimed[0]);
+                return true;
+            }
+            return false;
+        } catch (InvalidOrderException | InvalidCouponException | ResourceNotFoundException e) {
+            if (claimed[0] == null) {
+                throw e;
+            }
+            // Rejected by the order rules, retrying would give the same answer
+            logger.info("Order {} was rejected: {}", claimed[0], e.getMessage());
+            recordFailure(claimed[0], e.getMessage(), true);
+            return true;
+        } catch (RuntimeException e) {
+            if (claimed[0] == null) {
+                throw e;
+            }
+            logger.error("Failed to place order {}", claimed[0], e);
+            // Newer requests wait behind this one unless it has used up its attempts
+            return recordFailure(claimed[0], e.getMessage(), false);
+        }
+    }
+
+    private boolean isWaitingForRetry(OrderPlacementRequest request) {
+        return request.getAttempts() > 0
+                && request.getUpdatedDateTime().isAfter(LocalDateTime.now().minusSeconds(retryDelaySeconds));
+    }
+
+    private boolean hasDueRequest(Integer restaurantId) {
+        return placementRequestRepository
+                .findFirstByRestaurantIdAndStatusOrderByCreatedDateTimeAscOrderIdAsc(
+                        restaurantId, OrderPlacementRequest.PlacementStatus.PENDING)
+                .filter(request -> !isWaitingForRetry(request))
+                .isPresent();
+    }
+
+    /**
+     * Count a failed attempt.
+     *
+     * @return true if the request is now FAILED, false if it stays PENDING for a retry
+     */
+    private boolean recordFailure(String orderId, String error, boolean permanent) {
+        Boolean failed = transactionTemplate.execute(status ->
+                placementRequestRepository.findById(orderId).map(request -> {
+                    request.setAttempts(request.getAttempts() + 1);
+                    request.setErrorMessage(truncate(error));
+                    request.setUpdatedDateTime(LocalDateTime.now());
+                    if (permanent || request.getAttempts() >= maxAttempts) {
+                        request.setStatus(OrderPlacementRequest.PlacementStatus.FAILED);
+                        return true;
+                    }
+                    return false;
+                }).orElse(true));
+        return Boolean.TRUE.equals(failed);
+    }
+
+    private OrderTicketDTO ticketFor(IdempotencyRecord claim) {
+        // Still queued or rejected; otherwise it has been placed since
+        return findTicket(claim.getOrderId()).orElseGet(() -> new OrderTicketDTO(claim.getOrderId(), PLACED_STATUS,
+                null, claim.getCreatedDateTime(), "/api/orders/" + claim.getOrderId()));
+    }
+
+    private OrderTicketDTO toTicket(OrderPlacementRequest request) {
+        String errorMessage = request.getStatus() == OrderPlacementRequest.PlacementStatus.FAILED
+                ? request.getErrorMessage() : null;
+        return new OrderTicketDTO(request.getOrderId(), request.getStatus().name(), errorMessage,
+                request.getCreatedDateTime(), "/api/orders/" + request.getOrderId());
+    }
+
+    private String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private String writeRequest(OrderRequestDTO orderRequest) {
+        try {
+            return objectMapper.writeValueAsString(orderRequest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize order request", e);
+        }
+    }
+
+    private OrderRequestDTO readRequest(String body) {
+        try {
+            return objectMapper.readValue(body, OrderRequestDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read stored order request", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.restaurant.ordersystem.service;
+
+/**
+ * Cart contents as parallel arrays of ids and minor-unit amounts, the input of a
+ * {@link DiscountRulePipeline}. Built once per checkout by {@link CartPricingService} so rule
+ * evaluation never touches entities or BigDecimal.
+ */
+public final class CartLines {
+
+    // Category of lines whose menu item has none
+    public static final int NO_CATEGORY = -1;
+
+    private final int[] itemIds;
+    private final int[] categoryIds;
+    private final long[] unitPrices;
+    private final int[] quantities;
+    private final long total;
+
+    public CartLines(int[] itemIds, int[] categoryIds, long[] unitPrices, int[] quantities) {
+        this(itemIds, categoryIds, unitPrices, quantities, sum(unitPrices, quantities));
+    }
+
+    // For callers that summed the lines while building them
+    CartLines(int[] itemIds, int[] categoryIds, long[] unitPrices, int[] quantities, long total) {
+        if (categoryIds.length != itemIds.length || unitPrices.length != itemIds.length
+                || quantities.length != itemIds.length) {
+            throw new IllegalArgumentException("Cart line arrays must have the same length");
+        }
+        this.itemIds = itemIds;
+        this.categoryIds = categoryIds;
+        this.unitPrices = unitPrices;
+        this.quantities = quantities;
+        this.total = total;
+    }
+
+    public int size() {
+        return itemIds.length;
+    }
+
+    public int getItemId(int line) {
+        return itemIds[line];
+    }
+
+    public int getCategoryId(int line) {
+        return categoryIds[line];
+    }
+
+    public long getUnitPrice(int line) {
+        return unitPrices[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    public long getLineTotal(int line) {
+        return unitPrices[line] * quantities[line];
+    }
+
+    /**
+     * Sum of all lines in minor units.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Lowest unit price of the item in the cart in minor units, or 0 if it is not in the cart.
+     */
+    public long getCheapestUnitPrice(int itemId) {
+        long cheapest = 0;
+        for (int i = 0; i < itemIds.length; i++) {
+            if (itemIds[i] == itemId && quantities[i] > 0 && (cheapest == 0 || unitPrices[i] < cheapest)) {
+                cheapest = unitPrices[i];
+            }
+        }
+        return cheapest;
+    }
+
+    private static long sum(long[] unitPrices, int[] quantities) {
+        long sum = 0;
+        for (int i = 0; i < unitPrices.length && i < quantities.length; i++) {
+            sum += unitPrices[i] * quantities[i];
+        }
+        return sum;
+    }
+}
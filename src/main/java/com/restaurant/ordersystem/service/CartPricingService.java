@@ -0,0 +1,182 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.dto.CartItemDTO;
+import com.restaurant.ordersystem.dto.CartQuoteDTO;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.model.Cart;
+import com.restaurant.ordersystem.model.CartItem;
+import com.restaurant.ordersystem.model.Customer;
+import com.restaurant.ordersystem.repository.CartRepository;
+import com.restaurant.ordersystem.util.MinorUnits;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prices carts on the server from the menu catalog's price table, in minor units. Prices sent
+ * by clients and prices stored on cart lines are never trusted: a line costs its menu item's
+ * price plus its variant's surcharge, times its quantity.
+ */
+@Service
+public class CartPricingService {
+
+    private final MenuCatalogService menuCatalogService;
+    private final DiscountService discountService;
+    private final DiscountRuleService discountRuleService;
+    private final CartRepository cartRepository;
+
+    public CartPricingService(MenuCatalogService menuCatalogService,
+                              DiscountService discountService,
+                              DiscountRuleService discountRuleService,
+                              CartRepository cartRepository) {
+        this.menuCatalogService = menuCatalogService;
+        this.discountService = discountService;
+        this.discountRuleService = discountRuleService;
+        this.cartRepository = cartRepository;
+    }
+
+    /**
+     * Price cart lines from the current menu without changing them.
+     *
+     * @param cartItems Lines with their menu item, optional variant and quantity
+     * @return Unit prices, line totals and cart total in minor units, in the order of the lines
+     * @throws InvalidOrderException if a line's item or variant is no longer on the menu,
+     *         or its quantity is not positive
+     */
+    public CartLines price(List<CartItem> cartItems) {
+        MenuCatalog catalog = menuCatalogService.getCatalog();
+        int size = cartItems.size();
+        int[] itemIds = new int[size];
+        int[] categoryIds = new int[size];
+        long[] unitPrices = new long[size];
+        int[] quantities = new int[size];
+        long total = 0;
+
+        for (int i = 0; i < size; i++) {
+            CartItem cartItem = cartItems.get(i);
+            int itemId = cartItem.getMenuItem().getItemId();
+            int itemIndex = catalog.indexOfItem(itemId);
+            if (itemIndex < 0) {
+                throw new InvalidOrderException("Menu item " + itemId + " is no longer available");
+            }
+            long unitPrice = catalog.getItemPriceMinor(itemIndex);
+
+            if (cartItem.getVariant() != null) {
+                int variantId = cartItem.getVariant().getVariantId();
+                int variantIndex = catalog.indexOfVariant(variantId);
+                if (variantIndex < 0 || catalog.getVariantItemId(variantIndex) != itemId) {
+                    throw new InvalidOrderException("Variant " + variantId + " is not available for menu item " + itemId);
+                }
+                unitPrice += catalog.getVariantPriceMinor(variantIndex);
+            }
+
+            Integer quantity = cartItem.getQuantity();
+            if (quantity == null || quantity <= 0) {
+                throw new InvalidOrderException("Quantity of menu item " + itemId + " must be at least 1");
+            }
+
+            itemIds[i] = itemId;
+            categoryIds[i] = catalog.getItemCategoryId(itemIndex);
+            unitPrices[i] = unitPrice;
+            quantities[i] = quantity;
+            try {
+                total = Math.addExact(total, Math.multiplyExact(unitPrice, quantity));
+            } catch (ArithmeticException e) {
+                throw new InvalidOrderException("Cart total is too large");
+            }
+        }
+        return new CartLines(itemIds, categoryIds, unitPrices, quantities, total);
+    }
+
+    /**
+     * Price cart lines from the current menu and store the prices on them.
+     *
+     * @return The priced lines, as {@link #price(List)}
+     */
+    public CartLines reprice(List<CartItem> cartItems) {
+        CartLines lines = price(cartItems);
+        for (int i = 0; i < lines.size(); i++) {
+            CartItem cartItem = cartItems.get(i);
+            cartItem.setPrice(MinorUnits.toAmount(lines.getUnitPrice(i)));
+            cartItem.setSubtotal(MinorUnits.toAmount(lines.getLineTotal(i)));
+        }
+        return lines;
+    }
+
+    /**
+     * Quote a customer's active cart as checkout would price it. The discount code is
+     * checked but not redeemed, and a coupon's per-customer limit is only enforced at checkout.
+     *
+     * @param customerId Customer ID
+     * @param discountCode Coupon, voucher or referral code to preview, may be null
+     * @return The quote
+     */
+    @Transactional(readOnly = true)
+    public CartQuoteDTO quote(Integer customerId, String discountCode) {
+        Cart cart = cartRepository.findCheckoutCart(customerId, "ACTIVE")
+                .orElseThrow(() -> new ResourceNotFoundException("Active cart not found for customer with id: " + customerId));
+        List<CartItem> cartItems = cart.getCartItems();
+        CartLines lines = price(cartItems);
+        BigDecimal totalAmount = MinorUnits.toAmount(lines.getTotal());
+
+        BigDecimal codeDiscount = BigDecimal.ZERO;
+        String rejectionReason = null;
+        if (discountCode != null && !discountCode.isEmpty()) {
+            Customer customer = cart.getCustomer();
+            DiscountCodeResolution resolution = discountService.resolveCode(discountCode, customer);
+            if (!resolution.isValid()) {
+                rejectionReason = resolution.getRejectionReason();
+            } else {
+                switch (resolution.getType()) {
+                    case COUPON:
+                        codeDiscount = discountService.applyCouponDiscount(resolution.getCoupon(), totalAmount);
+                        break;
+                    case VOUCHER:
+                        codeDiscount = discountService.calculateVoucherDiscount(resolution.getVoucher(), totalAmount, lines);
+                        break;
+                    case REFERRAL:
+                        codeDiscount = discountService.calculateReferralDiscount(resolution.getReferral(), totalAmount);
+                        break;
+                }
+            }
+        }
+
+        // Campaign rules stack on top of the code discount, as at checkout
+        long remaining = lines.getTotal() - MinorUnits.toMinor(codeDiscount);
+        DiscountRulePipeline.Result campaign = discountRuleService.getPipeline()
+                .evaluate(lines, remaining, LocalDateTime.now());
+        long discount = MinorUnits.toMinor(codeDiscount) + campaign.getDiscount();
+
+        List<Integer> appliedRuleIds = new ArrayList<>();
+        for (int ruleId : campaign.getAppliedRuleIds()) {
+            appliedRuleIds.add(ruleId);
+        }
+
+        List<CartItemDTO> itemDTOs = new ArrayList<>(cartItems.size());
+        for (int i = 0; i < cartItems.size(); i++) {
+            CartItem cartItem = cartItems.get(i);
+            CartItemDTO dto = new CartItemDTO();
+            dto.setCartItemId(cartItem.getCartItemId());
+            dto.setMenuItemId(cartItem.getMenuItem().getItemId());
+            dto.setMenuItemName(cartItem.getMenuItem().getName());
+            if (cartItem.getVariant() != null) {
+                dto.setVariantId(cartItem.getVariant().getVariantId());
+                dto.setVariantName(cartItem.getVariant().getVariantName());
+            }
+            dto.setQuantity(cartItem.getQuantity());
+            dto.setPrice(MinorUnits.toAmount(lines.getUnitPrice(i)));
+            dto.setSubtotal(MinorUnits.toAmount(lines.getLineTotal(i)));
+            dto.setSpecialInstructions(cartItem.getSpecialInstructions());
+            itemDTOs.add(dto);
+        }
+
+        return new CartQuoteDTO(customerId, cart.getCartId(), itemDTOs, totalAmount, discountCode, codeDiscount,
+                rejectionReason, MinorUnits.toAmount(campaign.getDiscount()), appliedRuleIds,
+                MinorUnits.toAmount(discount), MinorUnits.toAmount(lines.getTotal() - discount), LocalDateTime.now());
+    }
+}
@@ -8,8 +8,7 @@ import com.restaurant.ordersystem.model.Cart;
 import com.restaurant.ordersystem.model.CartItem;
 import com.restaurant.ordersystem.model.Customer;
 import com.restaurant.ordersystem.repository.CartRepository;
-import com.restaurant.ordersystem.repository.MenuItemRepository;
-import com.restaurant.ordersystem.repository.VariantRepository;
+import com.restaurant.ordersystem.util.MinorUnits;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -25,16 +24,17 @@ public class CartService {
     
     private final CartRepository cartRepository;
     private final CustomerService customerService;
-    private final MenuItemRepository menuItemRepository;
-    private final VariantRepository variantRepository;
+    private final MenuCatalogService menuCatalogService;
+    private final CartPricingService cartPricingService;
 
     
     @Autowired
-    public CartService(CartRepository cartRepository, CustomerService customerService, MenuItemRepository menuItemRepository, VariantRepository variantRepository) {
+    public CartService(CartRepository cartRepository, CustomerService customerService,
+                       MenuCatalogService menuCatalogService, CartPricingService cartPricingService) {
         this.cartRepository = cartRepository;
         this.customerService = customerService;
-        this.menuItemRepository = menuItemRepository;
-        this.variantRepository = variantRepository;
+        this.menuCatalogService = menuCatalogService;
+        this.cartPricingService = cartPricingService;
     }
     
     public Cart getActiveCartByCustomerId(Integer customerId) {
@@ -67,28 +67,27 @@ public class CartService {
 
     cart.getCartItems().clear();
 
-    BigDecimal totalAmount = BigDecimal.ZERO;
+    // Items come from the menu catalog; prices sent by the client are ignored
+    MenuCatalog catalog = menuCatalogService.getCatalog();
     for (CartItemDTO itemDTO : cartItemDTOs) {
         CartItem cartItem = new CartItem();
         cartItem.setCart(cart);
-        menuItemRepository.findById(itemDTO.getMenuItemId()).ifPresent(cartItem::setMenuItem);
+        cartItem.setMenuItem(catalog.findMenuItem(itemDTO.getMenuItemId())
+                .orElseThrow(() -> new ResourceNotFoundException("MenuItem", "id", itemDTO.getMenuItemId())));
         if (itemDTO.getVariantId() != null) {
-            variantRepository.findById(itemDTO.getVariantId()).ifPresent(cartItem::setVariant);
+            cartItem.setVariant(catalog.findVariant(itemDTO.getVariantId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Variant", "id", itemDTO.getVariantId())));
         } else {
             cartItem.setVariant(null);
         }
         cartItem.setQuantity(itemDTO.getQuantity());
-        cartItem.setPrice(itemDTO.getPrice());
-        cartItem.setSubtotal(itemDTO.getSubtotal());
         cartItem.setSpecialInstructions(itemDTO.getSpecialInstructions());
 
         cart.getCartItems().add(cartItem);
-        if (itemDTO.getSubtotal() != null) {
-            totalAmount = totalAmount.add(itemDTO.getSubtotal());
-        }
     }
 
-    cart.setTotalAmount(totalAmount);
+    CartLines lines = cartPricingService.reprice(cart.getCartItems());
+    cart.setTotalAmount(MinorUnits.toAmount(lines.getTotal()));
     cart.setLastModifiedDateTime(LocalDateTime.now());
 
     cartRepository.save(cart);
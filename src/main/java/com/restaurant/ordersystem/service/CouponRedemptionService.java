@@ -0,0 +1,107 @@
+package com.restaurant.ordersystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.restaurant.ordersystem.model.Coupon;
+import com.restaurant.ordersystem.model.Customer;
+import com.restaurant.ordersystem.repository.CouponRedemptionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Enforces {@link Coupon#getLimitPerUser()} with a (coupon, customer) counter row in
+ * coupon_redemptions. Each redemption is one conditional increment, so checkouts only
+ * contend when the same customer redeems the same coupon concurrently.
+ *
+ * Customers known to have reached a coupon's limit are kept in a bounded Caffeine cache
+ * and turned away without a query; lookups do not lock, so checkouts for one popular coupon
+ * do not wait on each other. Entries expire after a short TTL because a cancellation on
+ * another instance can bring a customer back under the limit.
+ */
+@Service
+public class CouponRedemptionService {
+
+    private final CouponRedemptionRepository couponRedemptionRepository;
+    // (coupon, customer) -> the limit the customer reached
+    private final Cache<Long, Integer> atLimit;
+
+    public CouponRedemptionService(CouponRedemptionRepository couponRedemptionRepository,
+                                   @Value("${coupon.redemptions.cache-ttl-seconds:60}") long cacheTtlSeconds,
+                                   @Value("${coupon.redemptions.cache-max-entries:100000}") int cacheMaxEntries) {
+        this.couponRedemptionRepository = couponRedemptionRepository;
+        this.atLimit = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Count a redemption of the coupon by the customer if it is below the coupon's per-user
+     * limit. Coupons without a limit are not counted. Inside a transaction the count is part
+     * of it and is undone on rollback.
+     *
+     * @return true if the customer may use the coupon for this order
+     */
+    public boolean tryRedeem(Coupon coupon, Customer customer) {
+        Integer limit = coupon.getLimitPerUser();
+        if (limit == null || limit <= 0) {
+            return true;
+        }
+        Integer couponId = coupon.getCouponId();
+        Integer customerId = customer.getCustomerId();
+        long key = key(couponId, customerId);
+
+        Integer reachedLimit = atLimit.getIfPresent(key);
+        if (reachedLimit != null) {
+            if (reachedLimit >= limit) {
+                return false;
+            }
+            // The coupon's limit was raised since
+            atLimit.invalidate(key);
+        }
+
+        LocalDateTime redeemedAt = LocalDateTime.now();
+        boolean redeemed = couponRedemptionRepository.incrementIfBelow(couponId, customerId, limit, redeemedAt) == 1
+                || couponRedemptionRepository.insertFirst(couponId, customerId, redeemedAt) == 1
+                // The row was created by a concurrent checkout between the two statements
+                || couponRedemptionRepository.incrementIfBelow(couponId, customerId, limit, redeemedAt) == 1;
+
+        if (!redeemed) {
+            atLimit.put(key, limit);
+        }
+        return redeemed;
+    }
+
+    /**
+     * Give back a redemption, e.g. for a cancelled order.
+     */
+    public void release(Coupon coupon, Customer customer) {
+        if (coupon.getLimitPerUser() == null || coupon.getLimitPerUser() <= 0) {
+            return;
+        }
+        Integer couponId = coupon.getCouponId();
+        Integer customerId = customer.getCustomerId();
+        couponRedemptionRepository.decrement(couponId, customerId);
+
+        long key = key(couponId, customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    atLimit.invalidate(key);
+                }
+            });
+        } else {
+            atLimit.invalidate(key);
+        }
+    }
+
+    private static long key(Integer couponId, Integer customerId) {
+        return ((long) couponId << 32) | (customerId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,200 @@
+package com.restaurant.ordersystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.restaurant.ordersystem.dto.CustomerWalletDTO;
+import com.restaurant.ordersystem.dto.WalletEntryDTO;
+import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.model.Referral;
+import com.restaurant.ordersystem.model.RewardItem;
+import com.restaurant.ordersystem.model.RewardVoucher;
+import com.restaurant.ordersystem.model.Voucher;
+import com.restaurant.ordersystem.repository.CustomerRepository;
+import com.restaurant.ordersystem.repository.ReferralRepository;
+import com.restaurant.ordersystem.repository.RewardItemRepository;
+import com.restaurant.ordersystem.repository.RewardVoucherRepository;
+import com.restaurant.ordersystem.repository.VoucherRepository;
+import com.restaurant.ordersystem.util.CustomerWalletChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Builds a customer's wallet (rewards, reward vouchers, vouchers and referral codes) with one
+ * query per entity type and keeps it in memory.
+ *
+ * A cached wallet is dropped after a commit that changes one of its rows
+ * ({@link CustomerWalletChangedEvent}, from entity listeners and from redemptions), when
+ * its first entry expires, and after a TTL so that changes made by other instances are
+ * picked up. Wallets live in a Caffeine cache bounded to the least recently used
+ * {@code cache-max-entries}, with each wallet's own expiry.
+ *
+ * A wallet loaded while a change committed for any customer in the same stripe of ids is
+ * served but not cached, so a load that read the old rows cannot outlive the invalidation.
+ */
+@Service
+public class CustomerWalletService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerWalletService.class);
+
+    private static final int STRIPES = 64;
+
+    private final CustomerRepository customerRepository;
+    private final RewardItemRepository rewardItemRepository;
+    private final RewardVoucherRepository rewardVoucherRepository;
+    private final VoucherRepository voucherRepository;
+    private final ReferralRepository referralRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Cache<Integer, CachedWallet> wallets;
+    // Invalidations per stripe of customer ids
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final long cacheTtlSeconds;
+
+    public CustomerWalletService(CustomerRepository customerRepository,
+                                 RewardItemRepository rewardItemRepository,
+                                 RewardVoucherRepository rewardVoucherRepository,
+                                 VoucherRepository voucherRepository,
+                                 ReferralRepository referralRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${customer.wallet.cache-ttl-seconds:300}") long cacheTtlSeconds,
+                                 @Value("${customer.wallet.cache-max-entries:100000}") int cacheMaxEntries) {
+        this.customerRepository = customerRepository;
+        this.rewardItemRepository = rewardItemRepository;
+        this.rewardVoucherRepository = rewardVoucherRepository;
+        this.voucherRepository = voucherRepository;
+        this.referralRepository = referralRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cacheTtlSeconds = cacheTtlSeconds;
+        this.wallets = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new Expiry<Integer, CachedWallet>() {
+                    @Override
+                    public long expireAfterCreate(Integer customerId, CachedWallet cached, long currentTime) {
+                        return Math.max(0, Duration.between(LocalDateTime.now(), cached.validUntil).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer customerId, CachedWallet cached, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(customerId, cached, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer customerId, CachedWallet cached, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Get a customer's wallet, from memory unless it changed or expired.
+     *
+     * @param customerId Customer ID
+     * @return The wallet
+     */
+    public CustomerWalletDTO getWallet(Integer customerId) {
+        CachedWallet cached = wallets.getIfPresent(customerId);
+        if (cached != null) {
+            return cached.wallet;
+        }
+
+        int stripe = Math.floorMod(customerId, STRIPES);
+        long generation = generations.get(stripe);
+        CachedWallet loaded = load(customerId);
+        if (generations.get(stripe) == generation) {
+            wallets.put(customerId, loaded);
+        }
+        return loaded.wallet;
+    }
+
+    /**
+     * Drop the cached wallet of a customer whose rewards, vouchers or referrals changed.
+     * Runs after the change commits, so the next lookup cannot reload the old rows.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWalletChanged(CustomerWalletChangedEvent event) {
+        generations.incrementAndGet(Math.floorMod(event.getCustomerId(), STRIPES));
+        wallets.invalidate(event.getCustomerId());
+    }
+
+    private CachedWallet load(Integer customerId) {
+        LocalDateTime now = LocalDateTime.now();
+        CachedWallet loaded = readOnlyTransaction.execute(status -> {
+            if (!customerRepository.existsById(customerId)) {
+                throw new ResourceNotFoundException("Customer", "id", customerId);
+            }
+            LocalDateTime validUntil = now.plusSeconds(cacheTtlSeconds);
+
+            List<WalletEntryDTO> rewardItems = new ArrayList<>();
+            for (RewardItem reward : rewardItemRepository.findAvailable(customerId, now)) {
+                rewardItems.add(new WalletEntryDTO(reward.getRewardItemId(), null, null, null, null,
+                        reward.getItem().getItemId(), reward.getItem().getName(), reward.getExpiryDate()));
+                validUntil = earliest(validUntil, reward.getExpiryDate());
+            }
+
+            List<WalletEntryDTO> rewardVouchers = new ArrayList<>();
+            for (RewardVoucher reward : rewardVoucherRepository.findAvailable(customerId, now)) {
+                rewardVouchers.add(new WalletEntryDTO(reward.getRewardVoucherId(), null, null,
+                        reward.getDiscountPercentage(), reward.getDiscountAmount(), null, null, reward.getExpiryDate()));
+                validUntil = earliest(validUntil, reward.getExpiryDate());
+            }
+
+            List<WalletEntryDTO> vouchers = new ArrayList<>();
+            for (Voucher voucher : voucherRepository.findRedeemableByCustomerId(customerId, now)) {
+                vouchers.add(new WalletEntryDTO(voucher.getVoucherId(), voucher.getVoucherCode(), voucher.getDescription(),
+                        voucher.getDiscountPercentage(), voucher.getDiscountAmount(),
+                        voucher.getFreeItem() != null ? voucher.getFreeItem().getItemId() : null,
+                        voucher.getFreeItem() != null ? voucher.getFreeItem().getName() : null,
+                        voucher.getExpiryDate()));
+                validUntil = earliest(validUntil, voucher.getExpiryDate());
+            }
+
+            List<WalletEntryDTO> referralCodes = new ArrayList<>();
+            int redeemedReferrals = 0;
+            for (Referral referral : referralRepository.findByReferrerId(customerId)) {
+                if (Boolean.TRUE.equals(referral.getIsUsed())) {
+                    redeemedReferrals++;
+                } else if (referral.getStatus() == Referral.ReferralStatus.Active) {
+                    referralCodes.add(new WalletEntryDTO(referral.getReferralId(), referral.getReferralCode(),
+                            null, null, null, null, null, null));
+                }
+            }
+
+            CustomerWalletDTO wallet = new CustomerWalletDTO(customerId, List.copyOf(rewardItems),
+                    List.copyOf(rewardVouchers), List.copyOf(vouchers), List.copyOf(referralCodes),
+                    redeemedReferrals, now);
+            return new CachedWallet(wallet, validUntil);
+        });
+        logger.debug("Loaded wallet of customer {}", customerId);
+        return loaded;
+    }
+
+    private static LocalDateTime earliest(LocalDateTime validUntil, LocalDateTime expiryDate) {
+        return expiryDate != null && expiryDate.isBefore(validUntil) ? expiryDate : validUntil;
+    }
+
+    private static class CachedWallet {
+        private final CustomerWalletDTO wallet;
+        private final LocalDateTime validUntil;
+
+        CachedWallet(CustomerWalletDTO wallet, LocalDateTime validUntil) {
+            this.wallet = wallet;
+            this.validUntil = validUntil;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.repository.CouponRepository;
+import com.restaurant.ordersystem.repository.ReferralRepository;
+import com.restaurant.ordersystem.repository.VoucherRepository;
+import com.restaurant.ordersystem.util.BloomFilter;
+import com.restaurant.ordersystem.util.DiscountCodeIssuedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every issued coupon, voucher and referral code, used to turn away
+ * codes that certainly do not exist before any database access.
+ *
+ * The filter is built at startup, gets codes inserted by this instance as they are
+ * persisted, and picks up codes inserted elsewhere (other instances, direct SQL) with a
+ * periodic incremental load of recently created vouchers and referrals plus all coupons.
+ * A code the filter does not know triggers the same incremental load before it is rejected,
+ * unless the filter was synced within the last catch-up interval, so a code created on
+ * another instance is rejected for at most that long. While a rebuild runs, missed codes
+ * pass without a catch-up and are checked against the database. Codes are matched trimmed
+ * and upper-cased, like the case-insensitive code columns. Until the first build completes
+ * every code passes.
+ */
+@Service
+public class DiscountCodeFilter {
+    private static final Logger logger = LoggerFactory.getLogger(DiscountCodeFilter.class);
+
+    // Minimum sizing, and head room so that codes issued between rebuilds keep the rate near the target
+    private static final long MIN_EXPECTED_CODES = 10_000;
+    private static final int GROWTH_FACTOR = 2;
+
+    // Codes created this long before the last sync are loaded again, for transactions that committed late
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+
+    private final CouponRepository couponRepository;
+    private final VoucherRepository voucherRepository;
+    private final ReferralRepository referralRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${discount.code-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${discount.code-filter.catch-up-interval-ms:1000}")
+    private long catchUpIntervalMs = 1000;
+
+    private final AtomicReference<BloomFilter> filter = new AtomicReference<>();
+    // Catch-ups run on the order path and must not wait behind a rebuild or a scheduled sync
+    private final Object catchUpLock = new Object();
+    // Codes added while a rebuild is running, replayed into the new filter
+    private volatile Queue<String> rebuildBuffer;
+    private volatile LocalDateTime syncedUntil;
+    private volatile LocalDateTime lastRebuild;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong catchUps = new AtomicLong();
+
+    public DiscountCodeFilter(CouponRepository couponRepository,
+                              VoucherRepository voucherRepository,
+                              ReferralRepository referralRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.couponRepository = couponRepository;
+        this.voucherRepository = voucherRepository;
+        this.referralRepository = referralRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return false if the code was certainly never issued, true if it may exist
+     */
+    public boolean mightExist(String code) {
+        BloomFilter current = filter.get();
+        String key = normalize(code);
+        if (current == null || current.mightContain(key) || catchUp(key, LocalDateTime.now())) {
+            passed.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Check a code the filter missed again after loading the codes created since the last
+     * sync, unless that sync is recent enough to trust the miss. Concurrent misses share
+     * one load. During a rebuild the code passes, as codes loaded into the outgoing filter
+     * would be lost with it.
+     */
+    private boolean catchUp(String key, LocalDateTime missedAt) {
+        if (!isStale(missedAt)) {
+            return false;
+        }
+        if (rebuildBuffer != null) {
+            return true;
+        }
+        synchronized (catchUpLock) {
+            if (rebuildBuffer != null) {
+                return true;
+            }
+            BloomFilter current = filter.get();
+            if (isStale(missedAt)) {
+                loadRecent(current);
+                catchUps.incrementAndGet();
+            }
+            return current.mightContain(key);
+        }
+    }
+
+    private boolean isStale(LocalDateTime at) {
+        LocalDateTime synced = syncedUntil;
+        return synced == null || synced.plusNanos(catchUpIntervalMs * 1_000_000L).isBefore(at);
+    }
+
+    /**
+     * Record that a code which passed the filter was not found in the database.
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    public void add(String code) {
+        String key = normalize(code);
+        BloomFilter current = filter.get();
+        if (current != null) {
+            current.put(key);
+        }
+        Queue<String> buffer = rebuildBuffer;
+        if (buffer != null) {
+            buffer.add(key);
+        }
+    }
+
+    @EventListener
+    public void onCodeIssued(DiscountCodeIssuedEvent event) {
+        add(event.getCode());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Failed to build discount code filter; all codes are checked against the database", e);
+        }
+    }
+
+    /**
+     * Build a new filter sized for the current number of codes and swap it in.
+     */
+    @Scheduled(cron = "${discount.code-filter.rebuild-cron:0 30 4 * * *}")
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        // Set before the load starts, so that catch-ups from here on leave syncedUntil alone
+        rebuildBuffer = new ConcurrentLinkedQueue<>();
+        LocalDateTime loadStart = LocalDateTime.now();
+        try {
+            BloomFilter next = readOnlyTransaction.execute(status -> {
+                long codes = couponRepository.count() + voucherRepository.count() + referralRepository.count();
+                BloomFilter built = new BloomFilter(Math.max(MIN_EXPECTED_CODES, codes * GROWTH_FACTOR), falsePositiveRate);
+                couponRepository.findAllCodes().forEach(code -> built.put(normalize(code)));
+                try (Stream<String> vouchers = voucherRepository.streamAllCodes()) {
+                    vouchers.forEach(code -> built.put(normalize(code)));
+                }
+                try (Stream<String> referrals = referralRepository.streamAllCodes()) {
+                    referrals.forEach(code -> built.put(normalize(code)));
+                }
+                return built;
+            });
+            syncedUntil = loadStart;
+            filter.set(next);
+            String code;
+            while ((code = rebuildBuffer.poll()) != null) {
+                next.put(code);
+            }
+            lastRebuild = loadStart;
+            logger.info("Built discount code filter with {} codes ({} bytes) in {} ms",
+                    next.getInsertions(), next.getMemoryBytes(), System.currentTimeMillis() - startedAt);
+        } finally {
+            rebuildBuffer = null;
+        }
+    }
+
+    /**
+     * Add codes created since the last sync, on any instance. Rebuilds instead once the
+     * filter holds more codes than it was sized for.
+     */
+    @Scheduled(fixedDelayString = "${discount.code-filter.sync-interval-ms:10000}")
+    public synchronized void sync() {
+        BloomFilter current = filter.get();
+        if (current == null) {
+            return;
+        }
+        if (current.getInsertions() > current.getExpectedInsertions()) {
+            rebuild();
+            return;
+        }
+        loadRecent(current);
+    }
+
+    private void loadRecent(BloomFilter current) {
+        LocalDateTime loadStart = LocalDateTime.now();
+        LocalDateTime since = syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            couponRepository.findAllCodes().forEach(code -> current.put(normalize(code)));
+            voucherRepository.findCodesCreatedSince(since).forEach(code -> current.put(normalize(code)));
+            referralRepository.findCodesCreatedSince(since).forEach(code -> current.put(normalize(code)));
+        });
+        // A rebuild that started meanwhile sets syncedUntil for the filter it swaps in
+        if (rebuildBuffer == null && filter.get() == current) {
+            syncedUntil = loadStart;
+        }
+    }
+
+    // The code columns compare case-insensitively, so the filter must too
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Size, fill and effectiveness of the filter, for the admin statistics endpoint.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        BloomFilter current = filter.get();
+        stats.put("ready", current != null);
+        if (current != null) {
+            stats.put("codes", current.getInsertions());
+            stats.put("sizedForCodes", current.getExpectedInsertions());
+            stats.put("bits", current.getBitCount());
+            stats.put("hashFunctions", current.getHashFunctions());
+            stats.put("memoryBytes", current.getMemoryBytes());
+            stats.put("expectedFalsePositiveRate", current.getExpectedFalsePositiveRate());
+        }
+        long rejectedCount = rejected.get();
+        long falsePositiveCount = falsePositives.get();
+        stats.put("rejected", rejectedCount);
+        stats.put("passed", passed.get());
+        stats.put("falsePositives", falsePositiveCount);
+        stats.put("catchUps", catchUps.get());
+        // Of the lookups for codes that do not exist, the share the filter let through
+        long unknownCodes = rejectedCount + falsePositiveCount;
+        stats.put("observedFalsePositiveRate", unknownCodes == 0 ? 0.0 : (double) falsePositiveCount / unknownCodes);
+        stats.put("lastRebuild", lastRebuild);
+        return stats;
+    }
+}
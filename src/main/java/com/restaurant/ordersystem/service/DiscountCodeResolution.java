@@ -0,0 +1,75 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Coupon;
+import com.restaurant.ordersystem.model.Referral;
+import com.restaurant.ordersystem.model.Voucher;
+
+/**
+ * Outcome of resolving a discount code entered at checkout: the coupon, voucher or referral
+ * it belongs to, or the reason it cannot be used. Returned instead of throwing so that an
+ * unknown or expired code costs no exception on the order path.
+ */
+public final class DiscountCodeResolution {
+
+    public enum CodeType {
+        COUPON, VOUCHER, REFERRAL
+    }
+
+    private final CodeType type;
+    private final Coupon coupon;
+    private final Voucher voucher;
+    private final Referral referral;
+    private final String rejectionReason;
+
+    private DiscountCodeResolution(CodeType type, Coupon coupon, Voucher voucher, Referral referral,
+                                   String rejectionReason) {
+        this.type = type;
+        this.coupon = coupon;
+        this.voucher = voucher;
+        this.referral = referral;
+        this.rejectionReason = rejectionReason;
+    }
+
+    public static DiscountCodeResolution coupon(Coupon coupon) {
+        return new DiscountCodeResolution(CodeType.COUPON, coupon, null, null, null);
+    }
+
+    public static DiscountCodeResolution voucher(Voucher voucher) {
+        return new DiscountCodeResolution(CodeType.VOUCHER, null, voucher, null, null);
+    }
+
+    public static DiscountCodeResolution referral(Referral referral) {
+        return new DiscountCodeResolution(CodeType.REFERRAL, null, null, referral, null);
+    }
+
+    public static DiscountCodeResolution rejected(String reason) {
+        return new DiscountCodeResolution(null, null, null, null, reason);
+    }
+
+    public boolean isValid() {
+        return type != null;
+    }
+
+    /**
+     * Type of the matched code; null when the code was rejected.
+     */
+    public CodeType getType() {
+        return type;
+    }
+
+    public Coupon getCoupon() {
+        return coupon;
+    }
+
+    public Voucher getVoucher() {
+        return voucher;
+    }
+
+    public Referral getReferral() {
+        return referral;
+    }
+
+    public String getRejectionReason() {
+        return rejectionReason;
+    }
+}
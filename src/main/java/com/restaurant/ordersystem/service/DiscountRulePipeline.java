@@ -0,0 +1,235 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.DiscountRule;
+import com.restaurant.ordersystem.util.MinorUnits;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Campaign discount rules compiled into flat arrays, sorted by priority.
+ *
+ * All amounts are converted to minor units and category and free item references to indexes
+ * once, at compile time. Evaluating a cart is one pass over the cart lines and one over the
+ * rules, allocating only two small lookup arrays and the result; no BigDecimal or entity is
+ * touched. Rules are applied in priority order, each to the undiscounted eligible spend,
+ * capped by its own maximum and by what is left of the order total; a rule that is not
+ * stackable ends the pass once it applies.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+public final class DiscountRulePipeline {
+
+    public static final DiscountRulePipeline EMPTY = compile(new ArrayList<>());
+
+    private static final byte PERCENTAGE = 0;
+    private static final byte FIXED = 1;
+    private static final byte FREE_ITEM = 2;
+
+    private static final int WHOLE_CART = -1;
+    private static final long NO_CAP = Long.MAX_VALUE;
+
+    private final int size;
+    private final int[] ruleIds;
+    private final byte[] types;
+    private final int[] percentages;
+    private final long[] amounts;
+    private final long[] minSpends;
+    private final int[] categoryIndexes;
+    private final int[] freeItemIndexes;
+    private final long[] caps;
+    private final boolean[] stackable;
+    private final long[] startEpochSeconds;
+    private final long[] endEpochSeconds;
+
+    // Sorted ids of the categories rules are restricted to, and of the free items rules give;
+    // a rule refers to the position in these arrays
+    private final int[] categories;
+    private final int[] freeItems;
+
+    private DiscountRulePipeline(List<DiscountRule> rules) {
+        int[] categoryIds = rules.stream()
+                .filter(rule -> rule.getCategory() != null)
+                .mapToInt(rule -> rule.getCategory().getCategoryId())
+                .distinct()
+                .sorted()
+                .toArray();
+        this.categories = categoryIds;
+        int[] freeItemIds = rules.stream()
+                .filter(rule -> rule.getFreeItem() != null)
+                .mapToInt(rule -> rule.getFreeItem().getItemId())
+                .distinct()
+                .sorted()
+                .toArray();
+        this.freeItems = freeItemIds;
+
+        size = rules.size();
+        ruleIds = new int[size];
+        types = new byte[size];
+        percentages = new int[size];
+        amounts = new long[size];
+        minSpends = new long[size];
+        categoryIndexes = new int[size];
+        freeItemIndexes = new int[size];
+        caps = new long[size];
+        stackable = new boolean[size];
+        startEpochSeconds = new long[size];
+        endEpochSeconds = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            DiscountRule rule = rules.get(i);
+            ruleIds[i] = rule.getRuleId() != null ? rule.getRuleId() : 0;
+            types[i] = typeOf(rule.getRuleType());
+            percentages[i] = rule.getPercentage() != null ? rule.getPercentage() : 0;
+            amounts[i] = MinorUnits.toMinor(rule.getAmount());
+            minSpends[i] = MinorUnits.toMinor(rule.getMinSpend());
+            categoryIndexes[i] = rule.getCategory() != null
+                    ? Arrays.binarySearch(categoryIds, rule.getCategory().getCategoryId())
+                    : WHOLE_CART;
+            freeItemIndexes[i] = rule.getFreeItem() != null
+                    ? Arrays.binarySearch(freeItemIds, rule.getFreeItem().getItemId())
+                    : -1;
+            caps[i] = rule.getMaxDiscount() != null ? MinorUnits.toMinor(rule.getMaxDiscount()) : NO_CAP;
+            stackable[i] = !Boolean.FALSE.equals(rule.getStackable());
+            startEpochSeconds[i] = rule.getStartDate() != null ? epochSecond(rule.getStartDate()) : Long.MIN_VALUE;
+            endEpochSeconds[i] = rule.getEndDate() != null ? epochSecond(rule.getEndDate()) : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Compile rules; inactive rules are left out.
+     */
+    public static DiscountRulePipeline compile(List<DiscountRule> rules) {
+        List<DiscountRule> active = new ArrayList<>();
+        for (DiscountRule rule : rules) {
+            if (rule.getStatus() == DiscountRule.RuleStatus.Active && rule.getRuleType() != null) {
+                active.add(rule);
+            }
+        }
+        active.sort(Comparator.comparing((DiscountRule rule) -> rule.getPriority() != null ? rule.getPriority() : Integer.MAX_VALUE)
+                .thenComparing(rule -> rule.getRuleId() != null ? rule.getRuleId() : Integer.MAX_VALUE));
+        return new DiscountRulePipeline(active);
+    }
+
+    /**
+     * Apply the rules to a cart.
+     *
+     * @param cart Cart contents
+     * @param maxDiscount Largest total discount in minor units, e.g. the order total left after a discount code
+     * @param now Time of the order, for rule validity
+     * @return Discount in minor units and the ids of the rules that applied
+     */
+    public Result evaluate(CartLines cart, long maxDiscount, LocalDateTime now) {
+        long nowEpochSecond = epochSecond(now);
+
+        // Spend per referenced category and the lowest unit price of each free item in the cart
+        long[] categorySpend = new long[categories.length];
+        long[] freeItemPrice = new long[freeItems.length];
+        for (int line = 0; line < cart.size(); line++) {
+            int category = Arrays.binarySearch(categories, cart.getCategoryId(line));
+            if (category >= 0) {
+                categorySpend[category] += cart.getLineTotal(line);
+            }
+            int freeItem = Arrays.binarySearch(freeItems, cart.getItemId(line));
+            if (freeItem >= 0 && cart.getQuantity(line) > 0
+                    && (freeItemPrice[freeItem] == 0 || cart.getUnitPrice(line) < freeItemPrice[freeItem])) {
+                freeItemPrice[freeItem] = cart.getUnitPrice(line);
+            }
+        }
+
+        long remaining = Math.min(maxDiscount, cart.getTotal());
+        long discount = 0;
+        int[] applied = null;
+        int appliedCount = 0;
+
+        for (int i = 0; i < size && remaining > 0; i++) {
+            if (nowEpochSecond < startEpochSeconds[i] || nowEpochSecond >= endEpochSeconds[i]) {
+                continue;
+            }
+            long eligible = categoryIndexes[i] == WHOLE_CART ? cart.getTotal() : categorySpend[categoryIndexes[i]];
+            if (eligible <= 0 || eligible < minSpends[i]) {
+                continue;
+            }
+
+            long ruleDiscount;
+            switch (types[i]) {
+                case PERCENTAGE:
+                    ruleDiscount = MinorUnits.percentOf(eligible, percentages[i]);
+                    break;
+                case FIXED:
+                    ruleDiscount = Math.min(amounts[i], eligible);
+                    break;
+                default:
+                    ruleDiscount = freeItemIndexes[i] >= 0 ? freeItemPrice[freeItemIndexes[i]] : 0;
+                    break;
+            }
+            ruleDiscount = Math.min(Math.min(ruleDiscount, caps[i]), remaining);
+            if (ruleDiscount <= 0) {
+                continue;
+            }
+
+            discount += ruleDiscount;
+            remaining -= ruleDiscount;
+            if (applied == null) {
+                applied = new int[Math.min(size, 8)];
+            } else if (appliedCount == applied.length) {
+                applied = Arrays.copyOf(applied, Math.min(size, applied.length * 2));
+            }
+            applied[appliedCount++] = ruleIds[i];
+
+            if (!stackable[i]) {
+                break;
+            }
+        }
+
+        return new Result(discount, applied, appliedCount);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static byte typeOf(DiscountRule.RuleType type) {
+        switch (type) {
+            case Percentage:
+                return PERCENTAGE;
+            case Fixed:
+                return FIXED;
+            default:
+                return FREE_ITEM;
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static final class Result {
+        private static final int[] NONE = new int[0];
+
+        private final long discount;
+        private final int[] appliedRuleIds;
+        private final int appliedCount;
+
+        private Result(long discount, int[] appliedRuleIds, int appliedCount) {
+            this.discount = discount;
+            this.appliedRuleIds = appliedRuleIds != null ? appliedRuleIds : NONE;
+            this.appliedCount = appliedCount;
+        }
+
+        /**
+         * Total discount in minor units.
+         */
+        public long getDiscount() {
+            return discount;
+        }
+
+        public int[] getAppliedRuleIds() {
+            return Arrays.copyOf(appliedRuleIds, appliedCount);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.DiscountRule;
+import com.restaurant.ordersystem.repository.DiscountRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the compiled {@link DiscountRulePipeline} of all active campaign rules. The rules are
+ * loaded and compiled on first use and recompiled periodically, so checkouts evaluate an
+ * immutable snapshot and never query the rules table.
+ */
+@Service
+public class DiscountRuleService {
+    private static final Logger logger = LoggerFactory.getLogger(DiscountRuleService.class);
+
+    private final DiscountRuleRepository discountRuleRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<DiscountRulePipeline> current = new AtomicReference<>();
+
+    public DiscountRuleService(DiscountRuleRepository discountRuleRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.discountRuleRepository = discountRuleRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Campaign discount for a cart.
+     *
+     * @param cart Cart contents
+     * @param maxDiscount Largest discount in minor units, i.e. the order total left after any discount code
+     * @return Discount in minor units and the rules that gave it
+     */
+    public DiscountRulePipeline.Result evaluate(CartLines cart, long maxDiscount) {
+        DiscountRulePipeline.Result result = getPipeline().evaluate(cart, maxDiscount, LocalDateTime.now());
+        if (result.getDiscount() > 0) {
+            logger.debug("Campaign rules {} applied, discount {}", Arrays.toString(result.getAppliedRuleIds()),
+                    result.getDiscount());
+        }
+        return result;
+    }
+
+    public DiscountRulePipeline getPipeline() {
+        DiscountRulePipeline pipeline = current.get();
+        return pipeline != null ? pipeline : refresh();
+    }
+
+    /**
+     * Reload and recompile the active rules.
+     */
+    @Scheduled(fixedDelayString = "${discount.rules.refresh-interval-ms:60000}")
+    public synchronized DiscountRulePipeline refresh() {
+        List<DiscountRule> rules = readOnlyTransaction.execute(status ->
+                discountRuleRepository.findUnexpired(DiscountRule.RuleStatus.Active, LocalDateTime.now()));
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(rules);
+        current.set(pipeline);
+        logger.info("Compiled {} discount rules", pipeline.size());
+        return pipeline;
+    }
+}
@@ -1,34 +1,63 @@
 package com.restaurant.ordersystem.service;
 
-import com.restaurant.ordersystem.exception.InvalidCouponException;
 import com.restaurant.ordersystem.model.*;
 import com.restaurant.ordersystem.repository.CouponRepository;
+import com.restaurant.ordersystem.repository.DiscountCodeMatch;
 import com.restaurant.ordersystem.repository.ReferralRepository;
 import com.restaurant.ordersystem.repository.VoucherRepository;
+import com.restaurant.ordersystem.util.CustomerWalletChangedEvent;
+import com.restaurant.ordersystem.util.MinorUnits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 @Service
 public class DiscountService {
     private static final Logger logger = LoggerFactory.getLogger(DiscountService.class);
 
+    private static final String REDEEM_VOUCHER_SQL = "UPDATE vouchers SET is_used = 1, used_date = ?, status = 'Used' "
+            + "WHERE voucher_id = ? AND is_used = 0 AND status = 'Active'";
+    private static final String REDEEM_REFERRAL_SQL = "UPDATE referrals SET is_used = 1, used_date = ?, status = 'Used' "
+            + "WHERE referral_id = ? AND is_used = 0";
+
     private final CouponRepository couponRepository;
     private final VoucherRepository voucherRepository;
     private final ReferralRepository referralRepository;
+    private final DiscountCodeFilter discountCodeFilter;
+    private final CouponRedemptionService couponRedemptionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DiscountService(CouponRepository couponRepository,
                           VoucherRepository voucherRepository,
-                          ReferralRepository referralRepository) {
+                          ReferralRepository referralRepository,
+                          DiscountCodeFilter discountCodeFilter,
+                          CouponRedemptionService couponRedemptionService,
+                          JdbcTemplate jdbcTemplate,
+                          EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher) {
         this.couponRepository = couponRepository;
         this.voucherRepository = voucherRepository;
         this.referralRepository = referralRepository;
+        this.discountCodeFilter = discountCodeFilter;
+        this.couponRedemptionService = couponRedemptionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -60,58 +89,6 @@ public class DiscountService {
         return calculateDiscount(coupon, totalPrice);
     }
 
-    /**
-     * Apply voucher discount to the order total
-     */
-    public BigDecimal applyVoucherDiscount(Voucher voucher, BigDecimal totalPrice) {
-        if (voucher == null) {
-            return BigDecimal.ZERO;
-        }
-
-        // Validate voucher status
-        if (voucher.getStatus() != Voucher.VoucherStatus.Active) {
-            logger.warn("Voucher {} is not active", voucher.getVoucherCode());
-            return BigDecimal.ZERO;
-        }
-
-        // Validate voucher expiry
-        LocalDateTime now = LocalDateTime.now();
-        if (voucher.getExpiryDate() != null && now.isAfter(voucher.getExpiryDate())) {
-            logger.warn("Voucher {} has expired", voucher.getVoucherCode());
-            return BigDecimal.ZERO;
-        }
-
-        // Check if voucher is already used
-        if (voucher.getIsUsed()) {
-            logger.warn("Voucher {} has already been used", voucher.getVoucherCode());
-            return BigDecimal.ZERO;
-        }
-
-        // Mark voucher as used
-        markVoucherAsUsed(voucher);
-
-        return calculateVoucherDiscount(voucher, totalPrice);
-    }
-
-    /**
-     * Apply referral discount to the order total
-     */
-    public BigDecimal applyReferralDiscount(Referral referral, BigDecimal totalPrice) {
-        if (referral == null) {
-            return BigDecimal.ZERO;
-        }
-
-        // Check if referral is already used
-        if (referral.getIsUsed()) {
-            logger.warn("Referral {} has already been used", referral.getReferralCode());
-            return BigDecimal.ZERO;
-        }
-
-        // Apply 10% discount for referrals
-        return totalPrice.multiply(BigDecimal.valueOf(0.1))
-                .setScale(2, RoundingMode.HALF_UP);
-    }
-
     /**
      * Calculate discount for a coupon or voucher
      */
@@ -151,77 +128,113 @@ public class DiscountService {
         return discountAmount;
     }
 
-    public Coupon validateCoupon(String couponCode) {
-        if (couponCode == null || couponCode.isEmpty()) {
-            return null;
+    /**
+     * Resolve a code entered at checkout to the coupon, voucher or referral it belongs to.
+     * Codes that were never issued are turned away by the code filter without a query;
+     * otherwise all three code columns are searched in one query, and when a code exists in
+     * more than one table the first usable match wins, in the order coupon, voucher, referral.
+     * The lookup already tells which matches are usable, so only those are loaded.
+     *
+     * @param code Discount code
+     * @param customer Customer placing the order, for the referral check
+     * @return The usable match, or the reason the code was rejected (never throws for bad codes)
+     */
+    public DiscountCodeResolution resolveCode(String code, Customer customer) {
+        if (code == null || code.isEmpty()) {
+            return DiscountCodeResolution.rejected("No discount code given");
         }
 
-        LocalDateTime now = LocalDateTime.now();
-
-        // Check if it's a standard coupon
-        Optional<Coupon> couponOpt = couponRepository.findByCouponCodeAndStatusAndStartDateBeforeAndEndDateAfter(
-                couponCode, Coupon.CouponStatus.Active, now, now);
-
-        if (couponOpt.isPresent()) {
-            return couponOpt.get();
+        if (!discountCodeFilter.mightExist(code)) {
+            return DiscountCodeResolution.rejected("Invalid discount code: " + code);
         }
 
-        // Check if it's a voucher
-        Optional<Voucher> voucherOpt = voucherRepository.findByVoucherCodeAndStatusAndExpiryDateAfterAndIsUsed(
-                couponCode, Voucher.VoucherStatus.Active, now, false);
+        LocalDateTime now = LocalDateTime.now();
+        String firstRejection = null;
 
-        if (voucherOpt.isPresent()) {
-            throw new InvalidCouponException("Please use voucher code through the voucher section");
+        List<DiscountCodeMatch> matches = couponRepository.findDiscountCode(code, now);
+        if (matches.isEmpty()) {
+            discountCodeFilter.recordFalsePositive();
         }
-
-        // Check if it's a referral code
-        Optional<Referral> referralOpt = referralRepository.findByReferralCodeAndIsUsed(couponCode, false);
-
-        if (referralOpt.isPresent()) {
-            throw new InvalidCouponException("Please use referral code through the referral section");
+        for (DiscountCodeMatch match : matches) {
+            DiscountCodeResolution resolution;
+            if (!Integer.valueOf(1).equals(match.getUsable())) {
+                resolution = DiscountCodeResolution.rejected(rejectionFor(match.getCodeType(), code));
+            } else {
+                resolution = load(match, customer, now);
+                if (resolution == null) {
+                    // Deleted between the lookup and the load
+                    continue;
+                }
+            }
+            if (resolution.isValid()) {
+                return resolution;
+            }
+            if (firstRejection == null) {
+                firstRejection = resolution.getRejectionReason();
+            }
         }
 
-        throw new InvalidCouponException("Invalid or expired coupon code: " + couponCode);
+        return DiscountCodeResolution.rejected(firstRejection != null ? firstRejection : "Invalid discount code: " + code);
     }
 
-    public Voucher validateVoucher(String voucherCode) {
-        if (voucherCode == null || voucherCode.isEmpty()) {
-            return null;
+    private DiscountCodeResolution load(DiscountCodeMatch match, Customer customer, LocalDateTime now) {
+        switch (match.getCodeType()) {
+            case DiscountCodeMatch.COUPON:
+                return couponRepository.findById(match.getId())
+                        .map(coupon -> isActive(coupon, now)
+                                ? DiscountCodeResolution.coupon(coupon)
+                                : DiscountCodeResolution.rejected(rejectionFor(match.getCodeType(), coupon.getCouponCode())))
+                        .orElse(null);
+            case DiscountCodeMatch.VOUCHER:
+                return voucherRepository.findById(match.getId())
+                        .map(voucher -> isRedeemable(voucher, now)
+                                ? DiscountCodeResolution.voucher(voucher)
+                                : DiscountCodeResolution.rejected(rejectionFor(match.getCodeType(), voucher.getVoucherCode())))
+                        .orElse(null);
+            case DiscountCodeMatch.REFERRAL:
+                return referralRepository.findById(match.getId())
+                        .map(referral -> checkReferral(referral, customer))
+                        .orElse(null);
+            default:
+                return null;
         }
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-
-        Optional<Voucher> voucherOpt = voucherRepository.findByVoucherCodeAndStatusAndExpiryDateAfterAndIsUsed(
-                voucherCode, Voucher.VoucherStatus.Active, now, false);
-
-        if (voucherOpt.isPresent()) {
-            return voucherOpt.get();
+    private String rejectionFor(String codeType, String code) {
+        switch (codeType) {
+            case DiscountCodeMatch.COUPON:
+                return "Invalid or expired coupon code: " + code;
+            case DiscountCodeMatch.VOUCHER:
+                return "Invalid or expired voucher code: " + code;
+            default:
+                return "Invalid or already used referral code: " + code;
         }
-
-        throw new InvalidCouponException("Invalid or expired voucher code: " + voucherCode);
     }
 
-    public Referral validateReferral(String referralCode, Customer customer) {
-        if (referralCode == null || referralCode.isEmpty()) {
-            return null;
+    private DiscountCodeResolution checkReferral(Referral referral, Customer customer) {
+        if (!Boolean.FALSE.equals(referral.getIsUsed())) {
+            return DiscountCodeResolution.rejected("Invalid or already used referral code: " + referral.getReferralCode());
         }
 
-        Optional<Referral> referralOpt = referralRepository.findByReferralCodeAndIsUsed(referralCode, false);
-
-        if (referralOpt.isPresent()) {
-            Referral referral = referralOpt.get();
-
-            // Check if the customer's phone number matches the referral
-            if (customer.getEncryptedPhoneNumber() != null &&
-                referral.getReferrer().getEncryptedPhoneNumber() != null &&
-                !customer.getEncryptedPhoneNumber().equals(referral.getReferrer().getEncryptedPhoneNumber())) {
-                return referral;
-            } else {
-                throw new InvalidCouponException("Referral code cannot be used by the referrer");
-            }
+        // Check if the customer's phone number matches the referral
+        if (customer.getEncryptedPhoneNumber() != null &&
+            referral.getReferrer().getEncryptedPhoneNumber() != null &&
+            !customer.getEncryptedPhoneNumber().equals(referral.getReferrer().getEncryptedPhoneNumber())) {
+            return DiscountCodeResolution.referral(referral);
         }
+        return DiscountCodeResolution.rejected("Referral code cannot be used by the referrer");
+    }
+
+    private boolean isActive(Coupon coupon, LocalDateTime now) {
+        return coupon.getStatus() == Coupon.CouponStatus.Active
+                && coupon.getStartDate() != null && coupon.getStartDate().isBefore(now)
+                && coupon.getEndDate() != null && coupon.getEndDate().isAfter(now);
+    }
 
-        throw new InvalidCouponException("Invalid or already used referral code: " + referralCode);
+    private boolean isRedeemable(Voucher voucher, LocalDateTime now) {
+        return voucher.getStatus() == Voucher.VoucherStatus.Active
+                && voucher.getExpiryDate() != null && voucher.getExpiryDate().isAfter(now)
+                && Boolean.FALSE.equals(voucher.getIsUsed());
     }
 
     public BigDecimal calculateVoucherDiscount(Voucher voucher, BigDecimal totalPrice) {
@@ -248,6 +261,19 @@ public class DiscountService {
         return discountAmount;
     }
 
+    /**
+     * Voucher discount including its free item: one unit of the voucher's free item is free
+     * when it is in the cart. Never more than the order total.
+     */
+    public BigDecimal calculateVoucherDiscount(Voucher voucher, BigDecimal totalPrice, CartLines cart) {
+        BigDecimal discountAmount = calculateVoucherDiscount(voucher, totalPrice);
+        if (voucher != null && voucher.getFreeItem() != null) {
+            long freeItemPrice = cart.getCheapestUnitPrice(voucher.getFreeItem().getItemId());
+            discountAmount = discountAmount.add(MinorUnits.toAmount(freeItemPrice)).min(totalPrice);
+        }
+        return discountAmount;
+    }
+
     public BigDecimal calculateReferralDiscount(Referral referral, BigDecimal totalPrice) {
         if (referral == null) {
             return BigDecimal.ZERO;
@@ -258,21 +284,97 @@ public class DiscountService {
                 .setScale(2, RoundingMode.HALF_UP);
     }
 
-    public void markVoucherAsUsed(Voucher voucher) {
-        if (voucher != null) {
-            voucher.setIsUsed(true);
-            voucher.setUsedDate(LocalDateTime.now());
-            voucher.setStatus(Voucher.VoucherStatus.Used);
-            voucherRepository.save(voucher);
+    /**
+     * Count a use of the coupon by the customer, within the coupon's per-user limit.
+     *
+     * @return true if the customer may use the coupon, false if they reached its limit
+     */
+    public boolean markCouponAsUsed(Coupon coupon, Customer customer) {
+        return coupon != null && couponRedemptionService.tryRedeem(coupon, customer);
+    }
+
+    /**
+     * Give back a coupon use counted by {@link #markCouponAsUsed}, e.g. for a cancelled order.
+     */
+    public void releaseCoupon(Coupon coupon, Customer customer) {
+        if (coupon != null && customer != null) {
+            couponRedemptionService.release(coupon, customer);
+        }
+    }
+
+    /**
+     * Redeem a voucher with a single conditional UPDATE. Of any number of concurrent
+     * checkouts with the same voucher exactly one gets true; the others wait for its
+     * transaction only on that row and then, with InnoDB re-checking the WHERE clause, get
+     * false. The statement runs through JDBC rather than as a JPQL bulk update, which would
+     * evict every cached voucher; only this voucher is evicted from the second-level cache.
+     *
+     * @return true if this call redeemed the voucher, false if it was not active or already used
+     */
+    public boolean markVoucherAsUsed(Voucher voucher) {
+        if (voucher == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(REDEEM_VOUCHER_SQL, Timestamp.valueOf(now), voucher.getVoucherId()) == 0) {
+            return false;
+        }
+        evictVoucher(voucher.getVoucherId());
+        markRedeemed(voucher);
+        voucher.setIsUsed(true);
+        voucher.setUsedDate(now);
+        voucher.setStatus(Voucher.VoucherStatus.Used);
+        publishWalletChange(voucher.getCustomer());
+        return true;
+    }
+
+    /**
+     * Redeem a referral with a single conditional UPDATE, like {@link #markVoucherAsUsed}.
+     *
+     * @return true if this call redeemed the referral, false if it was already used
+     */
+    public boolean markReferralAsUsed(Referral referral) {
+        if (referral == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(REDEEM_REFERRAL_SQL, Timestamp.valueOf(now), referral.getReferralId()) == 0) {
+            return false;
+        }
+        markRedeemed(referral);
+        referral.setIsUsed(true);
+        referral.setUsedDate(now);
+        referral.setStatus(Referral.ReferralStatus.Used);
+        publishWalletChange(referral.getReferrer());
+        return true;
+    }
+
+    // The row was written by the UPDATE; detach a loaded entity before the caller's copy is
+    // brought in step, so that the flush does not write it a second time
+    private void markRedeemed(Object entity) {
+        if (entityManager.contains(entity)) {
+            entityManager.detach(entity);
+        }
+    }
+
+    // Again after commit, in case a concurrent read cached the old row in between
+    private void evictVoucher(Integer voucherId) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Voucher.class, voucherId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(Voucher.class, voucherId);
+                }
+            });
         }
     }
 
-    public void markReferralAsUsed(Referral referral) {
-        if (referral != null) {
-            referral.setIsUsed(true);
-            referral.setUsedDate(LocalDateTime.now());
-            referral.setStatus(Referral.ReferralStatus.Used);
-            referralRepository.save(referral);
+    // Entity listeners do not see JDBC updates
+    private void publishWalletChange(Customer owner) {
+        if (owner != null && owner.getCustomerId() != null) {
+            eventPublisher.publishEvent(new CustomerWalletChangedEvent(owner.getCustomerId()));
         }
     }
 }
@@ -10,40 +10,74 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import javax.annotation.PostConstruct;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class DynamoDBService {
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBService.class);
     private static final String ORDER_ID_ATTR = "orderId";
 
+    // BatchWriteItem accepts at most 25 put/delete requests per call
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+
     @Value("${aws.dynamodb.table-name:orders}")
     private String tableName;
 
+    // Optional endpoint override, e.g. http://localhost:8000 for DynamoDB Local
+    @Value("${aws.dynamodb.endpoint:}")
+    private String endpoint;
+
+    @Value("${aws.dynamodb.batch-write.max-attempts:5}")
+    private int batchWriteMaxAttempts = 5;
+
+    @Value("${aws.dynamodb.batch-write.base-backoff-ms:50}")
+    private long batchWriteBaseBackoffMs = 50;
+
+    @Value("${aws.dynamodb.batch-write.max-backoff-ms:2000}")
+    private long batchWriteMaxBackoffMs = 2000;
+
     private DynamoDbClient dynamoDbClient;
 
     public DynamoDBService() {
         // Default constructor
     }
 
+    /**
+     * Create a service around an existing client, e.g. one pointing at DynamoDB Local
+     * or an in-process fake in tests. {@link #init()} is not needed in that case.
+     */
+    public DynamoDBService(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
     @PostConstruct
     public void init() {
         try {
             Region region = Region.US_EAST_1;
-            dynamoDbClient = DynamoDbClient.builder()
+            DynamoDbClientBuilder builder = DynamoDbClient.builder()
                     .region(region)
-                    .credentialsProvider(DefaultCredentialsProvider.create())
-                    .build();
+                    .credentialsProvider(DefaultCredentialsProvider.create());
+            if (endpoint != null && !endpoint.isEmpty()) {
+                builder.endpointOverride(URI.create(endpoint));
+            }
+            dynamoDbClient = builder.build();
 
             // Check if table exists, create if it doesn't
             createTableIfNotExists();
@@ -103,92 +137,187 @@ public class DynamoDBService {
      */
     public void saveOrder(Order order, Customer customer, Restaurant restaurant, List<OrderItem> orderItems) {
         try {
-            Map<String, AttributeValue> item = new HashMap<>();
-
-            // Order details
-            item.put(ORDER_ID_ATTR, AttributeValue.builder().s(order.getOrderId()).build());
-            item.put("orderStatus", AttributeValue.builder().s(order.getStatus().name()).build());
-            item.put("orderDate", AttributeValue.builder().s(formatDateTime(order.getOrderDate())).build());
-            item.put("deliveryDate", AttributeValue.builder().s(formatDateTime(order.getDeliveryDate())).build());
-
-            // Customer details
-            Map<String, AttributeValue> customerMap = new HashMap<>();
-            customerMap.put("customerId", AttributeValue.builder().n(customer.getCustomerId().toString()).build());
-            customerMap.put("fullName", AttributeValue.builder().s(customer.getFullName()).build());
-            if (customer.getEmail() != null) {
-                customerMap.put("email", AttributeValue.builder().s(customer.getEmail()).build());
-            }
-            item.put("customer", AttributeValue.builder().m(customerMap).build());
-
-            // Restaurant details
-            Map<String, AttributeValue> restaurantMap = new HashMap<>();
-            restaurantMap.put("restaurantId", AttributeValue.builder().n(restaurant.getRestaurantId().toString()).build());
-            restaurantMap.put("name", AttributeValue.builder().s(restaurant.getName()).build());
-            item.put("restaurant", AttributeValue.builder().m(restaurantMap).build());
+            PutItemRequest request = PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(buildOrderItem(order, customer, restaurant, orderItems, order.getStatusHistory()))
+                    .build();
 
-            // Payment details
-            if (order.getPaymentId() != null) {
-                item.put("paymentId", AttributeValue.builder().s(order.getPaymentId()).build());
-            }
+            dynamoDbClient.putItem(request);
+            logger.info("Order {} saved to DynamoDB successfully", order.getOrderId());
+        } catch (Exception e) {
+            logger.error("Error saving order to DynamoDB: {}", e.getMessage());
+        }
+    }
 
-            // Order items
-            List<AttributeValue> orderItemsList = new ArrayList<>();
-            for (OrderItem orderItem : orderItems) {
-                Map<String, AttributeValue> orderItemMap = new HashMap<>();
-                orderItemMap.put("orderItemId", AttributeValue.builder().n(orderItem.getOrderItemId().toString()).build());
-
-                if (orderItem.getMenuItem() != null) {
-                    orderItemMap.put("menuItemId", AttributeValue.builder().n(orderItem.getMenuItem().getItemId().toString()).build());
-                    orderItemMap.put("menuItemName", AttributeValue.builder().s(orderItem.getItemName() != null ?
-                            orderItem.getItemName() : orderItem.getMenuItem().getName()).build());
-                } else if (orderItem.getItemName() != null) {
-                    orderItemMap.put("menuItemName", AttributeValue.builder().s(orderItem.getItemName()).build());
-                }
+    /**
+     * Write complete order documents with BatchWriteItem, 25 per request. Items DynamoDB
+     * reports as unprocessed (throttling) and failed calls are retried with exponential
+     * backoff and full jitter up to the configured number of attempts.
+     *
+     * @param itemsByOrderId Order documents keyed by order ID (see {@link #buildOrderItem})
+     * @return Order IDs that could not be written, with the reason
+     */
+    public Map<String, String> batchSaveOrders(Map<String, Map<String, AttributeValue>> itemsByOrderId) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        if (itemsByOrderId.isEmpty()) {
+            return failures;
+        }
+        if (dynamoDbClient == null) {
+            itemsByOrderId.keySet().forEach(orderId -> failures.put(orderId, "DynamoDB client is not initialized"));
+            return failures;
+        }
 
-                orderItemMap.put("quantity", AttributeValue.builder().n(orderItem.getQuantity().toString()).build());
-                orderItemMap.put("price", AttributeValue.builder().n(orderItem.getPrice().toString()).build());
-                orderItemMap.put("subtotal", AttributeValue.builder().n(orderItem.getSubtotal().toString()).build());
+        List<WriteRequest> all = new ArrayList<>(itemsByOrderId.size());
+        for (Map<String, AttributeValue> item : itemsByOrderId.values()) {
+            all.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        }
 
-                if (orderItem.getSpecialInstructions() != null) {
-                    orderItemMap.put("specialInstructions", AttributeValue.builder().s(orderItem.getSpecialInstructions()).build());
+        for (int from = 0; from < all.size(); from += MAX_BATCH_WRITE_ITEMS) {
+            List<WriteRequest> pending = all.subList(from, Math.min(from + MAX_BATCH_WRITE_ITEMS, all.size()));
+            String lastError = null;
+
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                try {
+                    BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                            .requestItems(Collections.singletonMap(tableName, pending))
+                            .build());
+                    pending = response.unprocessedItems().getOrDefault(tableName, Collections.emptyList());
+                    lastError = "unprocessed after " + attempt + " attempts";
+                } catch (SdkException e) {
+                    lastError = e.getMessage();
+                    logger.warn("BatchWriteItem attempt {} failed: {}", attempt, e.getMessage());
                 }
 
-                if (orderItem.getVariant() != null) {
-                    Map<String, AttributeValue> variantMap = new HashMap<>();
-                    variantMap.put("variantId", AttributeValue.builder().n(orderItem.getVariant().getVariantId().toString()).build());
-                    variantMap.put("variantName", AttributeValue.builder().s(orderItem.getVariantName() != null ?
-                            orderItem.getVariantName() : orderItem.getVariant().getVariantName()).build());
-                    orderItemMap.put("variant", AttributeValue.builder().m(variantMap).build());
-                } else if (orderItem.getVariantName() != null) {
-                    Map<String, AttributeValue> variantMap = new HashMap<>();
-                    variantMap.put("variantName", AttributeValue.builder().s(orderItem.getVariantName()).build());
-                    orderItemMap.put("variant", AttributeValue.builder().m(variantMap).build());
+                if (pending.isEmpty()) {
+                    break;
                 }
+                if (attempt >= batchWriteMaxAttempts || !sleepBeforeRetry(attempt)) {
+                    for (WriteRequest request : pending) {
+                        failures.put(request.putRequest().item().get(ORDER_ID_ATTR).s(), lastError);
+                    }
+                    break;
+                }
+            }
+        }
+
+        logger.info("Batch wrote {} orders to DynamoDB, {} failed", itemsByOrderId.size() - failures.size(), failures.size());
+        return failures;
+    }
+
+    private boolean sleepBeforeRetry(int attempt) {
+        long cap = Math.min(batchWriteMaxBackoffMs, batchWriteBaseBackoffMs << Math.min(attempt, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Build the DynamoDB document for an order
+     *
+     * @param order Order object
+     * @param customer Customer object
+     * @param restaurant Restaurant object
+     * @param orderItems List of order items
+     * @param statusHistory Status history as a JSON array, or null
+     * @return Attribute map keyed by order ID
+     */
+    public Map<String, AttributeValue> buildOrderItem(Order order, Customer customer, Restaurant restaurant,
+                                                      List<OrderItem> orderItems, String statusHistory) {
+        Map<String, AttributeValue> item = new HashMap<>();
+
+        // Order details
+        item.put(ORDER_ID_ATTR, AttributeValue.builder().s(order.getOrderId()).build());
+        item.put("orderStatus", AttributeValue.builder().s(order.getStatus().name()).build());
+        item.put("orderDate", AttributeValue.builder().s(formatDateTime(order.getOrderDate())).build());
+        item.put("deliveryDate", AttributeValue.builder().s(formatDateTime(order.getDeliveryDate())).build());
+
+        // Customer details
+        Map<String, AttributeValue> customerMap = new HashMap<>();
+        customerMap.put("customerId", AttributeValue.builder().n(customer.getCustomerId().toString()).build());
+        customerMap.put("fullName", AttributeValue.builder().s(customer.getFullName()).build());
+        if (customer.getEmail() != null) {
+            customerMap.put("email", AttributeValue.builder().s(customer.getEmail()).build());
+        }
+        item.put("customer", AttributeValue.builder().m(customerMap).build());
+
+        // Restaurant details
+        Map<String, AttributeValue> restaurantMap = new HashMap<>();
+        restaurantMap.put("restaurantId", AttributeValue.builder().n(restaurant.getRestaurantId().toString()).build());
+        restaurantMap.put("name", AttributeValue.builder().s(restaurant.getName()).build());
+        item.put("restaurant", AttributeValue.builder().m(restaurantMap).build());
+
+        // Payment details
+        if (order.getPaymentId() != null) {
+            item.put("paymentId", AttributeValue.builder().s(order.getPaymentId()).build());
+        }
 
-                orderItemsList.add(AttributeValue.builder().m(orderItemMap).build());
+        // Discount as charged at checkout
+        if (order.getDiscountAmount() != null) {
+            item.put("discountAmount", AttributeValue.builder().n(order.getDiscountAmount().toString()).build());
+        }
+        if (order.getDiscountCode() != null) {
+            item.put("discountCode", AttributeValue.builder().s(order.getDiscountCode()).build());
+        }
+        if (order.getAppliedRuleIds() != null) {
+            List<AttributeValue> ruleIds = new ArrayList<>();
+            for (String ruleId : order.getAppliedRuleIds().split(",")) {
+                ruleIds.add(AttributeValue.builder().n(ruleId).build());
             }
-            item.put("orderItems", AttributeValue.builder().l(orderItemsList).build());
+            item.put("appliedRuleIds", AttributeValue.builder().l(ruleIds).build());
+        }
 
-            // Additional details
-            if (order.getPickupInstructions() != null) {
-                item.put("pickupInstructions", AttributeValue.builder().s(order.getPickupInstructions()).build());
+        // Order items
+        List<AttributeValue> orderItemsList = new ArrayList<>();
+        for (OrderItem orderItem : orderItems) {
+            Map<String, AttributeValue> orderItemMap = new HashMap<>();
+            orderItemMap.put("orderItemId", AttributeValue.builder().n(orderItem.getOrderItemId().toString()).build());
+
+            if (orderItem.getMenuItem() != null) {
+                orderItemMap.put("menuItemId", AttributeValue.builder().n(orderItem.getMenuItem().getItemId().toString()).build());
+                orderItemMap.put("menuItemName", AttributeValue.builder().s(orderItem.getItemName() != null ?
+                        orderItem.getItemName() : orderItem.getMenuItem().getName()).build());
+            } else if (orderItem.getItemName() != null) {
+                orderItemMap.put("menuItemName", AttributeValue.builder().s(orderItem.getItemName()).build());
             }
 
-            if (order.getStatusHistory() != null) {
-                item.put("statusHistory", AttributeValue.builder().s(order.getStatusHistory()).build());
+            orderItemMap.put("quantity", AttributeValue.builder().n(orderItem.getQuantity().toString()).build());
+            orderItemMap.put("price", AttributeValue.builder().n(orderItem.getPrice().toString()).build());
+            orderItemMap.put("subtotal", AttributeValue.builder().n(orderItem.getSubtotal().toString()).build());
+
+            if (orderItem.getSpecialInstructions() != null) {
+                orderItemMap.put("specialInstructions", AttributeValue.builder().s(orderItem.getSpecialInstructions()).build());
             }
 
-            // Save to DynamoDB
-            PutItemRequest request = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(item)
-                    .build();
+            if (orderItem.getVariant() != null) {
+                Map<String, AttributeValue> variantMap = new HashMap<>();
+                variantMap.put("variantId", AttributeValue.builder().n(orderItem.getVariant().getVariantId().toString()).build());
+                variantMap.put("variantName", AttributeValue.builder().s(orderItem.getVariantName() != null ?
+                        orderItem.getVariantName() : orderItem.getVariant().getVariantName()).build());
+                orderItemMap.put("variant", AttributeValue.builder().m(variantMap).build());
+            } else if (orderItem.getVariantName() != null) {
+                Map<String, AttributeValue> variantMap = new HashMap<>();
+                variantMap.put("variantName", AttributeValue.builder().s(orderItem.getVariantName()).build());
+                orderItemMap.put("variant", AttributeValue.builder().m(variantMap).build());
+            }
 
-            dynamoDbClient.putItem(request);
-            logger.info("Order {} saved to DynamoDB successfully", order.getOrderId());
-        } catch (Exception e) {
-            logger.error("Error saving order to DynamoDB: {}", e.getMessage());
+            orderItemsList.add(AttributeValue.builder().m(orderItemMap).build());
+        }
+        item.put("orderItems", AttributeValue.builder().l(orderItemsList).build());
+
+        // Additional details
+        if (order.getPickupInstructions() != null) {
+            item.put("pickupInstructions", AttributeValue.builder().s(order.getPickupInstructions()).build());
+        }
+
+        if (statusHistory != null) {
+            item.put("statusHistory", AttributeValue.builder().s(statusHistory).build());
         }
+
+        return item;
     }
 
     /**
@@ -0,0 +1,361 @@
+package com.restaurant.ordersystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.restaurant.ordersystem.dto.OrderRequestDTO;
+import com.restaurant.ordersystem.dto.OrderResponseDTO;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.model.IdempotencyRecord;
+import com.restaurant.ordersystem.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates order placement by Idempotency-Key.
+ *
+ * Lookups go to an in-memory hot tier first, then to the idempotency_keys table. The hot
+ * tier is a Caffeine cache of the most recently used {@code hot-tier.max-entries} responses,
+ * each expiring with its key. Concurrent
+ * requests with the same key on one instance wait for the first one instead of running
+ * placeOrder again; across instances the key row is inserted before the order in the same
+ * transaction, so a second instance blocks on the primary key until the first commits and
+ * then replays its response.
+ *
+ * Orders accepted asynchronously claim their key when they are queued and store their
+ * response when they are placed, so a retry in either mode finds the same order.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long ttlHours;
+    private final Cache<String, CachedResponse> hotTier;
+    private final Map<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.in-flight-wait-seconds:30}")
+    private long inFlightWaitSeconds = 30;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              OrderService orderService,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.hot-tier.max-entries:10000}") int hotTierMaxEntries) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlHours = ttlHours;
+        this.hotTier = Caffeine.newBuilder()
+                .maximumSize(hotTierMaxEntries)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse cached, long currentTime) {
+                        return Math.max(0, Duration.between(LocalDateTime.now(), cached.expiresAt).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse cached, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, cached, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse cached, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Place an order at most once per Idempotency-Key within the TTL.
+     *
+     * @param idempotencyKey Client supplied key
+     * @param orderRequest Order request
+     * @return The order response and whether it is a replay of an earlier request
+     */
+    public IdempotentResponse placeOrder(String idempotencyKey, OrderRequestDTO orderRequest) {
+        validateKey(idempotencyKey);
+        String requestHash = hashRequest(orderRequest);
+
+        CachedResponse cached = hotTier.getIfPresent(idempotencyKey);
+        if (cached != null) {
+            checkSameRequest(cached.requestHash, requestHash);
+            return new IdempotentResponse(cached.response, true);
+        }
+
+        InFlightRequest own = new InFlightRequest(requestHash);
+        InFlightRequest leader = inFlight.putIfAbsent(idempotencyKey, own);
+        if (leader != null) {
+            checkSameRequest(leader.requestHash, requestHash);
+            return new IdempotentResponse(awaitLeader(leader), true);
+        }
+
+        try {
+            IdempotentResponse result = placeOrClaim(idempotencyKey, requestHash, orderRequest);
+            own.future.complete(result.getResponse());
+            return result;
+        } catch (RuntimeException e) {
+            own.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, own);
+        }
+    }
+
+    /**
+     * Claim an Idempotency-Key for an order accepted asynchronously. Runs in the caller's
+     * transaction, which also queues the order; a concurrent claim fails on the primary key.
+     *
+     * @param idempotencyKey Client supplied key
+     * @param orderRequest Order request
+     * @param orderId Order id assigned to the accepted order
+     * @return The claim of an earlier request with this key, or empty if the key is now claimed for orderId
+     */
+    public Optional<IdempotencyRecord> claimForAsync(String idempotencyKey, OrderRequestDTO orderRequest, String orderId) {
+        validateKey(idempotencyKey);
+        String requestHash = hashRequest(orderRequest);
+        LocalDateTime now = LocalDateTime.now();
+
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(idempotencyKey);
+        if (existing.isPresent()) {
+            if (existing.get().getExpiresAt().isAfter(now)) {
+                checkSameRequest(existing.get().getRequestHash(), requestHash);
+                return existing;
+            }
+            idempotencyRecordRepository.delete(existing.get());
+            idempotencyRecordRepository.flush();
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestHash(requestHash);
+        record.setOrderId(orderId);
+        record.setCreatedDateTime(now);
+        record.setExpiresAt(now.plusHours(ttlHours));
+        idempotencyRecordRepository.saveAndFlush(record);
+        return Optional.empty();
+    }
+
+    /**
+     * Claim that won over a concurrent {@link #claimForAsync} with the same key.
+     */
+    public Optional<IdempotencyRecord> findClaim(String idempotencyKey, OrderRequestDTO orderRequest) {
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(idempotencyKey);
+        if (existing.isPresent()) {
+            checkSameRequest(existing.get().getRequestHash(), hashRequest(orderRequest));
+        }
+        return existing;
+    }
+
+    /**
+     * Store the response of an order accepted asynchronously, in the transaction that places it.
+     */
+    public void recordResponse(String idempotencyKey, OrderResponseDTO response) {
+        idempotencyRecordRepository.findById(idempotencyKey).ifPresent(record -> {
+            record.setResponseBody(writeResponse(response));
+            idempotencyRecordRepository.save(record);
+        });
+    }
+
+    private IdempotentResponse placeOrClaim(String idempotencyKey, String requestHash, OrderRequestDTO orderRequest) {
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(idempotencyKey);
+        if (existing.isPresent() && existing.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+            return replay(existing.get(), requestHash);
+        }
+
+        try {
+            OrderResponseDTO response = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (existing.isPresent()) {
+                    // Expired key being reused; delete first, Hibernate would otherwise order the insert before the delete
+                    idempotencyRecordRepository.delete(existing.get());
+                    idempotencyRecordRepository.flush();
+                }
+
+                // Claim the key before placing the order; a concurrent claim fails on the primary key
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setIdempotencyKey(idempotencyKey);
+                record.setRequestHash(requestHash);
+                record.setCreatedDateTime(now);
+                record.setExpiresAt(now.plusHours(ttlHours));
+                idempotencyRecordRepository.saveAndFlush(record);
+
+                OrderResponseDTO placed = orderService.placeOrder(orderRequest);
+
+                record.setOrderId(placed.getOrderId());
+                record.setResponseBody(writeResponse(placed));
+                idempotencyRecordRepository.save(record);
+                return placed;
+            });
+
+            cache(idempotencyKey, requestHash, response, LocalDateTime.now().plusHours(ttlHours));
+            return new IdempotentResponse(response, false);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance placed the order under this key first
+            logger.info("Idempotency-Key {} was claimed concurrently, replaying stored response", idempotencyKey);
+            IdempotencyRecord winner = idempotencyRecordRepository.findById(idempotencyKey)
+                    .orElseThrow(() -> e);
+            return replay(winner, requestHash);
+        }
+    }
+
+    private IdempotentResponse replay(IdempotencyRecord record, String requestHash) {
+        checkSameRequest(record.getRequestHash(), requestHash);
+        if (record.getResponseBody() == null) {
+            // Claimed by an order accepted asynchronously that has not been placed
+            throw new InvalidOrderException("Idempotency-Key was used for order " + record.getOrderId()
+                    + " accepted asynchronously; poll /api/orders/" + record.getOrderId());
+        }
+        OrderResponseDTO response = readResponse(record.getResponseBody());
+        cache(record.getIdempotencyKey(), record.getRequestHash(), response, record.getExpiresAt());
+        logger.info("Replaying order {} for Idempotency-Key {}", record.getOrderId(), record.getIdempotencyKey());
+        return new IdempotentResponse(response, true);
+    }
+
+    private OrderResponseDTO awaitLeader(InFlightRequest leader) {
+        try {
+            return leader.future.get(inFlightWaitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // Same outcome as the request we waited for
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new InvalidOrderException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight request", e);
+        }
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidOrderException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new InvalidOrderException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private void cache(String idempotencyKey, String requestHash, OrderResponseDTO response, LocalDateTime expiresAt) {
+        hotTier.put(idempotencyKey, new CachedResponse(requestHash, response, expiresAt));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private String hashRequest(OrderRequestDTO orderRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(objectMapper.writeValueAsBytes(orderRequest));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Unable to hash order request", e);
+        }
+    }
+
+    private String writeResponse(OrderResponseDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize order response", e);
+        }
+    }
+
+    private OrderResponseDTO readResponse(String body) {
+        try {
+            return objectMapper.readValue(body.getBytes(StandardCharsets.UTF_8), OrderResponseDTO.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read stored order response", e);
+        }
+    }
+
+    /**
+     * Order response together with whether it was replayed from an earlier request.
+     */
+    public static class IdempotentResponse {
+        private final OrderResponseDTO response;
+        private final boolean replayed;
+
+        public IdempotentResponse(OrderResponseDTO response, boolean replayed) {
+            this.response = response;
+            this.replayed = replayed;
+        }
+
+        public OrderResponseDTO getResponse() {
+            return response;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    private static class CachedResponse {
+        private final String requestHash;
+        private final OrderResponseDTO response;
+        private final LocalDateTime expiresAt;
+
+        CachedResponse(String requestHash, OrderResponseDTO response, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class InFlightRequest {
+        private final String requestHash;
+        private final CompletableFuture<OrderResponseDTO> future = new CompletableFuture<>();
+
+        InFlightRequest(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
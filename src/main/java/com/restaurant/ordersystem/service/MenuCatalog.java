@@ -0,0 +1,174 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Category;
+import com.restaurant.ordersystem.model.MenuItem;
+import com.restaurant.ordersystem.model.SubCategory;
+import com.restaurant.ordersystem.model.Variant;
+import com.restaurant.ordersystem.util.MinorUnits;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One version of the menu: menu items, variants, categories and subcategories as loaded
+ * by a single rebuild. Never modified after construction; a newer menu is a new instance.
+ * The entities are detached copies shared by all readers and must not be changed.
+ *
+ * Prices are also kept as a table of minor units in arrays sorted by id, for pricing carts
+ * without BigDecimal arithmetic or boxed lookups.
+ */
+public final class MenuCatalog {
+
+    private final long version;
+    private final LocalDateTime builtAt;
+    private final List<MenuItem> menuItems;
+    private final List<Category> categories;
+    private final List<SubCategory> subCategories;
+    private final Map<Integer, MenuItem> menuItemsById;
+    private final Map<Integer, Category> categoriesById;
+    private final Map<Integer, Variant> variantsById;
+    private final Map<Integer, List<Variant>> variantsByItemId;
+
+    // Price table: item ids with their price and category, and variant ids with their
+    // surcharge and item, each sorted by id
+    private final int[] itemIds;
+    private final long[] itemPrices;
+    private final int[] itemCategoryIds;
+    private final int[] variantIds;
+    private final long[] variantPrices;
+    private final int[] variantItemIds;
+
+    MenuCatalog(long version, LocalDateTime builtAt, List<MenuItem> menuItems, List<Variant> variants,
+                List<Category> categories, List<SubCategory> subCategories) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.menuItems = Collections.unmodifiableList(new ArrayList<>(menuItems));
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+        this.subCategories = Collections.unmodifiableList(new ArrayList<>(subCategories));
+
+        Map<Integer, MenuItem> items = new HashMap<>();
+        for (MenuItem menuItem : menuItems) {
+            items.put(menuItem.getItemId(), menuItem);
+        }
+        this.menuItemsById = Collections.unmodifiableMap(items);
+
+        Map<Integer, Category> categoryMap = new HashMap<>();
+        for (Category category : categories) {
+            categoryMap.put(category.getCategoryId(), category);
+        }
+        this.categoriesById = Collections.unmodifiableMap(categoryMap);
+
+        Map<Integer, Variant> variantMap = new HashMap<>();
+        Map<Integer, List<Variant>> byItem = new LinkedHashMap<>();
+        for (Variant variant : variants) {
+            variantMap.put(variant.getVariantId(), variant);
+            byItem.computeIfAbsent(variant.getItem().getItemId(), id -> new ArrayList<>()).add(variant);
+        }
+        byItem.replaceAll((id, list) -> Collections.unmodifiableList(list));
+        this.variantsById = Collections.unmodifiableMap(variantMap);
+        this.variantsByItemId = Collections.unmodifiableMap(byItem);
+
+        MenuItem[] sortedItems = menuItems.toArray(new MenuItem[0]);
+        Arrays.sort(sortedItems, (a, b) -> Integer.compare(a.getItemId(), b.getItemId()));
+        itemIds = new int[sortedItems.length];
+        itemPrices = new long[sortedItems.length];
+        itemCategoryIds = new int[sortedItems.length];
+        for (int i = 0; i < sortedItems.length; i++) {
+            itemIds[i] = sortedItems[i].getItemId();
+            itemPrices[i] = MinorUnits.toMinor(sortedItems[i].getPrice());
+            itemCategoryIds[i] = sortedItems[i].getCategory() != null
+                    ? sortedItems[i].getCategory().getCategoryId() : CartLines.NO_CATEGORY;
+        }
+
+        Variant[] sortedVariants = variants.toArray(new Variant[0]);
+        Arrays.sort(sortedVariants, (a, b) -> Integer.compare(a.getVariantId(), b.getVariantId()));
+        variantIds = new int[sortedVariants.length];
+        variantPrices = new long[sortedVariants.length];
+        variantItemIds = new int[sortedVariants.length];
+        for (int i = 0; i < sortedVariants.length; i++) {
+            variantIds[i] = sortedVariants[i].getVariantId();
+            variantPrices[i] = MinorUnits.toMinor(sortedVariants[i].getPrice());
+            variantItemIds[i] = sortedVariants[i].getItem().getItemId();
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public List<MenuItem> getMenuItems() {
+        return menuItems;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public List<SubCategory> getSubCategories() {
+        return subCategories;
+    }
+
+    public Optional<MenuItem> findMenuItem(Integer itemId) {
+        return Optional.ofNullable(menuItemsById.get(itemId));
+    }
+
+    public Optional<Category> findCategory(Integer categoryId) {
+        return Optional.ofNullable(categoriesById.get(categoryId));
+    }
+
+    public Optional<Variant> findVariant(Integer variantId) {
+        return Optional.ofNullable(variantsById.get(variantId));
+    }
+
+    public List<Variant> getVariants(Integer itemId) {
+        return variantsByItemId.getOrDefault(itemId, Collections.emptyList());
+    }
+
+    /**
+     * Position of a menu item in the price table, or a negative number if it is not on the menu.
+     */
+    public int indexOfItem(int itemId) {
+        return Arrays.binarySearch(itemIds, itemId);
+    }
+
+    public long getItemPriceMinor(int itemIndex) {
+        return itemPrices[itemIndex];
+    }
+
+    public int getItemCategoryId(int itemIndex) {
+        return itemCategoryIds[itemIndex];
+    }
+
+    /**
+     * Position of a variant in the price table, or a negative number if it is not on the menu.
+     */
+    public int indexOfVariant(int variantId) {
+        return Arrays.binarySearch(variantIds, variantId);
+    }
+
+    /**
+     * Amount a variant adds to its item's price, in minor units.
+     */
+    public long getVariantPriceMinor(int variantIndex) {
+        return variantPrices[variantIndex];
+    }
+
+    public int getVariantItemId(int variantIndex) {
+        return variantItemIds[variantIndex];
+    }
+
+    public Optional<String> findName(Integer itemId) {
+        return findMenuItem(itemId).map(MenuItem::getName);
+    }
+}
@@ -0,0 +1,103 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Category;
+import com.restaurant.ordersystem.model.MenuItem;
+import com.restaurant.ordersystem.model.SubCategory;
+import com.restaurant.ordersystem.model.Variant;
+import com.restaurant.ordersystem.repository.CategoryRepository;
+import com.restaurant.ordersystem.repository.MenuItemRepository;
+import com.restaurant.ordersystem.repository.SubCategoryRepository;
+import com.restaurant.ordersystem.repository.VariantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link MenuCatalog} and swaps in a new one when the menu changes.
+ *
+ * Reads never touch the database: they get whatever snapshot is current. The menu and
+ * category endpoints call {@link #refresh()} after each change, which loads the whole menu
+ * in one read-only transaction and replaces the reference in one step, so readers see
+ * either the old or the new menu and never a mix. Changes made by other instances or
+ * directly in the database are picked up by the periodic rebuild.
+ */
+@Service
+public class MenuCatalogService {
+    private static final Logger logger = LoggerFactory.getLogger(MenuCatalogService.class);
+
+    private final MenuItemRepository menuItemRepository;
+    private final VariantRepository variantRepository;
+    private final CategoryRepository categoryRepository;
+    private final SubCategoryRepository subCategoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<MenuCatalog> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+    private long lastVersion;
+
+    public MenuCatalogService(MenuItemRepository menuItemRepository,
+                              VariantRepository variantRepository,
+                              CategoryRepository categoryRepository,
+                              SubCategoryRepository subCategoryRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.menuItemRepository = menuItemRepository;
+        this.variantRepository = variantRepository;
+        this.categoryRepository = categoryRepository;
+        this.subCategoryRepository = subCategoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * The current menu, built on first use.
+     */
+    public MenuCatalog getCatalog() {
+        MenuCatalog catalog = current.get();
+        return catalog != null ? catalog : refresh();
+    }
+
+    /**
+     * Rebuild the catalog from the database and make it current.
+     *
+     * @return The new catalog
+     */
+    public MenuCatalog refresh() {
+        // Serialized so that a slow rebuild cannot overwrite the result of a later one
+        synchronized (rebuildLock) {
+            MenuCatalog catalog = readOnlyTransaction.execute(status -> load(lastVersion + 1));
+            lastVersion = catalog.getVersion();
+            current.set(catalog);
+            logger.info("Menu catalog version {} built with {} menu items", catalog.getVersion(),
+                    catalog.getMenuItems().size());
+            return catalog;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${menu.catalog.refresh-interval-ms:60000}",
+               initialDelayString = "${menu.catalog.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Keep serving the previous catalog
+            logger.error("Failed to rebuild menu catalog", e);
+        }
+    }
+
+    private MenuCatalog load(long version) {
+        // Categories and menu items first: subcategories and variants then resolve their category/item
+        // from the persistence context instead of separate selects
+        List<Category> categories = categoryRepository.findAll();
+        List<MenuItem> menuItems = menuItemRepository.findAllWithCategories();
+        List<SubCategory> subCategories = subCategoryRepository.findAllWithCategory();
+        List<Variant> variants = variantRepository.findAllWithItem();
+        return new MenuCatalog(version, LocalDateTime.now(), menuItems, variants, categories, subCategories);
+    }
+}
@@ -0,0 +1,182 @@
+package com.restaurant.ordersystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized menu responses for the current menu catalog version.
+ *
+ * The JSON of each menu resource is rendered and gzipped once per catalog version and
+ * kept as byte arrays together with a strong ETag (SHA-256 of the JSON). Requests are
+ * answered from those buffers: 304 when If-None-Match matches, otherwise the gzip or plain
+ * bytes depending on Accept-Encoding.
+ */
+@Component
+public class MenuPayloadCache {
+    private static final Logger logger = LoggerFactory.getLogger(MenuPayloadCache.class);
+
+    public enum Resource {
+        MENU_ITEMS, CATEGORIES
+    }
+
+    private final MenuCatalogService menuCatalogService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<VersionedPayloads> current = new AtomicReference<>();
+
+    public MenuPayloadCache(MenuCatalogService menuCatalogService, ObjectMapper objectMapper) {
+        this.menuCatalogService = menuCatalogService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Build the response for a menu resource.
+     *
+     * @param resource Menu resource
+     * @param ifNoneMatch If-None-Match request header, may be null
+     * @param acceptEncoding Accept-Encoding request header, may be null
+     * @return 304 without a body, or 200 with the cached JSON
+     */
+    public ResponseEntity<byte[]> respond(Resource resource, String ifNoneMatch, String acceptEncoding) {
+        Payload payload = getPayload(resource);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? payload.gzipEtag : payload.etag;
+
+        HttpStatus status = ifNoneMatch != null && payload.matches(ifNoneMatch) ? HttpStatus.NOT_MODIFIED : HttpStatus.OK;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (status == HttpStatus.NOT_MODIFIED) {
+            return builder.build();
+        }
+
+        builder.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip);
+        }
+        return builder.body(payload.json);
+    }
+
+    Payload getPayload(Resource resource) {
+        MenuCatalog catalog = menuCatalogService.getCatalog();
+        VersionedPayloads payloads = current.get();
+        if (payloads == null || payloads.version != catalog.getVersion()) {
+            payloads = render(catalog);
+            // A concurrent request may render the same or a newer version; never go back to an older one
+            current.accumulateAndGet(payloads, (existing, candidate) ->
+                    existing != null && existing.version > candidate.version ? existing : candidate);
+        }
+        return payloads.byResource.get(resource);
+    }
+
+    private VersionedPayloads render(MenuCatalog catalog) {
+        Map<Resource, Payload> byResource = new EnumMap<>(Resource.class);
+        byResource.put(Resource.MENU_ITEMS, toPayload(catalog.getMenuItems()));
+        byResource.put(Resource.CATEGORIES, toPayload(catalog.getCategories()));
+        logger.info("Rendered menu payloads for catalog version {}", catalog.getVersion());
+        return new VersionedPayloads(catalog.getVersion(), byResource);
+    }
+
+    private Payload toPayload(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            String hash = sha256(json);
+            return new Payload(json, gzip(json), "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize menu payload", e);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return !(parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to compress menu payload", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class VersionedPayloads {
+        private final long version;
+        private final Map<Resource, Payload> byResource;
+
+        VersionedPayloads(long version, Map<Resource, Payload> byResource) {
+            this.version = version;
+            this.byResource = byResource;
+        }
+    }
+
+    static class Payload {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final String gzipEtag;
+
+        Payload(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+        }
+
+        // Either encoding of the same JSON counts as a match; If-None-Match uses weak comparison
+        boolean matches(String ifNoneMatch) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals("*")) {
+                    return true;
+                }
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals(etag) || candidate.equals(gzipEtag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
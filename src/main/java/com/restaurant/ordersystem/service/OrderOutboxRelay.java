@@ -0,0 +1,205 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.dto.OrderStatusHistoryDTO;
+import com.restaurant.ordersystem.model.Order;
+import com.restaurant.ordersystem.model.OrderItem;
+import com.restaurant.ordersystem.model.OrderOutboxEvent;
+import com.restaurant.ordersystem.repository.OrderItemRepository;
+import com.restaurant.ordersystem.repository.OrderOutboxRepository;
+import com.restaurant.ordersystem.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Drains the order outbox into the DynamoDB mirror. Each run claims a batch of due events
+ * (skipping rows locked by other instances), rebuilds the current state of the affected
+ * orders and writes them with BatchWriteItem. Events whose write fails are rescheduled
+ * with exponential backoff, so every committed order eventually reaches DynamoDB.
+ *
+ * Claiming and recording the outcome are separate short transactions, and the DynamoDB
+ * write runs with no transaction open, so neither row locks nor a pooled connection are
+ * held while waiting on DynamoDB. A claimed event is IN_FLIGHT with a lease until
+ * nextAttemptAt; if its relay dies, another run claims it again once the lease expires.
+ */
+@Component
+public class OrderOutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final DynamoDBService dynamoDBService;
+    private final OrderStatusService orderStatusService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-backoff-seconds:300}")
+    private long maxBackoffSeconds;
+
+    @Value("${outbox.relay.retention-days:7}")
+    private int retentionDays;
+
+    // Longer than a BatchWriteItem run with all its retries may take
+    @Value("${outbox.relay.lease-seconds:120}")
+    private long leaseSeconds = 120;
+
+    public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository,
+                            OrderRepository orderRepository,
+                            OrderItemRepository orderItemRepository,
+                            DynamoDBService dynamoDBService,
+                            OrderStatusService orderStatusService,
+                            PlatformTransactionManager transactionManager) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.dynamoDBService = dynamoDBService;
+        this.orderStatusService = orderStatusService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relayPendingEvents() {
+        // Keep draining while full batches come back, so a backlog clears without waiting for the next tick
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed >= batchSize);
+    }
+
+    @Scheduled(cron = "${outbox.relay.cleanup-cron:0 0 * * * *}")
+    public void purgeSentEvents() {
+        Integer deleted = transactionTemplate.execute(status ->
+                orderOutboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            logger.info("Purged {} relayed outbox events", deleted);
+        }
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        // Whole seconds, so the lease compares equal after a round trip through a datetime column
+        LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.SECONDS);
+
+        List<OrderOutboxEvent> events = transactionTemplate.execute(status -> claim(now, leaseUntil));
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+
+        // Several events for the same order collapse into one write of its latest state;
+        // BatchWriteItem also rejects duplicate keys within a request
+        Set<String> orderIds = new LinkedHashSet<>();
+        for (OrderOutboxEvent event : events) {
+            orderIds.add(event.getOrderId());
+        }
+
+        Map<String, Map<String, AttributeValue>> documents;
+        Map<String, String> failures;
+        String batchError = null;
+        try {
+            documents = readOnlyTransaction.execute(status -> buildDocuments(orderIds));
+            failures = dynamoDBService.batchSaveOrders(documents);
+        } catch (RuntimeException e) {
+            logger.error("Outbox relay batch failed", e);
+            documents = Collections.emptyMap();
+            failures = Collections.emptyMap();
+            batchError = String.valueOf(e.getMessage());
+        }
+
+        Map<String, Map<String, AttributeValue>> written = documents;
+        Map<String, String> failed = failures;
+        String error = batchError;
+        transactionTemplate.execute(status -> {
+            finish(events, leaseUntil, written, failed, error, LocalDateTime.now());
+            return null;
+        });
+
+        logger.debug("Relayed {} outbox events for {} orders, {} failed", events.size(), documents.size(), failures.size());
+        return events.size();
+    }
+
+    private List<OrderOutboxEvent> claim(LocalDateTime now, LocalDateTime leaseUntil) {
+        List<OrderOutboxEvent> events = orderOutboxRepository.claimDueEvents(now, PageRequest.of(0, batchSize));
+        for (OrderOutboxEvent event : events) {
+            event.setStatus(OrderOutboxEvent.OutboxStatus.IN_FLIGHT);
+            event.setNextAttemptAt(leaseUntil);
+        }
+        return events;
+    }
+
+    private Map<String, Map<String, AttributeValue>> buildDocuments(Set<String> orderIds) {
+        Map<String, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        for (OrderItem item : orderItemRepository.findByOrderIdsWithMenuDetails(orderIds)) {
+            itemsByOrderId.computeIfAbsent(item.getOrder().getOrderId(), id -> new ArrayList<>()).add(item);
+        }
+
+        List<Order> orders = orderRepository.findAllById(orderIds);
+        Map<String, List<OrderStatusHistoryDTO>> histories = orderStatusService.getHistories(orders);
+
+        Map<String, Map<String, AttributeValue>> documents = new LinkedHashMap<>();
+        for (Order order : orders) {
+            documents.put(order.getOrderId(), dynamoDBService.buildOrderItem(order, order.getCustomer(),
+                    order.getRestaurant(), itemsByOrderId.getOrDefault(order.getOrderId(), Collections.emptyList()),
+                    orderStatusService.renderHistory(histories.get(order.getOrderId()))));
+        }
+        return documents;
+    }
+
+    private void finish(List<OrderOutboxEvent> claimed, LocalDateTime leaseUntil,
+                        Map<String, Map<String, AttributeValue>> documents, Map<String, String> failures,
+                        String batchError, LocalDateTime now) {
+        List<Long> ids = new ArrayList<>(claimed.size());
+        for (OrderOutboxEvent event : claimed) {
+            ids.add(event.getId());
+        }
+
+        for (OrderOutboxEvent event : orderOutboxRepository.findAllById(ids)) {
+            if (event.getStatus() != OrderOutboxEvent.OutboxStatus.IN_FLIGHT || !leaseUntil.equals(event.getNextAttemptAt())) {
+                // The lease ran out and another run took the event over
+                logger.warn("Outbox event {} was reclaimed before its relay finished", event.getId());
+            } else if (batchError != null) {
+                reschedule(event, now, batchError);
+            } else if (!documents.containsKey(event.getOrderId())) {
+                // Order no longer exists, nothing left to mirror
+                logger.warn("Dropping outbox event {} for missing order {}", event.getId(), event.getOrderId());
+                markSent(event, now, "order not found");
+            } else if (failures.containsKey(event.getOrderId())) {
+                reschedule(event, now, failures.get(event.getOrderId()));
+            } else {
+                markSent(event, now, null);
+            }
+        }
+    }
+
+    private void markSent(OrderOutboxEvent event, LocalDateTime now, String note) {
+        event.setStatus(OrderOutboxEvent.OutboxStatus.SENT);
+        event.setProcessedDateTime(now);
+        event.setLastError(note);
+    }
+
+    private void reschedule(OrderOutboxEvent event, LocalDateTime now, String error) {
+        int attempts = event.getAttempts() + 1;
+        long backoffSeconds = Math.min(maxBackoffSeconds, 1L << Math.min(attempts, 20));
+        event.setStatus(OrderOutboxEvent.OutboxStatus.PENDING);
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(now.plusSeconds(backoffSeconds));
+        event.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        logger.warn("Outbox event {} for order {} failed (attempt {}), retrying in {}s: {}",
+                event.getId(), event.getOrderId(), attempts, backoffSeconds, error);
+    }
+}
@@ -0,0 +1,42 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.OrderOutboxEvent;
+import com.restaurant.ordersystem.repository.OrderOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+public class OrderOutboxService {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    public OrderOutboxService(OrderOutboxRepository orderOutboxRepository) {
+        this.orderOutboxRepository = orderOutboxRepository;
+    }
+
+    /**
+     * Record that an order must be (re)written to the DynamoDB mirror.
+     * Must run inside the transaction that changes the order, so the event
+     * is committed or rolled back together with it.
+     *
+     * @param orderId Order ID
+     * @param eventType Kind of change
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String orderId, OrderOutboxEvent.EventType eventType) {
+        LocalDateTime now = LocalDateTime.now();
+
+        OrderOutboxEvent event = new OrderOutboxEvent();
+        event.setOrderId(orderId);
+        event.setEventType(eventType);
+        event.setStatus(OrderOutboxEvent.OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(now);
+        event.setCreatedDateTime(now);
+
+        orderOutboxRepository.save(event);
+    }
+}
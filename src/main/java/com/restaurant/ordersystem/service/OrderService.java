@@ -1,33 +1,62 @@
 package com.restaurant.ordersystem.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.restaurant.ordersystem.dto.OrderItemDTO;
+import com.restaurant.ordersystem.dto.OrderPageDTO;
 import com.restaurant.ordersystem.dto.OrderRequestDTO;
 import com.restaurant.ordersystem.dto.OrderResponseDTO;
-import com.restaurant.ordersystem.exception.InvalidCouponException;
+import com.restaurant.ordersystem.dto.OrderSearchFilter;
+import com.restaurant.ordersystem.dto.OrderStatusHistoryDTO;
 import com.restaurant.ordersystem.exception.InvalidOrderException;
 import com.restaurant.ordersystem.exception.ResourceNotFoundException;
 import com.restaurant.ordersystem.model.*;
 import com.restaurant.ordersystem.repository.*;
+import com.restaurant.ordersystem.util.MinorUnits;
+import com.restaurant.ordersystem.util.OrderCursor;
+import com.restaurant.ordersystem.util.OrderIdGenerator;
 import com.restaurant.ordersystem.util.RestaurantHoursUtil;
+import com.restaurant.ordersystem.util.SpecialHoursIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    // Upper bound for the number of ids sent in one IN (...) list when loading order details
+    private static final int ORDER_DETAILS_BATCH_SIZE = 500;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Orders converted and written per batch by the export before the persistence context is cleared
+    private static final int EXPORT_BATCH_SIZE = 500;
+
+    private static final String CSV_HEADER = "orderId,customerId,customerName,restaurantId,restaurantName,"
+            + "paymentId,paymentMethod,paymentStatus,orderDate,deliveryDate,orderStatus,totalItems,"
+            + "totalPrice,discountValue,finalPrice,couponCode,pickupInstructions";
+
+    public enum ExportFormat {
+        NDJSON, CSV
+    }
+
     private final CustomerRepository customerRepository;
     private final RestaurantRepository restaurantRepository;
     private final CartRepository cartRepository;
@@ -42,9 +71,16 @@ public class OrderService {
     private final RestaurantWorkingHoursRepository restaurantWorkingHoursRepository;
     private final PaymentService paymentService;
     private final DiscountService discountService;
-    private final DynamoDBService dynamoDBService;
+    private final DiscountRuleService discountRuleService;
+    private final CartPricingService cartPricingService;
+    private final OrderOutboxService orderOutboxService;
+    private final OrderStatusService orderStatusService;
+    private final PickupSlotService pickupSlotService;
     private final RestaurantHoursUtil restaurantHoursUtil;
     private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    // Runs each export batch's detail queries on a second connection while the first streams orders
+    private final TransactionTemplate exportBatchTransaction;
 
     public OrderService(CustomerRepository customerRepository,
                         RestaurantRepository restaurantRepository,
@@ -60,9 +96,15 @@ public class OrderService {
                         RestaurantWorkingHoursRepository restaurantWorkingHoursRepository,
                         PaymentService paymentService,
                         DiscountService discountService,
-                        DynamoDBService dynamoDBService,
+                        DiscountRuleService discountRuleService,
+                        CartPricingService cartPricingService,
+                        OrderOutboxService orderOutboxService,
+                        OrderStatusService orderStatusService,
+                        PickupSlotService pickupSlotService,
                         RestaurantHoursUtil restaurantHoursUtil,
-                        ObjectMapper objectMapper) {
+                        ObjectMapper objectMapper,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager) {
         this.customerRepository = customerRepository;
         this.restaurantRepository = restaurantRepository;
         this.cartRepository = cartRepository;
@@ -77,19 +119,42 @@ public class OrderService {
         this.restaurantWorkingHoursRepository = restaurantWorkingHoursRepository;
         this.paymentService = paymentService;
         this.discountService = discountService;
-        this.dynamoDBService = dynamoDBService;
+        this.discountRuleService = discountRuleService;
+        this.cartPricingService = cartPricingService;
+        this.orderOutboxService = orderOutboxService;
+        this.orderStatusService = orderStatusService;
+        this.pickupSlotService = pickupSlotService;
         this.restaurantHoursUtil = restaurantHoursUtil;
         this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.exportBatchTransaction = new TransactionTemplate(transactionManager);
+        this.exportBatchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.exportBatchTransaction.setReadOnly(true);
     }
 
     @Transactional
     public OrderResponseDTO placeOrder(OrderRequestDTO orderRequest) {
+        return placeOrder(orderRequest, null);
+    }
+
+    /**
+     * Place an order under an id that was handed out before processing started
+     * (asynchronous placement), or under a newly generated id when orderId is null.
+     */
+    @Transactional
+    public OrderResponseDTO placeOrder(OrderRequestDTO orderRequest, String orderId) {
         // 1. Validate required fields
         validateOrderRequest(orderRequest);
 
-        // 2. Get customer and restaurant
-        Customer customer = customerRepository.findById(orderRequest.getCustomerId())
-                .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", orderRequest.getCustomerId()));
+        // 2. Load the checkout context: the active cart with its customer, items, menu items,
+        //    categories and variants in one query; the customer is only looked up on its own
+        //    when there is no active cart, to report a missing customer before a missing cart
+        Optional<Cart> activeCart = cartRepository.findCheckoutCart(orderRequest.getCustomerId(), "ACTIVE");
+
+        Customer customer = activeCart.isPresent()
+                ? activeCart.get().getCustomer()
+                : customerRepository.findById(orderRequest.getCustomerId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", orderRequest.getCustomerId()));
 
         Restaurant restaurant = restaurantRepository.findById(orderRequest.getRestaurantId())
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant", "id", orderRequest.getRestaurantId()));
@@ -98,72 +163,111 @@ public class OrderService {
         checkRestaurantAvailability(restaurant, orderRequest.getDeliveryDate());
 
         // 4. Get active cart for customer
-        Cart cart = cartRepository.findByCustomerAndStatus(customer, "ACTIVE")
+        Cart cart = activeCart
                 .orElseThrow(() -> new InvalidOrderException("No active cart found for customer"));
 
         // 5. Check if cart has items
-        List<CartItem> cartItems = cartItemRepository.findByCart(cart);
+        List<CartItem> cartItems = cart.getCartItems();
         if (cartItems.isEmpty()) {
             throw new InvalidOrderException("Cart is empty. Cannot place order with empty cart.");
         }
 
-       // 6. Calculate prices and apply discounts
-BigDecimal totalPrice = cart.getTotalAmount();
-BigDecimal discountValue = BigDecimal.ZERO;
-String appliedCouponCode = null;
+        // Price the cart from the current menu rather than the prices stored on its lines
+        CartLines cartLines = cartPricingService.price(cartItems);
 
-// Apply coupon/voucher/referral if provided
-String code = orderRequest.getCouponCode();
-if (code != null && !code.isEmpty()) {
-    try {
-        // Try as Coupon
-        Coupon coupon = discountService.validateCoupon(code);
-        discountValue = discountService.applyCouponDiscount(coupon, totalPrice);
-        appliedCouponCode = coupon.getCouponCode();
-        logger.info("Coupon applied successfully: {}", code);
-    } catch (InvalidCouponException e1) {
-        logger.info("Not a valid coupon, trying as voucher: {}", e1.getMessage());
-
-        try {
-            // Try as Voucher
-            Voucher voucher = discountService.validateVoucher(code);
-            discountValue = discountService.applyVoucherDiscount(voucher, totalPrice);
-            appliedCouponCode = voucher.getVoucherCode();
-            logger.info("Voucher applied successfully: {}", code);
-        } catch (InvalidCouponException e2) {
-            logger.info("Not a valid voucher, trying as referral: {}", e2.getMessage());
-
-            try {
-                // Try as Referral
-                Referral referral = discountService.validateReferral(code, customer);
-                discountValue = discountService.applyReferralDiscount(referral, totalPrice);
-                appliedCouponCode = referral.getReferralCode();
-                discountService.markReferralAsUsed(referral);
-                logger.info("Referral applied successfully: {}", code);
-            } catch (Exception e3) {
-                logger.warn("Invalid referral code: {} - {}", code, e3.getMessage());
+        // Hold a place in the pickup slot; it is given back if the order is not placed
+        pickupSlotService.reserveSlot(restaurant, orderRequest.getDeliveryDate());
+
+        // 6. Calculate prices and apply discounts
+        BigDecimal totalPrice = MinorUnits.toAmount(cartLines.getTotal());
+        BigDecimal discountValue = BigDecimal.ZERO;
+        String appliedCouponCode = null;
+        Coupon appliedCoupon = null;
+
+        // Apply coupon/voucher/referral if provided; the code is resolved in one lookup and an
+        // unusable code is logged and ignored. Anything else, e.g. a failed redemption UPDATE,
+        // fails the order rather than committing it with the code used up and no discount
+        String code = orderRequest.getCouponCode();
+        if (code != null && !code.isEmpty()) {
+            DiscountCodeResolution resolution = discountService.resolveCode(code, customer);
+            if (!resolution.isValid()) {
+                logger.info("Discount code not applied: {}", resolution.getRejectionReason());
+            } else {
+                switch (resolution.getType()) {
+                    case COUPON:
+                        // Price first, so that a code that gives nothing (e.g. below a coupon's
+                        // minimum order value) is neither used up nor attached; the same holds
+                        // for vouchers and referrals
+                        BigDecimal couponDiscount = discountService.applyCouponDiscount(
+                                resolution.getCoupon(), totalPrice);
+                        if (couponDiscount.signum() <= 0) {
+                            logger.info("Coupon {} gives no discount on this order", code);
+                        } else if (discountService.markCouponAsUsed(resolution.getCoupon(), customer)) {
+                            discountValue = couponDiscount;
+                            appliedCoupon = resolution.getCoupon();
+                            appliedCouponCode = appliedCoupon.getCouponCode();
+                            logger.info("Coupon applied successfully: {}", code);
+                        } else {
+                            logger.info("Coupon {} reached its per-customer limit", code);
+                        }
+                        break;
+                    case VOUCHER:
+                        // Only the one order that wins a single-use voucher gets its discount
+                        BigDecimal voucherDiscount = discountService.calculateVoucherDiscount(
+                                resolution.getVoucher(), totalPrice, cartLines);
+                        if (voucherDiscount.signum() <= 0) {
+                            logger.info("Voucher {} gives no discount on this order", code);
+                        } else if (discountService.markVoucherAsUsed(resolution.getVoucher())) {
+                            discountValue = voucherDiscount;
+                            appliedCouponCode = resolution.getVoucher().getVoucherCode();
+                            logger.info("Voucher applied successfully: {}", code);
+                        } else {
+                            logger.info("Voucher {} was already redeemed by another order", code);
+                        }
+                        break;
+                    case REFERRAL:
+                        BigDecimal referralDiscount = discountService.calculateReferralDiscount(
+                                resolution.getReferral(), totalPrice);
+                        if (referralDiscount.signum() <= 0) {
+                            logger.info("Referral {} gives no discount on this order", code);
+                        } else if (discountService.markReferralAsUsed(resolution.getReferral())) {
+                            discountValue = referralDiscount;
+                            appliedCouponCode = resolution.getReferral().getReferralCode();
+                            logger.info("Referral applied successfully: {}", code);
+                        } else {
+                            logger.info("Referral {} was already redeemed by another order", code);
+                        }
+                        break;
+                }
             }
         }
-    } catch (Exception ex) {
-        logger.error("Error applying discount: {}", ex.getMessage());
-    }
-}
 
-BigDecimal finalPrice = totalPrice.subtract(discountValue);
+        // Campaign rules stack on top of the code discount, up to what is left of the total
+        DiscountRulePipeline.Result campaign = discountRuleService.evaluate(
+                cartLines, MinorUnits.toMinor(totalPrice.subtract(discountValue)));
+        if (campaign.getDiscount() > 0) {
+            discountValue = discountValue.add(MinorUnits.toAmount(campaign.getDiscount()));
+        }
+        List<Integer> appliedRuleIds = new ArrayList<>();
+        for (int ruleId : campaign.getAppliedRuleIds()) {
+            appliedRuleIds.add(ruleId);
+        }
 
+        BigDecimal finalPrice = totalPrice.subtract(discountValue);
 
-// 7. Create payment (only if online payment)
+        // 7. Create payment (only if online payment)
         String paymentId = null;
 
         if (orderRequest.getPaymentMethod().equalsIgnoreCase("UPI")) {
-        paymentId = paymentService.createPayment(
-        customer.getCustomerId(),
-        finalPrice,
-        PaymentStatus.PAID.name());  // using enum name to avoid typos
+            paymentId = paymentService.createPayment(
+                    customer,
+                    finalPrice,
+                    PaymentStatus.PAID.name());  // using enum name to avoid typos
         }
 
         // 8. Create order
         Order order = new Order();
+        order.setOrderId(orderId);
         order.setCustomer(customer);
         order.setRestaurant(restaurant);
         order.setPaymentId(paymentId);
@@ -173,35 +277,22 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         order.setPickupInstructions(orderRequest.getPickupInstructions());
         order.setLastModifiedDateTime(LocalDateTime.now());
 
-        // Set coupon if applied
-        if (appliedCouponCode != null) {
-            Coupon coupon = couponRepository.findByCouponCode(appliedCouponCode).orElse(null);
-            if (coupon != null) {
-                order.setCoupon(coupon);
-            }
-        }
-
-        // Create status history
-        Map<String, Object> statusEntry = new HashMap<>();
-        statusEntry.put("status", Order.OrderStatus.Received.name());
-        statusEntry.put("timestamp", LocalDateTime.now().toString());
-        statusEntry.put("notes", "Order received");
-
-        try {
-            order.setStatusHistory(objectMapper.writeValueAsString(Collections.singletonList(statusEntry)));
-        } catch (JsonProcessingException e) {
-            logger.error("Error creating status history: {}", e.getMessage());
-            order.setStatusHistory("[]");
-        }
+        // Set coupon if applied, and keep the discount as charged
+        order.setCoupon(appliedCoupon);
+        order.setDiscountAmount(discountValue);
+        order.setDiscountCode(appliedCouponCode);
+        order.setAppliedRuleIds(formatRuleIds(appliedRuleIds));
 
         // Save order
         Order savedOrder = orderRepository.save(order);
+        orderStatusService.recordStatus(savedOrder.getOrderId(), Order.OrderStatus.Received, "Order received");
 
         // 9. Create order items
         List<OrderItem> orderItems = new ArrayList<>();
         List<OrderItemDTO> orderItemDTOs = new ArrayList<>();
 
-        for (CartItem cartItem : cartItems) {
+        for (int line = 0; line < cartItems.size(); line++) {
+            CartItem cartItem = cartItems.get(line);
             MenuItem menuItem = cartItem.getMenuItem();
             Variant variant = cartItem.getVariant();
 
@@ -211,8 +302,8 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
             orderItem.setMenuItem(menuItem);
             orderItem.setVariant(variant);
             orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setPrice(cartItem.getPrice());
-            orderItem.setSubtotal(cartItem.getSubtotal());
+            orderItem.setPrice(MinorUnits.toAmount(cartLines.getUnitPrice(line)));
+            orderItem.setSubtotal(MinorUnits.toAmount(cartLines.getLineTotal(line)));
             orderItem.setSpecialInstructions(cartItem.getSpecialInstructions());
             orderItem.setIsFreeItem(false);
 
@@ -232,19 +323,25 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
                 orderItem.setVariantName(variant.getVariantName());
             }
 
-            // Save order item
-            OrderItem savedOrderItem = orderItemRepository.save(orderItem);
-            orderItems.add(savedOrderItem);
+            orderItems.add(orderItem);
+        }
+
+        // Save all order items in one JDBC batch (ids come from a pooled table generator)
+        orderItemRepository.saveAll(orderItems);
+
+        for (OrderItem savedOrderItem : orderItems) {
+            MenuItem menuItem = savedOrderItem.getMenuItem();
+            Variant variant = savedOrderItem.getVariant();
 
             // Create DTO for response
             OrderItemDTO itemDTO = new OrderItemDTO();
             itemDTO.setOrderItemId(savedOrderItem.getOrderItemId());
             itemDTO.setMenuItemId(menuItem.getItemId());
             itemDTO.setMenuItemName(menuItem.getName());
-            itemDTO.setQuantity(cartItem.getQuantity());
-            itemDTO.setPrice(cartItem.getPrice());
-            itemDTO.setSubtotal(cartItem.getSubtotal());
-            itemDTO.setSpecialInstructions(cartItem.getSpecialInstructions());
+            itemDTO.setQuantity(savedOrderItem.getQuantity());
+            itemDTO.setPrice(savedOrderItem.getPrice());
+            itemDTO.setSubtotal(savedOrderItem.getSubtotal());
+            itemDTO.setSpecialInstructions(savedOrderItem.getSpecialInstructions());
             itemDTO.setIsFreeItem(false);
 
             if (menuItem.getCategory() != null) {
@@ -264,17 +361,13 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         }
 
         // 10. Clear the cart
-        cartItems.forEach(cartItemRepository::delete);
+        cartItemRepository.deleteByCart(cart);
         cart.setStatus("COMPLETED");
         cart.setLastModifiedDateTime(LocalDateTime.now());
         cartRepository.save(cart);
 
-        // 11. Store order in DynamoDB
-        try {
-            dynamoDBService.saveOrder(savedOrder, customer, restaurant, orderItems);
-        } catch (Exception e) {
-            logger.error("Error saving order to DynamoDB: {}", e.getMessage());
-        }
+        // 11. Queue the order for the DynamoDB mirror; the outbox relay writes it after commit
+        orderOutboxService.enqueue(savedOrder.getOrderId(), OrderOutboxEvent.EventType.ORDER_PLACED);
 
         // 12. Create response
         OrderResponseDTO responseDTO = new OrderResponseDTO();
@@ -285,7 +378,7 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         responseDTO.setRestaurantName(restaurant.getName());
         responseDTO.setPaymentId(paymentId);
         responseDTO.setPaymentMethod(orderRequest.getPaymentMethod());
-        responseDTO.setPaymentStatus(orderRequest.getPaymentMethod().equals("Pay Online") ? "Paid" : "Pending");
+        responseDTO.setPaymentStatus(paymentId != null ? "Paid" : "Pending");
         responseDTO.setOrderDate(orderRequest.getOrderDate());
         responseDTO.setDeliveryDate(orderRequest.getDeliveryDate());
         responseDTO.setOrderStatus(Order.OrderStatus.Received.name());
@@ -293,6 +386,7 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         responseDTO.setDiscountValue(discountValue);
         responseDTO.setFinalPrice(finalPrice);
         responseDTO.setCouponCode(appliedCouponCode);
+        responseDTO.setAppliedRuleIds(appliedRuleIds);
         responseDTO.setPickupInstructions(orderRequest.getPickupInstructions());
         responseDTO.setOrderItems(orderItemDTOs);
         responseDTO.setTotalItems(orderItemDTOs.stream().mapToInt(OrderItemDTO::getQuantity).sum());
@@ -300,7 +394,7 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         return responseDTO;
     }
 
-    private void validateOrderRequest(OrderRequestDTO orderRequest) {
+    public void validateOrderRequest(OrderRequestDTO orderRequest) {
         if (orderRequest.getCustomerId() == null) {
             throw new InvalidOrderException("Customer ID is required");
         }
@@ -315,7 +409,7 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
 
         if (!orderRequest.getPaymentMethod().equals("Cash") &&
             !orderRequest.getPaymentMethod().equals("UPI")) {
-            throw new InvalidOrderException("Invalid payment method. Allowed values: 'Pay Online', 'Pay Cash'");
+            throw new InvalidOrderException("Invalid payment method. Allowed values: 'UPI', 'Cash'");
         }
 
         if (orderRequest.getOrderDate() == null) {
@@ -337,6 +431,22 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
             DayOfWeek dayOfWeek = deliveryDateTime.getDayOfWeek();
             String dayName = dayOfWeek.toString();
 
+            // Holiday or special hours on this date
+            List<RestaurantWorkingHours> specialHours =
+                    restaurantHoursUtil.getSpecialHoursForDate(restaurant, deliveryDateTime.toLocalDate());
+            if (!specialHours.isEmpty()) {
+                StringBuilder message = new StringBuilder("Restaurant has special hours on " + deliveryDateTime.toLocalDate() + ": ");
+                for (int i = 0; i < specialHours.size(); i++) {
+                    RestaurantWorkingHours hours = specialHours.get(i);
+                    message.append(SpecialHoursIndex.CLOSED_STATUS.equalsIgnoreCase(hours.getStatus()) ? "closed " : "open ")
+                            .append(hours.getStartTime()).append(" - ").append(hours.getEndTime());
+                    if (i < specialHours.size() - 1) {
+                        message.append(", ");
+                    }
+                }
+                throw new InvalidOrderException(message.toString());
+            }
+
             // Get working hours for this day to provide a helpful error message
             List<RestaurantWorkingHours> workingHours = restaurantHoursUtil.getWorkingHoursForDay(restaurant, dayOfWeek);
 
@@ -374,72 +484,185 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         }
     }
 
+    @Transactional(readOnly = true)
     public OrderResponseDTO getOrderById(String orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+        Order order = findOrder(orderId);
 
         return convertToDTO(order);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderResponseDTO> getAllOrders() {
         List<Order> orders = orderRepository.findAll();
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return convertToDTOs(orders);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByCustomerId(Integer customerId) {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
 
         List<Order> orders = orderRepository.findByCustomer(customer);
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return convertToDTOs(orders);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByRestaurantId(Integer restaurantId) {
         Restaurant restaurant = restaurantRepository.findById(restaurantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurant", "id", restaurantId));
 
         List<Order> orders = orderRepository.findByRestaurant(restaurant);
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return convertToDTOs(orders);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         List<Order> orders = orderRepository.findByOrderDateBetween(startDate, endDate);
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return convertToDTOs(orders);
+    }
+
+    /**
+     * Returns one page of orders (newest first) matching the filter, using keyset
+     * pagination on (orderDate, orderId) so cost does not grow with the page number.
+     *
+     * @param filter optional restaurant/customer/status/date filters
+     * @param cursor nextCursor from the previous page, or null for the first page
+     * @param limit page size, defaults to 50 and may not exceed 200
+     */
+    @Transactional(readOnly = true)
+    public OrderPageDTO searchOrders(OrderSearchFilter filter, String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidOrderException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new InvalidOrderException("from must not be after to");
+        }
+
+        OrderCursor position = cursor != null && !cursor.isEmpty() ? OrderCursor.decode(cursor) : null;
+
+        // Fetch one extra row to know whether another page exists without a count query
+        List<Order> orders = orderRepository.findPage(filter,
+                position != null ? position.getOrderDate() : null,
+                position != null ? position.getOrderId() : null,
+                pageSize + 1);
+
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+
+        return new OrderPageDTO(convertToDTOs(orders), nextCursor, hasMore, pageSize);
+    }
+
+    /**
+     * Writes all orders in the date range to the writer, one NDJSON line or CSV row per order,
+     * using the same shape as {@link OrderResponseDTO}. Orders are streamed row by row and
+     * converted in batches; the persistence context is cleared after every batch so memory
+     * use stays bounded regardless of the size of the range.
+     *
+     * A streaming MySQL result set blocks its connection until it is closed, so each batch's
+     * items and payments are loaded in a separate transaction on a second pooled connection.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(LocalDateTime startDate, LocalDateTime endDate, ExportFormat format, Writer writer)
+            throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long exported = 0;
+        List<Order> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+
+        try (Stream<Order> orders = orderRepository.streamByOrderDateBetween(startDate, endDate)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == EXPORT_BATCH_SIZE || !iterator.hasNext()) {
+                    List<OrderResponseDTO> dtos = exportBatchTransaction.execute(status -> convertToDTOs(batch));
+                    for (OrderResponseDTO dto : dtos) {
+                        writeExportRow(dto, format, writer);
+                    }
+                    exported += batch.size();
+                    batch.clear();
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        logger.info("Exported {} orders between {} and {} as {}", exported, startDate, endDate, format);
+        return exported;
+    }
+
+    private void writeExportRow(OrderResponseDTO dto, ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+            return;
+        }
+
+        Object[] values = {
+                dto.getOrderId(), dto.getCustomerId(), dto.getCustomerName(), dto.getRestaurantId(),
+                dto.getRestaurantName(), dto.getPaymentId(), dto.getPaymentMethod(), dto.getPaymentStatus(),
+                dto.getOrderDate(), dto.getDeliveryDate(), dto.getOrderStatus(), dto.getTotalItems(),
+                dto.getTotalPrice(), dto.getDiscountValue(), dto.getFinalPrice(), dto.getCouponCode(),
+                dto.getPickupInstructions()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderStatusHistoryDTO> getStatusHistory(String orderId) {
+        return orderStatusService.getHistory(findOrder(orderId));
     }
 
     @Transactional
     public OrderResponseDTO cancelOrder(String orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+        Order order = findOrder(orderId);
 
         // Check if order can be cancelled
         if (order.getStatus() == Order.OrderStatus.OrderCompleted) {
             throw new InvalidOrderException("Cannot cancel a completed order");
         }
 
+        // Free the pickup slot and the coupon use, unless an earlier cancellation already did
+        if (order.getStatus() != Order.OrderStatus.Cancelled) {
+            pickupSlotService.releaseSlot(order.getRestaurant(), order.getDeliveryDate());
+            discountService.releaseCoupon(order.getCoupon(), order.getCustomer());
+        }
+
         // Update order status
         order.setStatus(Order.OrderStatus.Cancelled);
         order.setLastModifiedDateTime(LocalDateTime.now());
 
-        // Update status history
-        try {
-            List<Map<String, Object>> statusHistory = objectMapper.readValue(
-                    order.getStatusHistory(),
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
-            );
-
-            Map<String, Object> statusEntry = new HashMap<>();
-            statusEntry.put("status", Order.OrderStatus.Cancelled.name());
-            statusEntry.put("timestamp", LocalDateTime.now().toString());
-            statusEntry.put("notes", "Order cancelled");
-
-            statusHistory.add(statusEntry);
-            order.setStatusHistory(objectMapper.writeValueAsString(statusHistory));
-        } catch (Exception e) {
-            logger.error("Error updating status history: {}", e.getMessage());
-        }
-
         Order savedOrder = orderRepository.save(order);
+        orderStatusService.recordStatus(savedOrder.getOrderId(), Order.OrderStatus.Cancelled, "Order cancelled");
+        orderOutboxService.enqueue(savedOrder.getOrderId(), OrderOutboxEvent.EventType.ORDER_UPDATED);
 
         // Update payment status if needed
         if (savedOrder.getPaymentId() != null) {
@@ -449,7 +672,57 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         return convertToDTO(savedOrder);
     }
 
+    private Order findOrder(String orderId) {
+        // Order ids are stored as BINARY(16); anything that is not a UUID cannot exist
+        if (!OrderIdGenerator.isValid(orderId)) {
+            throw new ResourceNotFoundException("Order", "id", orderId);
+        }
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+    }
+
     private OrderResponseDTO convertToDTO(Order order) {
+        return convertToDTOs(Collections.singletonList(order)).get(0);
+    }
+
+    /**
+     * Converts orders to response DTOs using a fixed number of queries per batch:
+     * one for the order items (with menu item, category, subcategory and variant)
+     * and one for the payments, instead of two queries per order.
+     */
+    private List<OrderResponseDTO> convertToDTOs(List<Order> orders) {
+        List<OrderResponseDTO> dtos = new ArrayList<>(orders.size());
+
+        for (int from = 0; from < orders.size(); from += ORDER_DETAILS_BATCH_SIZE) {
+            List<Order> batch = orders.subList(from, Math.min(from + ORDER_DETAILS_BATCH_SIZE, orders.size()));
+
+            List<String> orderIds = new ArrayList<>(batch.size());
+            Set<String> paymentIds = new HashSet<>();
+            for (Order order : batch) {
+                orderIds.add(order.getOrderId());
+                if (order.getPaymentId() != null) {
+                    paymentIds.add(order.getPaymentId());
+                }
+            }
+
+            Map<String, List<OrderItem>> itemsByOrderId = new HashMap<>();
+            for (OrderItem item : orderItemRepository.findByOrderIdsWithMenuDetails(orderIds)) {
+                itemsByOrderId.computeIfAbsent(item.getOrder().getOrderId(), id -> new ArrayList<>()).add(item);
+            }
+
+            Map<String, Payment> paymentsById = paymentService.getPaymentsByIds(paymentIds);
+
+            for (Order order : batch) {
+                dtos.add(buildOrderResponse(order,
+                        itemsByOrderId.getOrDefault(order.getOrderId(), Collections.emptyList()),
+                        paymentsById.get(order.getPaymentId())));
+            }
+        }
+
+        return dtos;
+    }
+
+    private OrderResponseDTO buildOrderResponse(Order order, List<OrderItem> orderItems, Payment payment) {
         OrderResponseDTO dto = new OrderResponseDTO();
         dto.setOrderId(order.getOrderId());
         dto.setCustomerId(order.getCustomer().getCustomerId());
@@ -458,8 +731,6 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         dto.setRestaurantName(order.getRestaurant().getName());
         dto.setPaymentId(order.getPaymentId());
 
-        // Get payment details
-        Payment payment = paymentService.getPaymentById(order.getPaymentId());
         if (payment != null) {
             dto.setPaymentMethod(payment.getPaymentMethod().name());
             dto.setPaymentStatus(payment.getStatus().name());
@@ -469,11 +740,10 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         dto.setDeliveryDate(order.getDeliveryDate());
         dto.setOrderStatus(order.getStatus().name());
 
-        // Get order items
-        List<OrderItem> orderItems = orderRepository.findOrderItemsByOrder(order);
         List<OrderItemDTO> orderItemDTOs = new ArrayList<>();
 
         BigDecimal totalPrice = BigDecimal.ZERO;
+        int totalItems = 0;
 
         for (OrderItem item : orderItems) {
             OrderItemDTO itemDTO = new OrderItemDTO();
@@ -492,14 +762,22 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
 
             orderItemDTOs.add(itemDTO);
             totalPrice = totalPrice.add(item.getSubtotal());
+            if (item.getQuantity() != null) {
+                totalItems += item.getQuantity();
+            }
         }
 
         dto.setOrderItems(orderItemDTOs);
         dto.setTotalPrice(totalPrice);
+        dto.setTotalItems(totalItems);
 
-        // Calculate discount
+        // Discount as charged at checkout; orders placed before it was stored re-price their coupon
         BigDecimal discountValue = BigDecimal.ZERO;
-        if (order.getCoupon() != null) {
+        if (order.getDiscountAmount() != null) {
+            discountValue = order.getDiscountAmount();
+            dto.setCouponCode(order.getDiscountCode());
+            dto.setAppliedRuleIds(parseRuleIds(order.getAppliedRuleIds()));
+        } else if (order.getCoupon() != null) {
             dto.setCouponCode(order.getCoupon().getCouponCode());
             discountValue = discountService.calculateDiscount(order.getCoupon(), totalPrice);
         }
@@ -511,9 +789,32 @@ BigDecimal finalPrice = totalPrice.subtract(discountValue);
         return dto;
     }
 
+    private static String formatRuleIds(List<Integer> ruleIds) {
+        if (ruleIds.isEmpty()) {
+            return null;
+        }
+        StringBuilder formatted = new StringBuilder();
+        for (Integer ruleId : ruleIds) {
+            if (formatted.length() > 0) {
+                formatted.append(',');
+            }
+            formatted.append(ruleId);
+        }
+        return formatted.toString();
+    }
+
+    private static List<Integer> parseRuleIds(String ruleIds) {
+        List<Integer> parsed = new ArrayList<>();
+        if (ruleIds != null && !ruleIds.isEmpty()) {
+            for (String ruleId : ruleIds.split(",")) {
+                parsed.add(Integer.valueOf(ruleId));
+            }
+        }
+        return parsed;
+    }
+
     public OrderResponseDTO updatePaymentStatus(String orderId, String newStatus) {
-    Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+    Order order = findOrder(orderId);
 
     if (order.getPaymentId() == null) {
         throw new InvalidOrderException("No payment associated with this order");
@@ -0,0 +1,129 @@
+package com.restaurant.ordersystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.ordersystem.dto.OrderStatusHistoryDTO;
+import com.restaurant.ordersystem.model.Order;
+import com.restaurant.ordersystem.model.OrderStatusEvent;
+import com.restaurant.ordersystem.repository.OrderStatusEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Order status history backed by the append-only order_status_events table.
+ * Orders placed before the table existed keep their entries in the legacy
+ * statusHistory JSON column; those entries are read and shown first.
+ */
+@Service
+public class OrderStatusService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusService.class);
+
+    private final OrderStatusEventRepository orderStatusEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OrderStatusService(OrderStatusEventRepository orderStatusEventRepository, ObjectMapper objectMapper) {
+        this.orderStatusEventRepository = orderStatusEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Record a status transition with a single insert
+     *
+     * @param orderId Order ID
+     * @param status New status
+     * @param notes Optional notes
+     */
+    public void recordStatus(String orderId, Order.OrderStatus status, String notes) {
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setOrderId(orderId);
+        event.setStatus(status);
+        event.setTs(LocalDateTime.now());
+        event.setNotes(notes);
+        orderStatusEventRepository.save(event);
+    }
+
+    /**
+     * Full status history of an order, oldest first
+     */
+    public List<OrderStatusHistoryDTO> getHistory(Order order) {
+        List<OrderStatusHistoryDTO> history = readLegacyHistory(order);
+        for (OrderStatusEvent event : orderStatusEventRepository.findByOrderIdOrderByTsAscIdAsc(order.getOrderId())) {
+            history.add(toDTO(event));
+        }
+        return history;
+    }
+
+    /**
+     * Status histories of several orders, loaded with one query
+     *
+     * @return Histories keyed by order ID
+     */
+    public Map<String, List<OrderStatusHistoryDTO>> getHistories(Collection<Order> orders) {
+        Map<String, List<OrderStatusHistoryDTO>> histories = new HashMap<>();
+        if (orders.isEmpty()) {
+            return histories;
+        }
+
+        List<String> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getOrderId());
+            histories.put(order.getOrderId(), readLegacyHistory(order));
+        }
+        for (OrderStatusEvent event : orderStatusEventRepository.findByOrderIdInOrderByTsAscIdAsc(orderIds)) {
+            histories.get(event.getOrderId()).add(toDTO(event));
+        }
+        return histories;
+    }
+
+    /**
+     * Render a history in the JSON shape of the legacy statusHistory column
+     */
+    public String renderHistory(List<OrderStatusHistoryDTO> history) {
+        List<Map<String, Object>> entries = new ArrayList<>(history.size());
+        for (OrderStatusHistoryDTO dto : history) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("status", dto.getStatus());
+            entry.put("timestamp", dto.getTimestamp() != null ? dto.getTimestamp().toString() : null);
+            entry.put("notes", dto.getNotes());
+            entries.add(entry);
+        }
+        try {
+            return objectMapper.writeValueAsString(entries);
+        } catch (JsonProcessingException e) {
+            logger.error("Error rendering status history: {}", e.getMessage());
+            return "[]";
+        }
+    }
+
+    private List<OrderStatusHistoryDTO> readLegacyHistory(Order order) {
+        List<OrderStatusHistoryDTO> history = new ArrayList<>();
+        if (order.getStatusHistory() == null || order.getStatusHistory().isEmpty()) {
+            return history;
+        }
+
+        try {
+            List<Map<String, Object>> entries = objectMapper.readValue(
+                    order.getStatusHistory(),
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)
+            );
+            for (Map<String, Object> entry : entries) {
+                Object timestamp = entry.get("timestamp");
+                history.add(new OrderStatusHistoryDTO(
+                        (String) entry.get("status"),
+                        timestamp != null ? LocalDateTime.parse(timestamp.toString()) : null,
+                        (String) entry.get("notes")));
+            }
+        } catch (Exception e) {
+            logger.error("Error reading status history of order {}: {}", order.getOrderId(), e.getMessage());
+        }
+        return history;
+    }
+
+    private OrderStatusHistoryDTO toDTO(OrderStatusEvent event) {
+        return new OrderStatusHistoryDTO(event.getStatus().name(), event.getTs(), event.getNotes());
+    }
+}
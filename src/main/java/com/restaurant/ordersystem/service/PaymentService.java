@@ -6,6 +6,7 @@ import com.restaurant.ordersystem.model.Payment;
 import com.restaurant.ordersystem.model.PaymentMethod;
 import com.restaurant.ordersystem.repository.CustomerRepository;
 import com.restaurant.ordersystem.repository.PaymentRepository;
+import com.restaurant.ordersystem.util.OrderIdGenerator;
 
 import software.amazon.awssdk.services.dynamodb.model.Get;
 
@@ -16,6 +17,9 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 
@@ -41,11 +45,23 @@ public class PaymentService {
      * @return Payment ID
      */
     public String createPayment(Integer customerId, BigDecimal amount, String status) {
-        logger.info("Creating payment for customer ID: {} with amount: {} and status: {}", customerId, amount, status);
-
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
 
+        return createPayment(customer, amount, status);
+    }
+
+    /**
+     * Create a new payment for an already loaded customer
+     *
+     * @param customer Customer
+     * @param amount Payment amount
+     * @param status Payment status (PAID or PENDING)
+     * @return Payment ID
+     */
+    public String createPayment(Customer customer, BigDecimal amount, String status) {
+        logger.info("Creating payment for customer ID: {} with amount: {} and status: {}", customer.getCustomerId(), amount, status);
+
         Payment payment = new Payment();
         payment.setPaymentId(UUID.randomUUID().toString());
         payment.setCustomer(customer);
@@ -85,6 +101,24 @@ public class PaymentService {
                 .orElse(null);
     }
 
+    /**
+     * Get payments for a set of IDs in a single query
+     *
+     * @param paymentIds Payment IDs (null entries are ignored)
+     * @return Payments keyed by payment ID
+     */
+    public Map<String, Payment> getPaymentsByIds(Collection<String> paymentIds) {
+        Map<String, Payment> payments = new HashMap<>();
+        if (paymentIds == null || paymentIds.isEmpty()) {
+            return payments;
+        }
+
+        for (Payment payment : paymentRepository.findByPaymentIdIn(paymentIds)) {
+            payments.put(payment.getPaymentId(), payment);
+        }
+        return payments;
+    }
+
     /**
      * Cancel a payment
      *
@@ -133,7 +167,7 @@ public void savePayment(Payment payment) {
 public Payment getPaymentByOrderId(String orderId) {
     logger.info("Retrieving payment for order ID: {}", orderId);
     
-    if (orderId == null) {
+    if (orderId == null || !OrderIdGenerator.isValid(orderId)) {
         return null;
     }
     
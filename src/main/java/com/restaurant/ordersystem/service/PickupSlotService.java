@@ -0,0 +1,150 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.dto.PickupSlotDTO;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.model.Restaurant;
+import com.restaurant.ordersystem.util.RestaurantHoursUtil;
+import com.restaurant.ordersystem.util.RestaurantSchedule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes pickup slots from a restaurant's compiled opening hours. Slots are fixed-length
+ * windows aligned to the start of the day; a slot is offered only if the restaurant is open
+ * for every minute of it and has not reached its order capacity.
+ */
+@Service
+public class PickupSlotService {
+
+    public static final int DEFAULT_SLOT_COUNT = 5;
+    public static final int MAX_SLOT_COUNT = 50;
+
+    private final RestaurantService restaurantService;
+    private final RestaurantHoursUtil restaurantHoursUtil;
+    private final SlotCapacityService slotCapacityService;
+
+    @Value("${restaurant.slots.length-minutes:15}")
+    private int slotLengthMinutes = 15;
+
+    @Value("${restaurant.slots.search-days:14}")
+    private int searchDays = 14;
+
+    // Orders per slot for restaurants without their own slot_capacity
+    @Value("${restaurant.slots.capacity:20}")
+    private int defaultCapacity = 20;
+
+    public PickupSlotService(RestaurantService restaurantService,
+                             RestaurantHoursUtil restaurantHoursUtil,
+                             SlotCapacityService slotCapacityService) {
+        this.restaurantService = restaurantService;
+        this.restaurantHoursUtil = restaurantHoursUtil;
+        this.slotCapacityService = slotCapacityService;
+    }
+
+    /**
+     * Find the next open pickup slots of a restaurant.
+     *
+     * @param restaurantId Restaurant ID
+     * @param from Earliest slot start; now if null or in the past
+     * @param count Number of slots, defaults to 5 (max 50)
+     * @return Up to count slots in time order; fewer if the restaurant is closed for the rest of the search window
+     */
+    public List<PickupSlotDTO> findNextSlots(Integer restaurantId, LocalDateTime from, Integer count) {
+        int limit = count == null ? DEFAULT_SLOT_COUNT : count;
+        if (limit < 1 || limit > MAX_SLOT_COUNT) {
+            throw new InvalidOrderException("count must be between 1 and " + MAX_SLOT_COUNT);
+        }
+        Restaurant restaurant = restaurantService.getRestaurantById(restaurantId);
+        int capacity = getCapacity(restaurant);
+        RestaurantSchedule schedule = restaurantHoursUtil.getSchedule(restaurantId);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = alignToSlot(from == null || from.isBefore(now) ? now : from);
+        LocalDateTime searchEnd = start.plusDays(searchDays);
+
+        List<PickupSlotDTO> slots = new ArrayList<>(limit);
+        while (slots.size() < limit && start.isBefore(searchEnd)) {
+            LocalDateTime end = start.plusMinutes(slotLengthMinutes);
+            if (isOpenThroughout(schedule, start)) {
+                int remaining = capacity - slotCapacityService.getReserved(restaurantId, start);
+                if (remaining > 0) {
+                    slots.add(new PickupSlotDTO(start, end, remaining));
+                }
+            }
+            start = end;
+        }
+        return slots;
+    }
+
+    /**
+     * Reserve capacity for an order in the slot containing its pickup time. The reservation
+     * is given back if the surrounding transaction rolls back.
+     *
+     * @throws InvalidOrderException if the slot is full, naming the next slot with room if there is one
+     */
+    public void reserveSlot(Restaurant restaurant, LocalDateTime pickupTime) {
+        LocalDateTime slotStart = slotStartOf(pickupTime);
+        if (slotCapacityService.tryReserve(restaurant.getRestaurantId(), slotStart, getCapacity(restaurant))) {
+            return;
+        }
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        List<PickupSlotDTO> next = findNextSlots(restaurant.getRestaurantId(), slotStart.plusMinutes(slotLengthMinutes), 1);
+        String message = "Pickup slot starting " + slotStart.format(format) + " is full";
+        if (!next.isEmpty()) {
+            message += ". Next available slot starts " + next.get(0).getStart().format(format);
+        }
+        throw new InvalidOrderException(message);
+    }
+
+    /**
+     * Give back the capacity reserved for an order, once the surrounding transaction commits.
+     */
+    public void releaseSlot(Restaurant restaurant, LocalDateTime pickupTime) {
+        slotCapacityService.release(restaurant.getRestaurantId(), slotStartOf(pickupTime));
+    }
+
+    /**
+     * Start of the slot containing the given time.
+     */
+    public LocalDateTime slotStartOf(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        int minuteOfDay = minute.getHour() * 60 + minute.getMinute();
+        return minute.minusMinutes(minuteOfDay % slotLengthMinutes);
+    }
+
+    /**
+     * Start of the slot containing the given time, or of the next slot if it is not on a slot boundary.
+     */
+    public LocalDateTime alignToSlot(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        if (minute.isBefore(time)) {
+            minute = minute.plusMinutes(1);
+        }
+        int minuteOfDay = minute.getHour() * 60 + minute.getMinute();
+        int remainder = minuteOfDay % slotLengthMinutes;
+        return remainder == 0 ? minute : minute.plusMinutes(slotLengthMinutes - remainder);
+    }
+
+    public int getSlotLengthMinutes() {
+        return slotLengthMinutes;
+    }
+
+    private int getCapacity(Restaurant restaurant) {
+        return restaurant.getSlotCapacity() != null ? restaurant.getSlotCapacity() : defaultCapacity;
+    }
+
+    private boolean isOpenThroughout(RestaurantSchedule schedule, LocalDateTime start) {
+        for (int minute = 0; minute < slotLengthMinutes; minute++) {
+            if (!schedule.isOpen(start.plusMinutes(minute))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
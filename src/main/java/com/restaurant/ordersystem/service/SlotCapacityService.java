@@ -0,0 +1,214 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.PickupSlotCapacity;
+import com.restaurant.ordersystem.repository.PickupSlotCapacityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts orders per restaurant pickup slot.
+ *
+ * Reservations are admitted against an in-memory counter with a compare-and-set loop, so
+ * the order path takes no locks and does not touch the database (except to load a slot's
+ * total the first time this instance sees it). Every second the reservations made here are
+ * added to pickup_slot_capacity with one upsert per slot, and the totals of all instances
+ * are read back into the counters. Between two syncs instances do not see each other's
+ * reservations, so a slot can be overbooked by what other instances accept in that window.
+ */
+@Service
+public class SlotCapacityService {
+    private static final Logger logger = LoggerFactory.getLogger(SlotCapacityService.class);
+
+    private final PickupSlotCapacityRepository pickupSlotCapacityRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<SlotKey, SlotCounter> counters = new ConcurrentHashMap<>();
+
+    public SlotCapacityService(PickupSlotCapacityRepository pickupSlotCapacityRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.pickupSlotCapacityRepository = pickupSlotCapacityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reserve one order in a slot if it has room. Inside a transaction the reservation is
+     * given back if the transaction rolls back.
+     *
+     * @param restaurantId Restaurant ID
+     * @param slotStart Start of the slot
+     * @param capacity Orders allowed in the slot
+     * @return true if reserved, false if the slot is full
+     */
+    public boolean tryReserve(Integer restaurantId, LocalDateTime slotStart, int capacity) {
+        SlotKey key = new SlotKey(restaurantId, slotStart);
+        SlotCounter counter = counter(key);
+        if (!counter.tryIncrement(capacity)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counter.decrement();
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Give back a reservation, e.g. for a cancelled order. Inside a transaction this happens
+     * only once it commits.
+     */
+    public void release(Integer restaurantId, LocalDateTime slotStart) {
+        SlotCounter counter = counter(new SlotKey(restaurantId, slotStart));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.decrement();
+                }
+            });
+        } else {
+            counter.decrement();
+        }
+    }
+
+    /**
+     * Orders currently reserved in a slot, as known to this instance. Slots booked through
+     * other instances are known from the next sync on.
+     */
+    public int getReserved(Integer restaurantId, LocalDateTime slotStart) {
+        SlotCounter counter = counters.get(new SlotKey(restaurantId, slotStart));
+        return counter != null ? counter.reserved.get() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${restaurant.slots.capacity-sync-interval-ms:1000}")
+    public void synchronize() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1. Push the reservations made here since the last sync
+        for (Map.Entry<SlotKey, SlotCounter> entry : counters.entrySet()) {
+            SlotCounter counter = entry.getValue();
+            int delta = counter.unsynced.getAndSet(0);
+            if (delta == 0) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> pickupSlotCapacityRepository.addReserved(
+                        entry.getKey().restaurantId, entry.getKey().slotStart, delta, now));
+            } catch (RuntimeException e) {
+                counter.unsynced.addAndGet(delta);
+                logger.warn("Failed to sync pickup slot capacity for restaurant {} at {}",
+                        entry.getKey().restaurantId, entry.getKey().slotStart, e);
+            }
+        }
+
+        // 2. Pull the totals of all instances, keeping reservations not yet pushed. Slots only
+        // booked elsewhere get a counter too, so that listings here show their real remainder
+        LocalDateTime today = now.toLocalDate().atStartOfDay();
+        for (PickupSlotCapacity row : pickupSlotCapacityRepository.findBySlotStartGreaterThanEqual(today)) {
+            SlotKey key = new SlotKey(row.getRestaurantId(), row.getSlotStart());
+            SlotCounter created = new SlotCounter(row.getReserved());
+            SlotCounter counter = counters.putIfAbsent(key, created);
+            if (counter != null) {
+                counter.reserved.set(row.getReserved() + counter.unsynced.get());
+            }
+        }
+
+        // 3. Forget slots of previous days
+        counters.entrySet().removeIf(entry ->
+                entry.getKey().slotStart.isBefore(today) && entry.getValue().unsynced.get() == 0);
+    }
+
+    @Scheduled(cron = "${restaurant.slots.capacity-cleanup-cron:0 15 3 * * *}")
+    public void purgeOldSlots() {
+        Integer deleted = transactionTemplate.execute(status ->
+                pickupSlotCapacityRepository.deleteBefore(LocalDateTime.now().minusDays(7)));
+        if (deleted != null && deleted > 0) {
+            logger.info("Purged {} old pickup slot capacity rows", deleted);
+        }
+    }
+
+    private SlotCounter counter(SlotKey key) {
+        SlotCounter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        // First use of this slot on this instance: start from the total of all instances
+        int reserved = pickupSlotCapacityRepository.findByRestaurantIdAndSlotStart(key.restaurantId, key.slotStart)
+                .map(PickupSlotCapacity::getReserved)
+                .orElse(0);
+        return counters.computeIfAbsent(key, k -> new SlotCounter(reserved));
+    }
+
+    private static final class SlotKey {
+        private final Integer restaurantId;
+        private final LocalDateTime slotStart;
+
+        SlotKey(Integer restaurantId, LocalDateTime slotStart) {
+            this.restaurantId = restaurantId;
+            this.slotStart = slotStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SlotKey)) {
+                return false;
+            }
+            SlotKey other = (SlotKey) o;
+            return restaurantId.equals(other.restaurantId) && slotStart.equals(other.slotStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(restaurantId, slotStart);
+        }
+    }
+
+    private static final class SlotCounter {
+        // Orders reserved in the slot across all instances, as far as this instance knows
+        private final AtomicInteger reserved;
+        // Reservations (negative: releases) made here and not yet added to the database
+        private final AtomicInteger unsynced = new AtomicInteger();
+
+        SlotCounter(int reserved) {
+            this.reserved = new AtomicInteger(reserved);
+        }
+
+        boolean tryIncrement(int capacity) {
+            while (true) {
+                int current = reserved.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (reserved.compareAndSet(current, current + 1)) {
+                    unsynced.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        void decrement() {
+            reserved.decrementAndGet();
+            unsynced.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.dto.VoucherGenerationJobDTO;
+import com.restaurant.ordersystem.dto.VoucherGenerationRequestDTO;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.model.MenuItem;
+import com.restaurant.ordersystem.model.VoucherGenerationJob;
+import com.restaurant.ordersystem.repository.MenuItemRepository;
+import com.restaurant.ordersystem.repository.VoucherGenerationJobRepository;
+import com.restaurant.ordersystem.util.ConcurrentLongSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Issues large numbers of single-use vouchers as a background job.
+ *
+ * Codes are 60 random bits in Crockford base32 after an optional prefix. Every code a job
+ * draws is recorded in an in-memory {@link ConcurrentLongSet}, so a job never generates
+ * the same code twice and no insert is wasted on a duplicate within the batch; a clash with
+ * a voucher issued earlier is left unchanged by ON DUPLICATE KEY UPDATE on the unique code
+ * index and made up for with a fresh code. Unlike INSERT IGNORE this does not turn other
+ * errors, such as a missing free item, into warnings. Because the driver reports rows found
+ * rather than rows changed, the rows inserted are counted by their creation time.
+ *
+ * Worker threads take chunks of the job and insert each chunk with one multi-row statement,
+ * counting it on the job row in the same transaction. A job interrupted by a restart or a
+ * crash is therefore resumed with exactly the number of codes still missing, by whichever
+ * instance notices first that its heartbeat (the job row's updatedDateTime) has stopped.
+ *
+ * Vouchers are written with plain JDBC and do not go through Hibernate; their codes are
+ * added to the {@link DiscountCodeFilter} directly. The entity cache holds no new rows and
+ * is kept.
+ */
+@Service
+public class VoucherGenerationService {
+    private static final Logger logger = LoggerFactory.getLogger(VoucherGenerationService.class);
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CODE_LENGTH = 12;
+    private static final int MAX_PREFIX_LENGTH = 20;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String INSERT = "INSERT INTO vouchers (voucher_code, description, status, " +
+            "discount_percentage, discount_amount, item_id, expiry_date, is_used, created_date_time) VALUES ";
+    private static final String ROW = "(?, ?, 'Active', ?, ?, ?, ?, false, ?)";
+    private static final String ON_DUPLICATE = " ON DUPLICATE KEY UPDATE voucher_code = voucher_code";
+    private static final String COUNT_INSERTED = "SELECT COUNT(*) FROM vouchers WHERE created_date_time = ? AND voucher_code IN (";
+    private static final int PARAMETERS_PER_ROW = 7;
+    // MySQL allows at most 65535 placeholders per statement
+    private static final int MAX_BATCH_SIZE = 65535 / PARAMETERS_PER_ROW;
+
+    private final VoucherGenerationJobRepository jobRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DiscountCodeFilter discountCodeFilter;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, RunningJob> running = new ConcurrentHashMap<>();
+    private final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SecureRandom::new);
+    private volatile boolean stopping;
+    private ExecutorService workers;
+
+    @Value("${voucher.generation.threads:4}")
+    private int threads = 4;
+
+    @Value("${voucher.generation.batch-size:2000}")
+    private int batchSize = 2000;
+
+    @Value("${voucher.generation.max-codes-per-job:10000000}")
+    private int maxCodesPerJob = 10_000_000;
+
+    @Value("${voucher.generation.stale-after-seconds:120}")
+    private long staleAfterSeconds = 120;
+
+    public VoucherGenerationService(VoucherGenerationJobRepository jobRepository,
+                                    MenuItemRepository menuItemRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    DiscountCodeFilter discountCodeFilter,
+                                    PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.discountCodeFilter = discountCodeFilter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "voucher-generation-" + threadNumber.getAndIncrement()));
+    }
+
+    @PreDestroy
+    public void stopWorkers() throws InterruptedException {
+        // Chunks in flight finish; the rest of each job is resumed after restart
+        stopping = true;
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create a voucher generation job and start it.
+     *
+     * @param request Number of vouchers and what they give
+     * @return The job, to poll for progress
+     */
+    public VoucherGenerationJobDTO startJob(VoucherGenerationRequestDTO request) {
+        validate(request);
+        MenuItem freeItem = null;
+        if (request.getFreeItemId() != null) {
+            freeItem = menuItemRepository.findById(request.getFreeItemId())
+                    .orElseThrow(() -> new ResourceNotFoundException("MenuItem", "id", request.getFreeItemId()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        VoucherGenerationJob job = new VoucherGenerationJob();
+        job.setStatus(VoucherGenerationJob.JobStatus.PENDING);
+        job.setCodePrefix(request.getCodePrefix() != null ? request.getCodePrefix() : "");
+        job.setRequestedCount(request.getCount());
+        job.setGeneratedCount(0);
+        job.setDescription(request.getDescription());
+        job.setDiscountPercentage(request.getDiscountPercentage());
+        job.setDiscountAmount(request.getDiscountAmount());
+        job.setFreeItem(freeItem);
+        job.setExpiryDate(request.getExpiryDate());
+        job.setCreatedDateTime(now);
+        job.setUpdatedDateTime(now);
+        jobRepository.save(job);
+        logger.info("Created voucher generation job {} for {} vouchers", job.getJobId(), job.getRequestedCount());
+
+        launch(job.getJobId());
+        return getJob(job.getJobId());
+    }
+
+    public VoucherGenerationJobDTO getJob(Long jobId) {
+        return toDTO(findJob(jobId));
+    }
+
+    /**
+     * Restart a failed job, or take over a job whose runner has stopped.
+     */
+    public VoucherGenerationJobDTO resumeJob(Long jobId) {
+        VoucherGenerationJob job = findJob(jobId);
+        if (job.getStatus() == VoucherGenerationJob.JobStatus.COMPLETED) {
+            throw new InvalidOrderException("Voucher generation job " + jobId + " is already completed");
+        }
+        if (job.getStatus() == VoucherGenerationJob.JobStatus.FAILED) {
+            transactionTemplate.execute(status -> jobRepository.requeue(jobId, LocalDateTime.now()));
+        }
+        launch(jobId);
+        return getJob(jobId);
+    }
+
+    @Scheduled(fixedDelayString = "${voucher.generation.resume-interval-ms:60000}")
+    public void resumeStalledJobs() {
+        List<Long> jobIds = jobRepository.findResumable(LocalDateTime.now().minusSeconds(staleAfterSeconds));
+        for (Long jobId : jobIds) {
+            launch(jobId);
+        }
+    }
+
+    private void launch(Long jobId) {
+        if (stopping || running.containsKey(jobId)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                jobRepository.claim(jobId, now, now.minusSeconds(staleAfterSeconds)));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+
+        RunningJob job = new RunningJob(findJob(jobId));
+        if (running.putIfAbsent(jobId, job) != null) {
+            return;
+        }
+        int workerCount = (int) Math.max(1, Math.min(threads, ((long) job.remaining.get() + batchSize - 1) / batchSize));
+        job.activeWorkers.set(workerCount);
+        logger.info("Running voucher generation job {}: {} of {} vouchers left, {} workers",
+                jobId, job.remaining.get(), job.requestedCount, workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(() -> work(job));
+        }
+    }
+
+    private void work(RunningJob job) {
+        try {
+            int size;
+            while (!stopping && job.failure.get() == null && (size = job.take(batchSize)) > 0) {
+                int inserted = insertChunk(job, size);
+                if (inserted == 0) {
+                    throw new IllegalStateException("No vouchers could be inserted for a chunk of " + size + " codes");
+                }
+                if (inserted < size) {
+                    // Codes that already existed; generate that many again
+                    job.remaining.addAndGet(size - inserted);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Voucher generation job {} failed", job.jobId, e);
+            job.failure.compareAndSet(null, e);
+        } finally {
+            if (job.activeWorkers.decrementAndGet() == 0) {
+                finish(job);
+            }
+        }
+    }
+
+    private int insertChunk(RunningJob job, int size) {
+        SecureRandom threadRandom = random.get();
+        String[] codes = new String[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = job.nextCode(threadRandom);
+        }
+        String sql = size == batchSize ? job.fullBatchSql : insertSql(size);
+        String countSql = size == batchSize ? job.fullBatchCountSql : countSql(size);
+        LocalDateTime now = LocalDateTime.now();
+        // Whole seconds, so that the count matches whatever precision the column has
+        Timestamp createdAt = Timestamp.valueOf(now.withNano(0));
+
+        Integer inserted = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(sql, statement -> {
+                int parameter = 1;
+                for (String code : codes) {
+                    parameter = job.bindRow(statement, parameter, code, createdAt);
+                }
+            });
+            Object[] parameters = new Object[size + 1];
+            parameters[0] = createdAt;
+            System.arraycopy(codes, 0, parameters, 1, size);
+            Integer rows = jdbcTemplate.queryForObject(countSql, Integer.class, parameters);
+            jobRepository.addGenerated(job.jobId, rows, now);
+            return rows;
+        });
+
+        for (String code : codes) {
+            discountCodeFilter.add(code);
+        }
+        job.generated.addAndGet(inserted);
+        return inserted;
+    }
+
+    private void finish(RunningJob job) {
+        running.remove(job.jobId);
+        LocalDateTime now = LocalDateTime.now();
+        Throwable failure = job.failure.get();
+        if (failure != null) {
+            String message = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+            String error = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+            transactionTemplate.execute(status ->
+                    jobRepository.finish(job.jobId, VoucherGenerationJob.JobStatus.FAILED, error, now, null));
+        } else if (job.remaining.get() == 0) {
+            transactionTemplate.execute(status ->
+                    jobRepository.finish(job.jobId, VoucherGenerationJob.JobStatus.COMPLETED, null, now, now));
+            logger.info("Voucher generation job {} completed: {} vouchers in this run, {} per second",
+                    job.jobId, job.generated.get(), job.codesPerSecond());
+        }
+        // Otherwise stopped by shutdown; the job stays RUNNING and is resumed once its heartbeat is stale
+    }
+
+    private VoucherGenerationJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("VoucherGenerationJob", "id", jobId));
+    }
+
+    private VoucherGenerationJobDTO toDTO(VoucherGenerationJob job) {
+        int requested = job.getRequestedCount();
+        int generated = job.getGeneratedCount();
+        double percent = requested == 0 ? 100.0 : Math.round(generated * 1000.0 / requested) / 10.0;
+        RunningJob runningJob = running.get(job.getJobId());
+        return new VoucherGenerationJobDTO(
+                job.getJobId(),
+                job.getStatus().name(),
+                requested,
+                generated,
+                percent,
+                runningJob != null ? runningJob.codesPerSecond() : null,
+                job.getErrorMessage(),
+                job.getCreatedDateTime(),
+                job.getUpdatedDateTime(),
+                job.getCompletedDateTime());
+    }
+
+    private void validate(VoucherGenerationRequestDTO request) {
+        if (request.getCount() == null || request.getCount() <= 0 || request.getCount() > maxCodesPerJob) {
+            throw new InvalidOrderException("Count must be between 1 and " + maxCodesPerJob);
+        }
+        String prefix = request.getCodePrefix();
+        if (prefix != null && (prefix.length() > MAX_PREFIX_LENGTH || !prefix.matches("[A-Za-z0-9-]*"))) {
+            throw new InvalidOrderException("Code prefix may have up to " + MAX_PREFIX_LENGTH + " letters, digits and dashes");
+        }
+        if (request.getDescription() != null && request.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new InvalidOrderException("Description may have up to " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        int benefits = (request.getDiscountPercentage() != null ? 1 : 0)
+                + (request.getDiscountAmount() != null ? 1 : 0)
+                + (request.getFreeItemId() != null ? 1 : 0);
+        if (benefits != 1) {
+            throw new InvalidOrderException("Exactly one of discount percentage, discount amount and free item is required");
+        }
+        if (request.getDiscountPercentage() != null
+                && (request.getDiscountPercentage() <= 0 || request.getDiscountPercentage() > 100)) {
+            throw new InvalidOrderException("Discount percentage must be between 1 and 100");
+        }
+        if (request.getDiscountAmount() != null && request.getDiscountAmount().signum() <= 0) {
+            throw new InvalidOrderException("Discount amount must be positive");
+        }
+        if (request.getExpiryDate() == null || !request.getExpiryDate().isAfter(LocalDateTime.now())) {
+            throw new InvalidOrderException("Expiry date must be in the future");
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.append(ON_DUPLICATE).toString();
+    }
+
+    private static String countSql(int codes) {
+        StringBuilder sql = new StringBuilder(COUNT_INSERTED.length() + codes * 3);
+        sql.append(COUNT_INSERTED);
+        for (int i = 0; i < codes; i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private final class RunningJob {
+        final Long jobId;
+        final int requestedCount;
+        final String prefix;
+        final String description;
+        final Integer discountPercentage;
+        final BigDecimal discountAmount;
+        final Integer freeItemId;
+        final Timestamp expiryDate;
+        final String fullBatchSql;
+        final String fullBatchCountSql;
+
+        // Codes not yet taken by a worker, including ones to make up for clashes
+        final AtomicInteger remaining;
+        final AtomicInteger generated = new AtomicInteger();
+        final AtomicInteger activeWorkers = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final ConcurrentLongSet drawn;
+        final long startedAt = System.currentTimeMillis();
+
+        RunningJob(VoucherGenerationJob job) {
+            this.jobId = job.getJobId();
+            this.requestedCount = job.getRequestedCount();
+            this.prefix = job.getCodePrefix() != null ? job.getCodePrefix() : "";
+            this.description = job.getDescription();
+            this.discountPercentage = job.getDiscountPercentage();
+            this.discountAmount = job.getDiscountAmount();
+            this.freeItemId = job.getFreeItem() != null ? job.getFreeItem().getItemId() : null;
+            this.expiryDate = job.getExpiryDate() != null ? Timestamp.valueOf(job.getExpiryDate()) : null;
+            this.fullBatchSql = insertSql(batchSize);
+            this.fullBatchCountSql = countSql(batchSize);
+            int left = Math.max(0, job.getRequestedCount() - job.getGeneratedCount());
+            this.remaining = new AtomicInteger(left);
+            // Head room for the codes drawn again after clashes
+            this.drawn = new ConcurrentLongSet(left + left / 8 + batchSize);
+        }
+
+        int take(int max) {
+            while (true) {
+                int left = remaining.get();
+                int size = Math.min(max, left);
+                if (size == 0 || remaining.compareAndSet(left, left - size)) {
+                    return size;
+                }
+            }
+        }
+
+        String nextCode(SecureRandom random) {
+            long bits;
+            do {
+                bits = random.nextLong() >>> (Long.SIZE - CODE_LENGTH * 5);
+            } while (!drawn.add(bits));
+
+            char[] code = new char[prefix.length() + CODE_LENGTH];
+            prefix.getChars(0, prefix.length(), code, 0);
+            for (int i = code.length - 1; i >= prefix.length(); i--) {
+                code[i] = ALPHABET[(int) (bits & 31)];
+                bits >>>= 5;
+            }
+            return new String(code);
+        }
+
+        int bindRow(PreparedStatement statement, int parameter, String code, Timestamp createdAt) throws SQLException {
+            statement.setString(parameter++, code);
+            statement.setObject(parameter++, description, Types.VARCHAR);
+            statement.setObject(parameter++, discountPercentage, Types.INTEGER);
+            statement.setObject(parameter++, discountAmount, Types.DECIMAL);
+            statement.setObject(parameter++, freeItemId, Types.INTEGER);
+            statement.setObject(parameter++, expiryDate, Types.TIMESTAMP);
+            statement.setTimestamp(parameter++, createdAt);
+            return parameter;
+        }
+
+        long codesPerSecond() {
+            long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+            return generated.get() * 1000L / elapsed;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.restaurant.ordersystem.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, insert-only set of non-negative longs with a fixed capacity. Values live in
+ * one open-addressed array of primitives, so millions of entries cost 8 bytes each plus head
+ * room and no objects; adds are lock-free.
+ */
+public class ConcurrentLongSet {
+
+    private static final long EMPTY = 0;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int capacity;
+
+    /**
+     * @param capacity Number of values the set must be able to hold
+     */
+    public ConcurrentLongSet(int capacity) {
+        long needed = Math.max(16, (long) Math.ceil(capacity / LOAD_FACTOR));
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Capacity too large: " + capacity);
+        }
+        int size = Integer.highestOneBit((int) needed);
+        if (size < needed) {
+            size <<= 1;
+        }
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param value Value to add, at least 0
+     * @return true if the value was not in the set yet
+     */
+    public boolean add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        // Slots hold value + 1 so that 0 marks an empty slot
+        long stored = value + 1;
+        int index = spread(stored) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = slots.get(index);
+            if (current == stored) {
+                return false;
+            }
+            if (current == EMPTY) {
+                if (slots.compareAndSet(index, EMPTY, stored)) {
+                    return true;
+                }
+                // Lost the slot to a concurrent add; it may have been the same value
+                if (slots.get(index) == stored) {
+                    return false;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        throw new IllegalStateException("Set is full, capacity " + capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getMemoryBytes() {
+        return (long) slots.length() * Long.BYTES;
+    }
+
+    private static int spread(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
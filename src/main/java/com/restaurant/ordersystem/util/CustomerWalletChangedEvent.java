@@ -0,0 +1,18 @@
+package com.restaurant.ordersystem.util;
+
+/**
+ * Published when a reward, voucher or referral that shows in a customer's wallet is created,
+ * changed, redeemed or deleted.
+ */
+public class CustomerWalletChangedEvent {
+
+    private final Integer customerId;
+
+    public CustomerWalletChangedEvent(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+}
@@ -0,0 +1,53 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.Customer;
+import com.restaurant.ordersystem.model.Referral;
+import com.restaurant.ordersystem.model.RewardItem;
+import com.restaurant.ordersystem.model.RewardVoucher;
+import com.restaurant.ordersystem.model.Voucher;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener on the entities shown in a customer's wallet; publishes a
+ * {@link CustomerWalletChangedEvent} for the customer who owns the changed row.
+ */
+@Component
+public class CustomerWalletListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerWalletListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Customer owner = ownerOf(entity);
+        if (owner != null && owner.getCustomerId() != null) {
+            eventPublisher.publishEvent(new CustomerWalletChangedEvent(owner.getCustomerId()));
+        }
+    }
+
+    private static Customer ownerOf(Object entity) {
+        if (entity instanceof RewardItem) {
+            return ((RewardItem) entity).getCustomer();
+        }
+        if (entity instanceof RewardVoucher) {
+            return ((RewardVoucher) entity).getCustomer();
+        }
+        if (entity instanceof Voucher) {
+            return ((Voucher) entity).getCustomer();
+        }
+        if (entity instanceof Referral) {
+            return ((Referral) entity).getReferrer();
+        }
+        return null;
+    }
+}
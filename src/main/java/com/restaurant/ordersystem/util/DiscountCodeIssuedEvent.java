@@ -0,0 +1,17 @@
+package com.restaurant.ordersystem.util;
+
+/**
+ * Published when a coupon, voucher or referral code is inserted.
+ */
+public class DiscountCodeIssuedEvent {
+
+    private final String code;
+
+    public DiscountCodeIssuedEvent(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,38 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.Coupon;
+import com.restaurant.ordersystem.model.Referral;
+import com.restaurant.ordersystem.model.Voucher;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+
+/**
+ * JPA entity listener on {@link Coupon}, {@link Voucher} and {@link Referral}; publishes a
+ * {@link DiscountCodeIssuedEvent} for every code inserted through this application.
+ */
+@Component
+public class DiscountCodeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DiscountCodeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        String code = null;
+        if (entity instanceof Coupon) {
+            code = ((Coupon) entity).getCouponCode();
+        } else if (entity instanceof Voucher) {
+            code = ((Voucher) entity).getVoucherCode();
+        } else if (entity instanceof Referral) {
+            code = ((Referral) entity).getReferralCode();
+        }
+        if (code != null) {
+            eventPublisher.publishEvent(new DiscountCodeIssuedEvent(code));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.restaurant.ordersystem.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between BigDecimal amounts and long amounts in minor units (cents), used where
+ * prices are computed in bulk without BigDecimal allocations.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * Amount in minor units, rounded half up to the currency's scale; 0 for null.
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Percent of an amount in minor units, rounded half up.
+     */
+    public static long percentOf(long minor, int percent) {
+        return Math.floorDiv(minor * percent + 50, 100);
+    }
+}
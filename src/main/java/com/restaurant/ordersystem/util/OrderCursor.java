@@ -0,0 +1,55 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in the (orderDate, orderId) ordering used by the paginated
+ * order listing. Encoded as URL-safe Base64 of "orderDate|orderId".
+ */
+public final class OrderCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime orderDate;
+    private final String orderId;
+
+    public OrderCursor(LocalDateTime orderDate, String orderId) {
+        this.orderDate = orderDate;
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String encode() {
+        String raw = orderDate.toString() + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new InvalidOrderException("Invalid cursor: " + cursor);
+            }
+            String orderId = raw.substring(separator + 1);
+            if (!OrderIdGenerator.isValid(orderId)) {
+                throw new InvalidOrderException("Invalid cursor: " + cursor);
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)), orderId);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidOrderException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.restaurant.ordersystem.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates time-ordered order ids (UUID version 7, RFC 9562): 48 bits of Unix epoch
+ * milliseconds followed by a 12-bit counter and 62 random bits. Ids created later sort
+ * after earlier ones, both as strings and as BINARY(16), so inserts append to the end of
+ * the clustered index instead of splitting random pages.
+ */
+public final class OrderIdGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final int MAX_COUNTER = 0xFFF;
+
+    private static long lastMillis = -1;
+    private static int counter;
+
+    private OrderIdGenerator() {
+    }
+
+    public static String newId() {
+        return newUuid().toString();
+    }
+
+    public static UUID newUuid() {
+        long millis;
+        int sequence;
+        synchronized (OrderIdGenerator.class) {
+            millis = System.currentTimeMillis();
+            if (millis > lastMillis) {
+                lastMillis = millis;
+                // Random start leaves room to count up within the same millisecond
+                counter = RANDOM.nextInt(MAX_COUNTER / 2);
+            } else if (counter < MAX_COUNTER) {
+                // Same millisecond (or clock moved back): keep ids increasing
+                counter++;
+            } else {
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+
+        long mostSigBits = (millis << 16) | (0x7L << 12) | sequence;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Whether the value is a canonical UUID string and can therefore be stored as an order id.
+     */
+    public static boolean isValid(String value) {
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -5,14 +5,20 @@ import com.restaurant.ordersystem.model.RestaurantWorkingHours;
 import com.restaurant.ordersystem.repository.RestaurantWorkingHoursRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for managing restaurant working hours and availability.
@@ -23,9 +29,16 @@ import java.util.Map;
  * 3. Manage default working hours when no custom hours are defined
  *
  * The class follows a hierarchical approach to determine restaurant availability:
- * - First, it checks for custom working hours defined for the specific restaurant and day
- * - If no custom hours are found, it checks for any hours that include the requested time
- * - If still no hours are found, it falls back to default working hours defined in the system
+ * - Rows for the specific date (holidays, special hours) come first: CLOSED rows close the
+ *   restaurant during their time range, other rows replace the weekly hours for that date
+ * - If working hours are defined for the restaurant and day, the restaurant is open during those hours
+ * - Otherwise it falls back to default working hours defined in the system
+ *
+ * Each restaurant's hours are compiled once into a {@link RestaurantSchedule} (a
+ * {@link WeeklyOpeningHours} minute bitset plus a {@link SpecialHoursIndex} of date overrides)
+ * and kept in memory, so availability checks do not query the database. A restaurant's entry is
+ * dropped when its working hours change ({@link WorkingHoursChangedEvent}) and expires after a
+ * TTL so that changes made outside this instance are picked up.
  *
  * Default hours are:
  * - Monday: Closed
@@ -40,6 +53,12 @@ public class RestaurantHoursUtil {
 
     private final RestaurantWorkingHoursRepository restaurantWorkingHoursRepository;
 
+    // Compiled schedules by restaurant id
+    private final Map<Integer, CachedSchedule> schedules = new ConcurrentHashMap<>();
+
+    @Value("${restaurant.hours.cache-ttl-seconds:600}")
+    private long cacheTtlSeconds = 600;
+
     // Default working hours for days when no specific hours are defined
     private static final Map<DayOfWeek, List<TimeRange>> DEFAULT_WORKING_HOURS = new HashMap<>();
 
@@ -69,66 +88,20 @@ public class RestaurantHoursUtil {
     /**
      * Check if a restaurant is open at the specified date and time.
      *
-     * This method implements a three-tier approach to determine restaurant availability:
-     *
-     * 1. First, it checks for custom working hours specifically defined for this restaurant and day
-     *    - If custom hours exist, it checks if the requested time falls within any of these hours
-     *
-     * 2. If no custom hours are found, it uses a database query to find any working hours
-     *    that include the requested time
+     * Date-specific rows are checked first: a CLOSED row closes the restaurant during its time
+     * range and other rows replace the weekly hours of that date. Otherwise, if working hours
+     * are defined for this restaurant and day, the requested time has to fall within one of them. If not, the system's default working hours apply: by default,
+     * restaurants are closed on Mondays and open Tuesday-Sunday during lunch and dinner hours.
      *
-     * 3. If still no working hours are found, it falls back to the system's default working hours
-     *    - Default hours are defined in the DEFAULT_WORKING_HOURS static map
-     *    - By default, restaurants are closed on Mondays and open Tuesday-Sunday during lunch and dinner hours
-     *
-     * This approach allows for flexible restaurant scheduling while maintaining sensible defaults.
-     * The OrderService uses this method to validate delivery times and provide helpful error messages.
+     * The check is a lookup in the restaurant's compiled schedule (minute resolution);
+     * the database is only read when the schedule is not cached.
      *
      * @param restaurant The restaurant to check
      * @param dateTime The date and time to check
      * @return true if the restaurant is open, false otherwise
      */
     public boolean isRestaurantOpen(Restaurant restaurant, LocalDateTime dateTime) {
-        DayOfWeek dayOfWeek = dateTime.getDayOfWeek();
-        LocalTime time = dateTime.toLocalTime();
-        String dayName = dayOfWeek.toString();
-
-        // First, check if there are specific working hours for this day
-        List<RestaurantWorkingHours> workingHours = restaurantWorkingHoursRepository
-                .findByRestaurantAndDayOfTheWeek(restaurant, dayName);
-
-        if (!workingHours.isEmpty()) {
-            // Check if the time is within any of the defined working hours
-            for (RestaurantWorkingHours hours : workingHours) {
-                if (!time.isBefore(hours.getStartTime()) && !time.isAfter(hours.getEndTime())) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        // If no specific hours found, check if there are any hours where the time is within range
-        List<RestaurantWorkingHours> hoursInRange = restaurantWorkingHoursRepository
-                .findByRestaurantIdAndDayAndTimeInRange(restaurant.getRestaurantId(), dayName, time);
-
-        if (!hoursInRange.isEmpty()) {
-            return true;
-        }
-
-        // If still no working hours found, check default hours
-        List<TimeRange> defaultHours = DEFAULT_WORKING_HOURS.get(dayOfWeek);
-        if (defaultHours == null || defaultHours.isEmpty()) {
-            return false; // Restaurant is closed on this day by default
-        }
-
-        // Check if the time is within any of the default working hours
-        for (TimeRange range : defaultHours) {
-            if (!time.isBefore(range.getStart()) && !time.isAfter(range.getEnd())) {
-                return true;
-            }
-        }
-
-        return false;
+        return getSchedule(restaurant.getRestaurantId()).isOpen(dateTime);
     }
 
     /**
@@ -139,11 +112,52 @@ public class RestaurantHoursUtil {
      * @return A list of working hours for the day
      */
     public List<RestaurantWorkingHours> getWorkingHoursForDay(Restaurant restaurant, DayOfWeek dayOfWeek) {
-        String dayName = dayOfWeek.toString();
-        List<RestaurantWorkingHours> workingHours = restaurantWorkingHoursRepository
-                .findByRestaurantAndDayOfTheWeek(restaurant, dayName);
+        return getSchedule(restaurant.getRestaurantId()).getCustomHours(dayOfWeek);
+    }
+
+    /**
+     * Get the date-specific working hours of a restaurant
+     *
+     * @param restaurant The restaurant
+     * @param date The date
+     * @return The special hours rows for the date, empty if the weekly hours apply
+     */
+    public List<RestaurantWorkingHours> getSpecialHoursForDate(Restaurant restaurant, LocalDate date) {
+        return getSchedule(restaurant.getRestaurantId()).getSpecialHours(date);
+    }
+
+    /**
+     * Get the compiled schedule of a restaurant, loading it if it is not cached or expired.
+     *
+     * @param restaurantId The restaurant id
+     * @return The restaurant's opening hours
+     */
+    public RestaurantSchedule getSchedule(Integer restaurantId) {
+        long now = System.nanoTime();
+        CachedSchedule cached = schedules.get(restaurantId);
+        if (cached != null && now - cached.loadedAt < TimeUnit.SECONDS.toNanos(cacheTtlSeconds)) {
+            return cached.schedule;
+        }
 
-        return workingHours;
+        List<RestaurantWorkingHours> rows = restaurantWorkingHoursRepository.findByRestaurantId(restaurantId);
+        RestaurantSchedule schedule = new RestaurantSchedule(
+                WeeklyOpeningHours.compile(rows, DEFAULT_WORKING_HOURS), SpecialHoursIndex.compile(rows));
+        schedules.put(restaurantId, new CachedSchedule(schedule, now));
+        logger.debug("Compiled opening hours of restaurant {}", restaurantId);
+        return schedule;
+    }
+
+    /**
+     * Drop the cached schedule of a restaurant whose working hours changed. Runs after the
+     * change commits, so the next lookup cannot reload the old rows.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkingHoursChanged(WorkingHoursChangedEvent event) {
+        if (event.getRestaurantId() != null) {
+            schedules.remove(event.getRestaurantId());
+        } else {
+            schedules.clear();
+        }
     }
 
     /**
@@ -156,6 +170,16 @@ public class RestaurantHoursUtil {
         return DEFAULT_WORKING_HOURS.getOrDefault(dayOfWeek, List.of());
     }
 
+    private static class CachedSchedule {
+        private final RestaurantSchedule schedule;
+        private final long loadedAt;
+
+        CachedSchedule(RestaurantSchedule schedule, long loadedAt) {
+            this.schedule = schedule;
+            this.loadedAt = loadedAt;
+        }
+    }
+
     /**
      * Time range class for representing a range of time
      */
@@ -0,0 +1,46 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compiled opening hours of one restaurant: date-specific overrides checked first, then the
+ * weekly schedule.
+ */
+public final class RestaurantSchedule {
+
+    private final WeeklyOpeningHours weeklyHours;
+    private final SpecialHoursIndex specialHours;
+
+    public RestaurantSchedule(WeeklyOpeningHours weeklyHours, SpecialHoursIndex specialHours) {
+        this.weeklyHours = weeklyHours;
+        this.specialHours = specialHours;
+    }
+
+    public boolean isOpen(LocalDateTime dateTime) {
+        return isOpen(dateTime.toLocalDate(), dateTime.getHour() * 60 + dateTime.getMinute());
+    }
+
+    public boolean isOpen(LocalDate date, int minuteOfDay) {
+        int position = specialHours.find(date);
+        boolean open = position >= 0 && specialHours.replacesWeeklyHours(position)
+                ? specialHours.isOpen(position, minuteOfDay)
+                : weeklyHours.isOpen((date.getDayOfWeek().getValue() - 1) * WeeklyOpeningHours.MINUTES_PER_DAY + minuteOfDay);
+        return open && !(position >= 0 && specialHours.isClosed(position, minuteOfDay));
+    }
+
+    public List<RestaurantWorkingHours> getCustomHours(DayOfWeek day) {
+        return weeklyHours.getCustomHours(day);
+    }
+
+    /**
+     * Date-specific rows for a date; empty if the weekly hours apply unchanged.
+     */
+    public List<RestaurantWorkingHours> getSpecialHours(LocalDate date) {
+        return specialHours.getRows(date);
+    }
+}
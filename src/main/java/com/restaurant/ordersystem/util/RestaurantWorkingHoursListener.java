@@ -0,0 +1,32 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener on {@link RestaurantWorkingHours}; Hibernate obtains it from Spring,
+ * so it can publish a {@link WorkingHoursChangedEvent} for every change.
+ */
+@Component
+public class RestaurantWorkingHoursListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RestaurantWorkingHoursListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(RestaurantWorkingHours workingHours) {
+        Integer restaurantId = workingHours.getRestaurant() != null
+                ? workingHours.getRestaurant().getRestaurantId() : null;
+        eventPublisher.publishEvent(new WorkingHoursChangedEvent(restaurantId));
+    }
+}
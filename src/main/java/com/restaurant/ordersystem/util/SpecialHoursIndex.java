@@ -0,0 +1,163 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Date-specific working hours of one restaurant (rows with a {@code date}), indexed for
+ * lookup by date and minute of day.
+ *
+ * Dates are kept in a sorted array of epoch days and found by binary search; each date has
+ * sorted, merged minute intervals for its extra opening hours and for its closures. Rows with
+ * status CLOSED are closures (00:00 - 23:59 closes the whole day); other rows replace the
+ * weekly hours for that date. A year of overrides for one restaurant takes a few kilobytes.
+ */
+public final class SpecialHoursIndex {
+
+    public static final String CLOSED_STATUS = "CLOSED";
+
+    private static final SpecialHoursIndex EMPTY = new SpecialHoursIndex(new long[0], new int[0][], new int[0][],
+            Collections.emptyList());
+
+    private final long[] epochDays;
+    // Per date: {start0, end0, start1, end1, ...} in minutes of the day, both ends included; null if none
+    private final int[][] openIntervals;
+    private final int[][] closedIntervals;
+    private final List<List<RestaurantWorkingHours>> rows;
+
+    private SpecialHoursIndex(long[] epochDays, int[][] openIntervals, int[][] closedIntervals,
+                              List<List<RestaurantWorkingHours>> rows) {
+        this.epochDays = epochDays;
+        this.openIntervals = openIntervals;
+        this.closedIntervals = closedIntervals;
+        this.rows = rows;
+    }
+
+    /**
+     * Build the index from a restaurant's working hours rows; rows without a date are ignored.
+     */
+    public static SpecialHoursIndex compile(List<RestaurantWorkingHours> workingHours) {
+        Map<Long, List<RestaurantWorkingHours>> byDate = new TreeMap<>();
+        for (RestaurantWorkingHours hours : workingHours) {
+            if (hours.getDate() != null) {
+                byDate.computeIfAbsent(hours.getDate().toEpochDay(), d -> new ArrayList<>()).add(hours);
+            }
+        }
+        if (byDate.isEmpty()) {
+            return EMPTY;
+        }
+
+        int size = byDate.size();
+        long[] epochDays = new long[size];
+        int[][] open = new int[size][];
+        int[][] closed = new int[size][];
+        List<List<RestaurantWorkingHours>> rows = new ArrayList<>(size);
+
+        int i = 0;
+        for (Map.Entry<Long, List<RestaurantWorkingHours>> entry : byDate.entrySet()) {
+            epochDays[i] = entry.getKey();
+            List<int[]> openRanges = new ArrayList<>();
+            List<int[]> closedRanges = new ArrayList<>();
+            for (RestaurantWorkingHours hours : entry.getValue()) {
+                int[] range = toMinutes(hours.getStartTime(), hours.getEndTime());
+                if (range == null) {
+                    continue;
+                }
+                if (CLOSED_STATUS.equalsIgnoreCase(hours.getStatus())) {
+                    closedRanges.add(range);
+                } else {
+                    openRanges.add(range);
+                }
+            }
+            open[i] = merge(openRanges);
+            closed[i] = merge(closedRanges);
+            rows.add(Collections.unmodifiableList(entry.getValue()));
+            i++;
+        }
+        return new SpecialHoursIndex(epochDays, open, closed, Collections.unmodifiableList(rows));
+    }
+
+    /**
+     * Position of a date in the index, or a negative value if it has no special hours.
+     */
+    public int find(LocalDate date) {
+        return Arrays.binarySearch(epochDays, date.toEpochDay());
+    }
+
+    /**
+     * Whether the date at this position defines its own opening hours instead of the weekly ones.
+     */
+    public boolean replacesWeeklyHours(int position) {
+        return openIntervals[position] != null;
+    }
+
+    public boolean isOpen(int position, int minuteOfDay) {
+        return contains(openIntervals[position], minuteOfDay);
+    }
+
+    public boolean isClosed(int position, int minuteOfDay) {
+        return contains(closedIntervals[position], minuteOfDay);
+    }
+
+    public List<RestaurantWorkingHours> getRows(LocalDate date) {
+        int position = find(date);
+        return position >= 0 ? rows.get(position) : List.of();
+    }
+
+    private static boolean contains(int[] intervals, int minute) {
+        if (intervals == null) {
+            return false;
+        }
+        // Intervals are sorted and disjoint; a day rarely has more than a handful
+        for (int i = 0; i < intervals.length; i += 2) {
+            if (minute < intervals[i]) {
+                return false;
+            }
+            if (minute <= intervals[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] toMinutes(LocalTime start, LocalTime end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            return null;
+        }
+        int first = start.getHour() * 60 + start.getMinute();
+        if (start.getSecond() != 0 || start.getNano() != 0) {
+            first++;
+        }
+        return new int[]{first, end.getHour() * 60 + end.getMinute()};
+    }
+
+    private static int[] merge(List<int[]> ranges) {
+        if (ranges.isEmpty()) {
+            return null;
+        }
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new int[]{range[0], range[1]});
+            }
+        }
+        int[] flat = new int[merged.size() * 2];
+        for (int i = 0; i < merged.size(); i++) {
+            flat[2 * i] = merged.get(i)[0];
+            flat[2 * i + 1] = merged.get(i)[1];
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,115 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A restaurant's weekly opening hours compiled into a bitset with one bit per minute of
+ * the week (7 x 1440 bits, about 1.3 KB). Days with working hours rows use those rows;
+ * other days use the default hours. Checking a time is a single bit test. Rows for a
+ * specific date are not part of the weekly hours, see {@link SpecialHoursIndex}.
+ *
+ * Resolution is one minute: a range from 11:00 to 14:00 opens the minutes 11:00 through
+ * 14:00, both included, so 14:00:30 is still open. A start time with seconds opens at the
+ * next whole minute.
+ */
+public final class WeeklyOpeningHours {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final long[] openMinutes = new long[(MINUTES_PER_WEEK + 63) / 64];
+    private final Map<DayOfWeek, List<RestaurantWorkingHours>> customHours;
+
+    private WeeklyOpeningHours(Map<DayOfWeek, List<RestaurantWorkingHours>> customHours) {
+        this.customHours = customHours;
+    }
+
+    /**
+     * Compile the working hours rows of one restaurant.
+     *
+     * @param workingHours All working hours rows of the restaurant; rows with a date are skipped
+     * @param defaultHours Hours for days without rows
+     * @return The compiled schedule
+     */
+    public static WeeklyOpeningHours compile(List<RestaurantWorkingHours> workingHours,
+                                             Map<DayOfWeek, List<RestaurantHoursUtil.TimeRange>> defaultHours) {
+        Map<DayOfWeek, List<RestaurantWorkingHours>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (RestaurantWorkingHours hours : workingHours) {
+            DayOfWeek day = parseDay(hours.getDayOfTheWeek());
+            if (day != null && hours.getDate() == null) {
+                byDay.computeIfAbsent(day, d -> new ArrayList<>()).add(hours);
+            }
+        }
+        byDay.replaceAll((day, rows) -> Collections.unmodifiableList(rows));
+
+        WeeklyOpeningHours schedule = new WeeklyOpeningHours(Collections.unmodifiableMap(byDay));
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<RestaurantWorkingHours> rows = byDay.get(day);
+            if (rows != null) {
+                for (RestaurantWorkingHours hours : rows) {
+                    schedule.open(day, hours.getStartTime(), hours.getEndTime());
+                }
+            } else {
+                for (RestaurantHoursUtil.TimeRange range : defaultHours.getOrDefault(day, List.of())) {
+                    schedule.open(day, range.getStart(), range.getEnd());
+                }
+            }
+        }
+        return schedule;
+    }
+
+    public boolean isOpen(DayOfWeek day, LocalTime time) {
+        return isOpen(minuteOfWeek(day, time));
+    }
+
+    public boolean isOpen(int minuteOfWeek) {
+        return (openMinutes[minuteOfWeek >>> 6] & (1L << minuteOfWeek)) != 0;
+    }
+
+    /**
+     * Working hours rows defined for a day; empty if the day uses the default hours.
+     */
+    public List<RestaurantWorkingHours> getCustomHours(DayOfWeek day) {
+        return customHours.getOrDefault(day, List.of());
+    }
+
+    public static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    private void open(DayOfWeek day, LocalTime start, LocalTime end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            // Same as the range check these replace: a range ending before it starts never matches
+            return;
+        }
+        int first = start.getHour() * 60 + start.getMinute();
+        if (start.getSecond() != 0 || start.getNano() != 0) {
+            first++;
+        }
+        int last = end.getHour() * 60 + end.getMinute();
+        int dayOffset = (day.getValue() - 1) * MINUTES_PER_DAY;
+        for (int minute = dayOffset + first; minute <= dayOffset + last; minute++) {
+            openMinutes[minute >>> 6] |= 1L << minute;
+        }
+    }
+
+    private static DayOfWeek parseDay(String dayOfTheWeek) {
+        if (dayOfTheWeek == null) {
+            return null;
+        }
+        try {
+            return DayOfWeek.valueOf(dayOfTheWeek.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
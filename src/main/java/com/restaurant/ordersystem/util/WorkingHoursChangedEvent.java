@@ -0,0 +1,17 @@
+package com.restaurant.ordersystem.util;
+
+/**
+ * Published when a restaurant's working hours rows are inserted, updated or deleted.
+ */
+public class WorkingHoursChangedEvent {
+
+    private final Integer restaurantId;
+
+    public WorkingHoursChangedEvent(Integer restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public Integer getRestaurantId() {
+        return restaurantId;
+    }
+}
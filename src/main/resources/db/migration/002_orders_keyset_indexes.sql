@@ -0,0 +1,8 @@
+-- Composite indexes backing keyset pagination on GET /api/orders/search.
+-- Hibernate (ddl-auto=update) creates these on fresh schemas; run this manually on
+-- existing databases, ideally with ALGORITHM=INPLACE, LOCK=NONE on large tables.
+
+CREATE INDEX idx_orders_date_id ON orders (order_date, order_id);
+CREATE INDEX idx_orders_restaurant_date_id ON orders (restaurant_id, order_date, order_id);
+CREATE INDEX idx_orders_customer_date_id ON orders (customer_id, order_date, order_id);
+CREATE INDEX idx_orders_status_date_id ON orders (status, order_date, order_id);
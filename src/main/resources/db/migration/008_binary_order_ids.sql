@@ -0,0 +1,52 @@
+-- Convert order ids from VARCHAR(36) UUID strings to BINARY(16).
+-- Existing ids keep their value (UNHEX of the hex digits); new orders get time-ordered
+-- UUIDv7 ids from OrderIdGenerator. The API still uses the canonical string form.
+-- Only orders, order_items and payments predate binary ids; tables added since then
+-- are created with BINARY(16) order_id columns. Run with the application stopped; take a
+-- backup first.
+
+-- 1. Add the binary columns and fill them from the string ids
+ALTER TABLE orders ADD COLUMN order_id_bin BINARY(16) NULL;
+UPDATE orders SET order_id_bin = UNHEX(REPLACE(order_id, '-', ''));
+
+ALTER TABLE order_items ADD COLUMN order_id_bin BINARY(16) NULL;
+UPDATE order_items SET order_id_bin = UNHEX(REPLACE(order_id, '-', ''));
+
+ALTER TABLE payments ADD COLUMN order_id_bin BINARY(16) NULL;
+UPDATE payments SET order_id_bin = UNHEX(REPLACE(order_id, '-', '')) WHERE order_id IS NOT NULL;
+
+-- 2. Drop the Hibernate-generated foreign key from order_items to orders (its name is generated)
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order_items'
+              AND COLUMN_NAME = 'order_id' AND REFERENCED_TABLE_NAME = 'orders' LIMIT 1);
+SET @sql := CONCAT('ALTER TABLE order_items DROP FOREIGN KEY ', @fk);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 3. Swap the columns
+ALTER TABLE order_items
+    DROP COLUMN order_id,
+    CHANGE COLUMN order_id_bin order_id BINARY(16) NOT NULL;
+
+ALTER TABLE orders
+    DROP INDEX idx_orders_date_id,
+    DROP INDEX idx_orders_restaurant_date_id,
+    DROP INDEX idx_orders_customer_date_id,
+    DROP INDEX idx_orders_status_date_id,
+    DROP PRIMARY KEY,
+    DROP COLUMN order_id,
+    CHANGE COLUMN order_id_bin order_id BINARY(16) NOT NULL FIRST,
+    ADD PRIMARY KEY (order_id),
+    ADD INDEX idx_orders_date_id (order_date, order_id),
+    ADD INDEX idx_orders_restaurant_date_id (restaurant_id, order_date, order_id),
+    ADD INDEX idx_orders_customer_date_id (customer_id, order_date, order_id),
+    ADD INDEX idx_orders_status_date_id (status, order_date, order_id);
+
+ALTER TABLE payments
+    DROP COLUMN order_id,
+    CHANGE COLUMN order_id_bin order_id BINARY(16) NULL;
+
+-- 4. Restore the foreign key
+ALTER TABLE order_items
+    ADD CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (order_id);
@@ -3,17 +3,25 @@ package com.restaurant.ordersystem.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.restaurant.ordersystem.dto.OrderRequestDTO;
 import com.restaurant.ordersystem.dto.OrderResponseDTO;
+import com.restaurant.ordersystem.dto.OrderTicketDTO;
 import com.restaurant.ordersystem.exception.InvalidOrderException;
 import com.restaurant.ordersystem.exception.ResourceNotFoundException;
+import com.restaurant.ordersystem.exception.TooManyRequestsException;
+import com.restaurant.ordersystem.service.AsyncOrderPlacementService;
+import com.restaurant.ordersystem.service.IdempotencyService;
 import com.restaurant.ordersystem.service.OrderService;
+import com.restaurant.ordersystem.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -21,7 +29,10 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +46,15 @@ public class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private PaymentService paymentService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private AsyncOrderPlacementService asyncOrderPlacementService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -86,6 +106,28 @@ public class OrderControllerTest {
         verify(orderService, times(1)).placeOrder(any(OrderRequestDTO.class));
     }
 
+    @Test
+    void testPlaceOrderAsync_RetryWithSameIdempotencyKeyReturnsSameTicket() throws Exception {
+        OrderTicketDTO ticket = new OrderTicketDTO("order123", "PENDING", null, LocalDateTime.now(), "/api/orders/order123");
+        when(asyncOrderPlacementService.submit(any(OrderRequestDTO.class), eq("retry-key-1"))).thenReturn(ticket);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/orders").param("async", "true")
+                    .header("Idempotency-Key", "retry-key-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "/api/orders/order123"))
+                    .andExpect(jsonPath("$.orderId", is("order123")))
+                    .andExpect(jsonPath("$.status", is("PENDING")));
+        }
+
+        // The key reaches the async service on every attempt, and nothing is placed on the request thread
+        verify(asyncOrderPlacementService, times(2)).submit(any(OrderRequestDTO.class), eq("retry-key-1"));
+        verify(idempotencyService, never()).placeOrder(anyString(), any(OrderRequestDTO.class));
+        verify(orderService, never()).placeOrder(any(OrderRequestDTO.class));
+    }
+
     @Test
     void testGetAllOrders() throws Exception {
         List<OrderResponseDTO> orders = Arrays.asList(orderResponse);
@@ -165,4 +207,20 @@ public class OrderControllerTest {
 
         verify(orderService, times(1)).cancelOrder(orderId);
     }
+
+    @Test
+    void testExportOrders_RejectsExportsBeyondTheLimitUntilOneFinishes() throws Exception {
+        OrderController controller = new OrderController(orderService, paymentService, idempotencyService,
+                asyncOrderPlacementService, 1);
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        LocalDateTime end = LocalDateTime.now();
+
+        ResponseEntity<StreamingResponseBody> running = controller.exportOrders(start, end, "csv");
+
+        assertThrows(TooManyRequestsException.class, () -> controller.exportOrders(start, end, "ndjson"));
+
+        running.getBody().writeTo(new ByteArrayOutputStream());
+        controller.exportOrders(start, end, "ndjson");
+        verify(orderService, times(1)).exportOrders(eq(start), eq(end), eq(OrderService.ExportFormat.CSV), any());
+    }
 }
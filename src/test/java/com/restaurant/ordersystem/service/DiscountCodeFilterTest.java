@@ -0,0 +1,144 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.repository.CouponRepository;
+import com.restaurant.ordersystem.repository.ReferralRepository;
+import com.restaurant.ordersystem.repository.VoucherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Issued codes always pass, codes are normalized, and misses are checked again against
+ * codes created since the last sync.
+ */
+@ExtendWith(MockitoExtension.class)
+class DiscountCodeFilterTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private VoucherRepository voucherRepository;
+
+    @Mock
+    private ReferralRepository referralRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DiscountCodeFilter discountCodeFilter;
+
+    @BeforeEach
+    void setUp() {
+        discountCodeFilter = new DiscountCodeFilter(couponRepository, voucherRepository, referralRepository,
+                transactionManager);
+    }
+
+    @Test
+    void everyCodePassesUntilTheFilterIsBuilt() {
+        assertTrue(discountCodeFilter.mightExist("UNKNOWN"));
+        verifyNoInteractions(couponRepository, voucherRepository, referralRepository);
+    }
+
+    @Test
+    void issuedCodesAreNeverRejected() {
+        List<String> vouchers = IntStream.range(0, 20_000).mapToObj(i -> "VOUCHER" + i).collect(Collectors.toList());
+        build(List.of("SAVE10", "WELCOME"), vouchers, List.of("REF-ALICE"));
+        trustMisses();
+
+        assertTrue(discountCodeFilter.mightExist("SAVE10"));
+        assertTrue(discountCodeFilter.mightExist("REF-ALICE"));
+        vouchers.forEach(code -> assertTrue(discountCodeFilter.mightExist(code), code));
+        assertFalse(discountCodeFilter.mightExist("NOSUCHCODE"));
+    }
+
+    @Test
+    void codesAreMatchedTrimmedAndUpperCased() {
+        build(List.of("Save10"), List.of(), List.of());
+        trustMisses();
+        discountCodeFilter.add(" vip-lunch ");
+
+        assertTrue(discountCodeFilter.mightExist("  save10 "));
+        assertTrue(discountCodeFilter.mightExist("SAVE10"));
+        assertTrue(discountCodeFilter.mightExist("VIP-LUNCH"));
+    }
+
+    @Test
+    void missLoadsCodesCreatedElsewhereBeforeRejecting() {
+        build(List.of(), List.of(), List.of());
+        ReflectionTestUtils.setField(discountCodeFilter, "catchUpIntervalMs", 0L);
+        when(couponRepository.findAllCodes()).thenReturn(List.of());
+        when(voucherRepository.findCodesCreatedSince(any())).thenReturn(List.of("fresh1"));
+        when(referralRepository.findCodesCreatedSince(any())).thenReturn(List.of());
+
+        assertTrue(discountCodeFilter.mightExist("FRESH1"));
+        assertEquals(1L, discountCodeFilter.getStats().get("catchUps"));
+    }
+
+    @Test
+    void missRightAfterASyncIsTrusted() {
+        build(List.of(), List.of(), List.of());
+        trustMisses();
+
+        assertFalse(discountCodeFilter.mightExist("FRESH1"));
+        verify(voucherRepository, never()).findCodesCreatedSince(any());
+        assertEquals(0L, discountCodeFilter.getStats().get("catchUps"));
+    }
+
+    @Test
+    void missDuringARebuildPassesWithoutWaitingForIt() throws Exception {
+        build(List.of(), List.of(), List.of());
+        ReflectionTestUtils.setField(discountCodeFilter, "catchUpIntervalMs", 0L);
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(voucherRepository.streamAllCodes()).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return Stream.of("LATE");
+        });
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(discountCodeFilter::rebuild);
+        try {
+            loading.await();
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertTrue(discountCodeFilter.mightExist("FRESH1")));
+            verify(voucherRepository, never()).findCodesCreatedSince(any());
+        } finally {
+            release.countDown();
+            rebuild.get();
+        }
+        assertTrue(discountCodeFilter.mightExist("LATE"));
+    }
+
+    private void build(List<String> coupons, List<String> vouchers, List<String> referrals) {
+        when(couponRepository.count()).thenReturn((long) coupons.size());
+        when(voucherRepository.count()).thenReturn((long) vouchers.size());
+        when(referralRepository.count()).thenReturn((long) referrals.size());
+        when(couponRepository.findAllCodes()).thenReturn(coupons);
+        when(voucherRepository.streamAllCodes()).thenReturn(vouchers.stream());
+        when(referralRepository.streamAllCodes()).thenReturn(referrals.stream(), Stream.empty());
+        discountCodeFilter.rebuild();
+    }
+
+    // The filter was just built, so a miss is rejected without a catch-up
+    private void trustMisses() {
+        ReflectionTestUtils.setField(discountCodeFilter, "catchUpIntervalMs", Duration.ofHours(1).toMillis());
+    }
+}
@@ -0,0 +1,220 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Coupon;
+import com.restaurant.ordersystem.model.Customer;
+import com.restaurant.ordersystem.model.Referral;
+import com.restaurant.ordersystem.model.Voucher;
+import com.restaurant.ordersystem.repository.CouponRedemptionRepository;
+import com.restaurant.ordersystem.repository.CouponRepository;
+import com.restaurant.ordersystem.repository.CustomerRepository;
+import com.restaurant.ordersystem.repository.ReferralRepository;
+import com.restaurant.ordersystem.repository.VoucherRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64 checkouts redeem the same single-use voucher or referral, or the same customer's
+ * limited coupon, at the same moment, each in its own transaction; exactly as many of them
+ * as the code allows may win. Runs against the MySQL database from
+ * application.properties (or -Dspring.datasource.url=...) because the guarantee depends on
+ * InnoDB row locks: a conditional UPDATE that waits on a row another checkout has just
+ * updated re-checks its WHERE clause after that commit, for the voucher and referral rows
+ * as for the coupon counter.
+ *
+ * Skipped unless enabled, e.g.:
+ * mvn test -Dtest=DiscountRedemptionStressTest -Dstress.tests=true
+ */
+@DataJpaTest(properties = "spring.datasource.hikari.maximum-pool-size=" + (DiscountRedemptionStressTest.CHECKOUTS + 4))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "stress.tests", matches = "true")
+class DiscountRedemptionStressTest {
+
+    static final int CHECKOUTS = 64;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private CouponRedemptionRepository couponRedemptionRepository;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
+    @Autowired
+    private ReferralRepository referralRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private DiscountService discountService;
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Coupon> coupons = new ArrayList<>();
+    private final List<Voucher> vouchers = new ArrayList<>();
+    private final List<Referral> referrals = new ArrayList<>();
+    private final List<Customer> customers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DiscountCodeFilter discountCodeFilter = new DiscountCodeFilter(
+                couponRepository, voucherRepository, referralRepository, transactionManager);
+        CouponRedemptionService couponRedemptionService = new CouponRedemptionService(couponRedemptionRepository, 60, 1000);
+        discountService = new DiscountService(couponRepository, voucherRepository, referralRepository,
+                discountCodeFilter, couponRedemptionService, jdbcTemplate, entityManager, eventPublisher);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Coupon coupon : coupons) {
+            jdbcTemplate.update("DELETE FROM coupon_redemptions WHERE coupon_id = ?", coupon.getCouponId());
+        }
+        couponRepository.deleteAll(coupons);
+        referralRepository.deleteAll(referrals);
+        voucherRepository.deleteAll(vouchers);
+        customerRepository.deleteAll(customers);
+    }
+
+    @Test
+    void voucherIsRedeemedExactlyOnce() throws Exception {
+        Voucher voucher = new Voucher();
+        voucher.setVoucherCode("STRESS-" + UUID.randomUUID());
+        voucher.setStatus(Voucher.VoucherStatus.Active);
+        voucher.setDiscountAmount(BigDecimal.TEN);
+        voucher.setExpiryDate(LocalDateTime.now().plusDays(1));
+        voucher.setIsUsed(false);
+        voucher.setCreatedDateTime(LocalDateTime.now());
+        Integer voucherId = voucherRepository.save(voucher).getVoucherId();
+        vouchers.add(voucher);
+
+        int redeemed = checkoutConcurrently(() -> transactionTemplate.execute(status ->
+                discountService.markVoucherAsUsed(voucherRepository.findById(voucherId).orElseThrow())));
+
+        assertEquals(1, redeemed);
+        Voucher stored = voucherRepository.findById(voucherId).orElseThrow();
+        assertTrue(stored.getIsUsed());
+        assertEquals(Voucher.VoucherStatus.Used, stored.getStatus());
+    }
+
+    @Test
+    void referralIsRedeemedExactlyOnce() throws Exception {
+        Customer referrer = new Customer();
+        referrer.setFullName("Stress Referrer");
+        referrer.setEncryptedPhoneNumber("stress-" + UUID.randomUUID());
+        customerRepository.save(referrer);
+        customers.add(referrer);
+
+        Referral referral = new Referral();
+        referral.setReferralCode("STRESS-" + UUID.randomUUID());
+        referral.setReferrer(referrer);
+        referral.setIsUsed(false);
+        referral.setStatus(Referral.ReferralStatus.Active);
+        referral.setCreatedDateTime(LocalDateTime.now());
+        Integer referralId = referralRepository.save(referral).getReferralId();
+        referrals.add(referral);
+
+        int redeemed = checkoutConcurrently(() -> transactionTemplate.execute(status ->
+                discountService.markReferralAsUsed(referralRepository.findById(referralId).orElseThrow())));
+
+        assertEquals(1, redeemed);
+        Referral stored = referralRepository.findById(referralId).orElseThrow();
+        assertTrue(stored.getIsUsed());
+        assertEquals(Referral.ReferralStatus.Used, stored.getStatus());
+    }
+
+    @Test
+    void couponLimitPerUserIsNeverExceeded() throws Exception {
+        Customer customer = new Customer();
+        customer.setFullName("Stress Customer");
+        customerRepository.save(customer);
+        customers.add(customer);
+
+        Coupon coupon = new Coupon();
+        coupon.setCouponCode("STRESS-" + UUID.randomUUID());
+        coupon.setCouponName("Stress coupon");
+        coupon.setStatus(Coupon.CouponStatus.Active);
+        coupon.setCouponDiscountPercentage(10);
+        coupon.setMaxAmount(50);
+        coupon.setMinOrderValue(0f);
+        coupon.setDiscountType("PERCENTAGE");
+        coupon.setLimitPerUser(3);
+        coupon.setStartDate(LocalDateTime.now().minusDays(1));
+        coupon.setEndDate(LocalDateTime.now().plusDays(1));
+        couponRepository.save(coupon);
+        coupons.add(coupon);
+
+        int redeemed = checkoutConcurrently(() -> transactionTemplate.execute(status ->
+                discountService.markCouponAsUsed(coupon, customer)));
+
+        assertEquals(3, redeemed);
+    }
+
+    // Starts all checkouts together and returns how many of them redeemed the code
+    private int checkoutConcurrently(Callable<Boolean> checkout) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch ready = new CountDownLatch(CHECKOUTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < CHECKOUTS; i++) {
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    return checkout.call();
+                }));
+            }
+            assertTrue(ready.await(30, TimeUnit.SECONDS));
+            start.countDown();
+
+            int redeemed = 0;
+            for (Future<Boolean> result : results) {
+                if (Boolean.TRUE.equals(result.get(60, TimeUnit.SECONDS))) {
+                    redeemed++;
+                }
+            }
+            return redeemed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
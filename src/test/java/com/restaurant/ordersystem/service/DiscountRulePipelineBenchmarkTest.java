@@ -0,0 +1,140 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Category;
+import com.restaurant.ordersystem.model.DiscountRule;
+import com.restaurant.ordersystem.model.MenuItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation cost of a compiled pipeline of active campaign rules against a typical cart,
+ * and the cost of compiling it. Rules mix percentage, fixed and free item rules, half of
+ * them restricted to one of 50 categories, with minimum spends and caps; all are stackable,
+ * so a pass only ends early once the discount reaches the cart total.
+ *
+ * Skipped unless enabled, e.g.:
+ * mvn test -Dtest=DiscountRulePipelineBenchmarkTest -Dbenchmark.jmh=true
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscountRulePipelineBenchmarkTest {
+
+    private static final int CATEGORIES = 50;
+    private static final int MENU_ITEMS = 500;
+
+    @Param({"1000"})
+    public int ruleCount;
+
+    @Param({"8"})
+    public int cartLines;
+
+    private List<DiscountRule> rules;
+    private DiscountRulePipeline pipeline;
+    private CartLines cart;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        now = LocalDateTime.now();
+
+        rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(randomRule(i + 1, random));
+        }
+        pipeline = DiscountRulePipeline.compile(rules);
+
+        int[] itemIds = new int[cartLines];
+        int[] categoryIds = new int[cartLines];
+        long[] unitPrices = new long[cartLines];
+        int[] quantities = new int[cartLines];
+        for (int i = 0; i < cartLines; i++) {
+            itemIds[i] = 1 + random.nextInt(MENU_ITEMS);
+            categoryIds[i] = 1 + random.nextInt(CATEGORIES);
+            unitPrices[i] = 299 + random.nextInt(2000);
+            quantities[i] = 1 + random.nextInt(3);
+        }
+        cart = new CartLines(itemIds, categoryIds, unitPrices, quantities);
+    }
+
+    @Benchmark
+    public long evaluate() {
+        return pipeline.evaluate(cart, Long.MAX_VALUE, now).getDiscount();
+    }
+
+    @Benchmark
+    public DiscountRulePipeline compile() {
+        return DiscountRulePipeline.compile(rules);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.jmh", matches = "true")
+    void runBenchmark() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(DiscountRulePipelineBenchmarkTest.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private DiscountRule randomRule(int ruleId, Random random) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(ruleId);
+        rule.setName("Campaign " + ruleId);
+        rule.setStatus(DiscountRule.RuleStatus.Active);
+        rule.setPriority(random.nextInt(100));
+        rule.setStackable(true);
+        rule.setStartDate(now.minusDays(1));
+        rule.setEndDate(now.plusDays(30));
+        rule.setMinSpend(BigDecimal.valueOf(random.nextInt(5000), 2));
+        rule.setMaxDiscount(BigDecimal.valueOf(50 + random.nextInt(500), 2));
+
+        switch (random.nextInt(3)) {
+            case 0:
+                rule.setRuleType(DiscountRule.RuleType.Percentage);
+                rule.setPercentage(1 + random.nextInt(20));
+                break;
+            case 1:
+                rule.setRuleType(DiscountRule.RuleType.Fixed);
+                rule.setAmount(BigDecimal.valueOf(50 + random.nextInt(500), 2));
+                break;
+            default:
+                rule.setRuleType(DiscountRule.RuleType.FreeItem);
+                MenuItem freeItem = new MenuItem();
+                freeItem.setItemId(1 + random.nextInt(MENU_ITEMS));
+                rule.setFreeItem(freeItem);
+                break;
+        }
+
+        if (random.nextBoolean()) {
+            Category category = new Category();
+            category.setCategoryId(1 + random.nextInt(CATEGORIES));
+            rule.setCategory(category);
+        }
+        return rule;
+    }
+}
@@ -0,0 +1,191 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Category;
+import com.restaurant.ordersystem.model.DiscountRule;
+import com.restaurant.ordersystem.model.MenuItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rule order, stacking, caps, category spend, free items and validity of a compiled
+ * {@link DiscountRulePipeline}. Amounts are in minor units.
+ */
+class DiscountRulePipelineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 20, 12, 0);
+
+    // 100.00 in total: item 1 (category 7) 2 x 15.00, item 2 (category 8) 1 x 70.00
+    private static final CartLines CART = new CartLines(
+            new int[]{1, 2}, new int[]{7, 8}, new long[]{1500, 7000}, new int[]{2, 1});
+
+    @Test
+    void rulesApplyInPriorityOrderAndStack() {
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(
+                fixed(1, 2, "5.00"),
+                percentage(2, 1, 10)));
+
+        DiscountRulePipeline.Result result = pipeline.evaluate(CART, Long.MAX_VALUE, NOW);
+
+        assertEquals(1500, result.getDiscount());
+        assertArrayEquals(new int[]{2, 1}, result.getAppliedRuleIds());
+    }
+
+    @Test
+    void equalPrioritiesApplyInRuleIdOrder() {
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(
+                fixed(9, 1, "5.00"),
+                fixed(3, 1, "2.00")));
+
+        assertArrayEquals(new int[]{3, 9}, pipeline.evaluate(CART, Long.MAX_VALUE, NOW).getAppliedRuleIds());
+    }
+
+    @Test
+    void nonStackableRuleEndsThePassOnceItApplies() {
+        DiscountRule notReached = fixed(1, 1, "5.00");
+        notReached.setStackable(false);
+        notReached.setMinSpend(new BigDecimal("500.00"));
+        DiscountRule exclusive = percentage(2, 2, 10);
+        exclusive.setStackable(false);
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(
+                notReached, exclusive, fixed(3, 3, "5.00")));
+
+        DiscountRulePipeline.Result result = pipeline.evaluate(CART, Long.MAX_VALUE, NOW);
+
+        assertEquals(1000, result.getDiscount());
+        assertArrayEquals(new int[]{2}, result.getAppliedRuleIds());
+    }
+
+    @Test
+    void discountIsCappedByTheRuleAndByTheOrderTotalLeft() {
+        DiscountRule capped = percentage(1, 1, 50);
+        capped.setMaxDiscount(new BigDecimal("20.00"));
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(capped, fixed(2, 2, "50.00")));
+
+        assertEquals(7000, pipeline.evaluate(CART, Long.MAX_VALUE, NOW).getDiscount());
+
+        DiscountRulePipeline.Result limited = pipeline.evaluate(CART, 2500, NOW);
+        assertEquals(2500, limited.getDiscount());
+        assertArrayEquals(new int[]{1, 2}, limited.getAppliedRuleIds());
+
+        // Nothing is left once an earlier rule took the whole allowance
+        assertArrayEquals(new int[]{1}, pipeline.evaluate(CART, 2000, NOW).getAppliedRuleIds());
+    }
+
+    @Test
+    void fixedDiscountNeverExceedsTheEligibleSpend() {
+        DiscountRule rule = fixed(1, 1, "50.00");
+        rule.setCategory(category(7));
+
+        assertEquals(3000, DiscountRulePipeline.compile(List.of(rule)).evaluate(CART, Long.MAX_VALUE, NOW).getDiscount());
+    }
+
+    @Test
+    void categoryRulesApplyToTheSpendInTheirCategory() {
+        DiscountRule tenPercent = percentage(1, 1, 10);
+        tenPercent.setCategory(category(7));
+        DiscountRule minSpendNotMet = fixed(2, 2, "5.00");
+        minSpendNotMet.setCategory(category(7));
+        minSpendNotMet.setMinSpend(new BigDecimal("40.00"));
+        DiscountRule notInCart = fixed(3, 3, "5.00");
+        notInCart.setCategory(category(9));
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(tenPercent, minSpendNotMet, notInCart));
+
+        DiscountRulePipeline.Result result = pipeline.evaluate(CART, Long.MAX_VALUE, NOW);
+
+        assertEquals(300, result.getDiscount());
+        assertArrayEquals(new int[]{1}, result.getAppliedRuleIds());
+    }
+
+    @Test
+    void freeItemRuleGivesTheCheapestUnitOfTheItem() {
+        // Item 5 twice, as two variants priced 4.50 and 3.99
+        CartLines cart = new CartLines(
+                new int[]{5, 5, 6}, new int[]{7, 7, 8}, new long[]{450, 399, 2000}, new int[]{1, 3, 1});
+        DiscountRule freeItem = rule(1, 1, DiscountRule.RuleType.FreeItem);
+        freeItem.setFreeItem(menuItem(5));
+        DiscountRule notInCart = rule(2, 2, DiscountRule.RuleType.FreeItem);
+        notInCart.setFreeItem(menuItem(99));
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(freeItem, notInCart));
+
+        DiscountRulePipeline.Result result = pipeline.evaluate(cart, Long.MAX_VALUE, NOW);
+
+        assertEquals(399, result.getDiscount());
+        assertArrayEquals(new int[]{1}, result.getAppliedRuleIds());
+    }
+
+    @Test
+    void rulesApplyFromTheirStartUntilBeforeTheirEnd() {
+        DiscountRule notStarted = fixed(1, 1, "1.00");
+        notStarted.setStartDate(NOW.plusSeconds(1));
+        DiscountRule startsNow = fixed(2, 2, "2.00");
+        startsNow.setStartDate(NOW);
+        DiscountRule endsNow = fixed(3, 3, "4.00");
+        endsNow.setEndDate(NOW);
+        DiscountRule endsLater = fixed(4, 4, "8.00");
+        endsLater.setEndDate(NOW.plusSeconds(1));
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(notStarted, startsNow, endsNow, endsLater));
+
+        DiscountRulePipeline.Result result = pipeline.evaluate(CART, Long.MAX_VALUE, NOW);
+
+        assertEquals(1000, result.getDiscount());
+        assertArrayEquals(new int[]{2, 4}, result.getAppliedRuleIds());
+    }
+
+    @Test
+    void inactiveRulesAreLeftOut() {
+        DiscountRule inactive = fixed(1, 1, "5.00");
+        inactive.setStatus(DiscountRule.RuleStatus.Inactive);
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(inactive, fixed(2, 2, "1.00")));
+
+        assertEquals(1, pipeline.size());
+        assertEquals(100, pipeline.evaluate(CART, Long.MAX_VALUE, NOW).getDiscount());
+    }
+
+    @Test
+    void emptyPipelineGivesNothing() {
+        DiscountRulePipeline.Result result = DiscountRulePipeline.EMPTY.evaluate(CART, Long.MAX_VALUE, NOW);
+
+        assertEquals(0, result.getDiscount());
+        assertEquals(0, result.getAppliedRuleIds().length);
+    }
+
+    private static DiscountRule percentage(int ruleId, int priority, int percent) {
+        DiscountRule rule = rule(ruleId, priority, DiscountRule.RuleType.Percentage);
+        rule.setPercentage(percent);
+        return rule;
+    }
+
+    private static DiscountRule fixed(int ruleId, int priority, String amount) {
+        DiscountRule rule = rule(ruleId, priority, DiscountRule.RuleType.Fixed);
+        rule.setAmount(new BigDecimal(amount));
+        return rule;
+    }
+
+    private static DiscountRule rule(int ruleId, int priority, DiscountRule.RuleType type) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(ruleId);
+        rule.setName("Rule " + ruleId);
+        rule.setRuleType(type);
+        rule.setPriority(priority);
+        rule.setStackable(true);
+        rule.setStatus(DiscountRule.RuleStatus.Active);
+        return rule;
+    }
+
+    private static Category category(int categoryId) {
+        Category category = new Category();
+        category.setCategoryId(categoryId);
+        return category;
+    }
+
+    private static MenuItem menuItem(int itemId) {
+        MenuItem item = new MenuItem();
+        item.setItemId(itemId);
+        return item;
+    }
+}
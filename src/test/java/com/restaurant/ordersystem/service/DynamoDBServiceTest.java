@@ -0,0 +1,132 @@
+package com.restaurant.ordersystem.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchWriteItem chunking and retries of {@link DynamoDBService#batchSaveOrders}, against
+ * an in-process fake client.
+ */
+class DynamoDBServiceTest {
+
+    private static final String TABLE = "orders";
+
+    private FakeDynamoDbClient client;
+    private DynamoDBService dynamoDBService;
+
+    @BeforeEach
+    void setUp() {
+        client = new FakeDynamoDbClient();
+        dynamoDBService = new DynamoDBService(client, TABLE);
+        ReflectionTestUtils.setField(dynamoDBService, "batchWriteBaseBackoffMs", 1L);
+        ReflectionTestUtils.setField(dynamoDBService, "batchWriteMaxBackoffMs", 1L);
+    }
+
+    @Test
+    void unprocessedItemsAreRetriedUntilWritten() {
+        // First call leaves the last two items unprocessed, the retry writes them
+        client.respond = request -> {
+            List<WriteRequest> sent = request.requestItems().get(TABLE);
+            return client.calls.size() == 1 ? unprocessed(sent.subList(1, sent.size())) : unprocessed(List.of());
+        };
+
+        Map<String, String> failures = dynamoDBService.batchSaveOrders(documents(3));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(2, client.calls.size());
+        assertEquals(List.of("order-1", "order-2"), orderIds(client.calls.get(1)));
+    }
+
+    @Test
+    void itemsStillUnprocessedAfterTheLastAttemptAreReported() {
+        client.respond = request -> unprocessed(request.requestItems().get(TABLE).subList(0, 1));
+
+        Map<String, String> failures = dynamoDBService.batchSaveOrders(documents(2));
+
+        assertEquals(Collections.singleton("order-0"), failures.keySet());
+        assertEquals("unprocessed after 5 attempts", failures.get("order-0"));
+        assertEquals(5, client.calls.size());
+    }
+
+    @Test
+    void failedCallsAreRetried() {
+        client.respond = request -> {
+            if (client.calls.size() == 1) {
+                throw SdkClientException.create("connection reset");
+            }
+            return unprocessed(List.of());
+        };
+
+        assertTrue(dynamoDBService.batchSaveOrders(documents(1)).isEmpty());
+        assertEquals(2, client.calls.size());
+    }
+
+    @Test
+    void requestsAreSplitIntoBatchesOfTwentyFive() {
+        client.respond = request -> unprocessed(List.of());
+
+        assertTrue(dynamoDBService.batchSaveOrders(documents(60)).isEmpty());
+        assertEquals(List.of(25, 25, 10), List.of(
+                client.calls.get(0).requestItems().get(TABLE).size(),
+                client.calls.get(1).requestItems().get(TABLE).size(),
+                client.calls.get(2).requestItems().get(TABLE).size()));
+    }
+
+    private static Map<String, Map<String, AttributeValue>> documents(int count) {
+        Map<String, Map<String, AttributeValue>> documents = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            documents.put("order-" + i, Map.of("orderId", AttributeValue.builder().s("order-" + i).build()));
+        }
+        return documents;
+    }
+
+    private static BatchWriteItemResponse unprocessed(List<WriteRequest> requests) {
+        return BatchWriteItemResponse.builder()
+                .unprocessedItems(requests.isEmpty() ? Collections.emptyMap() : Map.of(TABLE, requests))
+                .build();
+    }
+
+    private static List<String> orderIds(BatchWriteItemRequest request) {
+        List<String> ids = new ArrayList<>();
+        for (WriteRequest write : request.requestItems().get(TABLE)) {
+            ids.add(write.putRequest().item().get("orderId").s());
+        }
+        return ids;
+    }
+
+    private static class FakeDynamoDbClient implements DynamoDbClient {
+        private final List<BatchWriteItemRequest> calls = new ArrayList<>();
+        private Function<BatchWriteItemRequest, BatchWriteItemResponse> respond;
+
+        @Override
+        public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+            calls.add(request);
+            return respond.apply(request);
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
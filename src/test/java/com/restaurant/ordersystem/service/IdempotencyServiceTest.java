@@ -0,0 +1,160 @@
+package com.restaurant.ordersystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.ordersystem.config.JacksonConfig;
+import com.restaurant.ordersystem.dto.OrderRequestDTO;
+import com.restaurant.ordersystem.dto.OrderResponseDTO;
+import com.restaurant.ordersystem.exception.InvalidOrderException;
+import com.restaurant.ordersystem.model.IdempotencyRecord;
+import com.restaurant.ordersystem.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Replay of earlier responses, rejection of a reused key with a different request, and
+ * coalescing of concurrent requests with the same key.
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String ORDER_ID = "0192a7f0-0000-7000-8000-000000000001";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, orderService, objectMapper,
+                transactionManager, 24, 100);
+    }
+
+    @Test
+    void retryReplaysTheFirstResponseWithoutPlacingAgain() {
+        when(orderService.placeOrder(any())).thenReturn(response());
+
+        IdempotencyService.IdempotentResponse first = idempotencyService.placeOrder("key-1", request(1));
+        IdempotencyService.IdempotentResponse retry = idempotencyService.placeOrder("key-1", request(1));
+
+        assertFalse(first.isReplayed());
+        assertTrue(retry.isReplayed());
+        assertEquals(ORDER_ID, retry.getResponse().getOrderId());
+        verify(orderService, times(1)).placeOrder(any());
+        // The retry is answered from the hot tier
+        verify(idempotencyRecordRepository, times(1)).findById("key-1");
+    }
+
+    @Test
+    void retryOnAnotherInstanceReplaysTheStoredResponse() throws Exception {
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(storedRecord(request(1))));
+
+        IdempotencyService.IdempotentResponse retry = idempotencyService.placeOrder("key-1", request(1));
+
+        assertTrue(retry.isReplayed());
+        assertEquals(ORDER_ID, retry.getResponse().getOrderId());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void sameKeyWithADifferentRequestIsRejected() throws Exception {
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(storedRecord(request(1))));
+
+        assertThrows(InvalidOrderException.class, () -> idempotencyService.placeOrder("key-1", request(2)));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void sameKeyWithADifferentRequestIsRejectedFromTheHotTier() {
+        when(orderService.placeOrder(any())).thenReturn(response());
+        idempotencyService.placeOrder("key-1", request(1));
+
+        assertThrows(InvalidOrderException.class, () -> idempotencyService.placeOrder("key-1", request(2)));
+        verify(orderService, times(1)).placeOrder(any());
+    }
+
+    @Test
+    void concurrentRequestsWithTheSameKeyPlaceOneOrder() throws Exception {
+        CountDownLatch placing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.placeOrder(any())).thenAnswer(invocation -> {
+            placing.countDown();
+            release.await();
+            return response();
+        });
+
+        CompletableFuture<IdempotencyService.IdempotentResponse> leader =
+                CompletableFuture.supplyAsync(() -> idempotencyService.placeOrder("key-1", request(1)));
+        placing.await();
+
+        AtomicReference<IdempotencyService.IdempotentResponse> follower = new AtomicReference<>();
+        Thread followerThread = new Thread(() -> follower.set(idempotencyService.placeOrder("key-1", request(1))));
+        followerThread.start();
+        // Wait until the follower is parked on the leader's result
+        while (followerThread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        followerThread.join();
+
+        assertFalse(leader.get().isReplayed());
+        assertTrue(follower.get().isReplayed());
+        assertEquals(ORDER_ID, follower.get().getResponse().getOrderId());
+        verify(orderService, times(1)).placeOrder(any());
+    }
+
+    private static OrderRequestDTO request(int customerId) {
+        OrderRequestDTO request = new OrderRequestDTO();
+        request.setCustomerId(customerId);
+        request.setRestaurantId(1);
+        request.setPaymentMethod("Cash");
+        return request;
+    }
+
+    private static OrderResponseDTO response() {
+        OrderResponseDTO response = new OrderResponseDTO();
+        response.setOrderId(ORDER_ID);
+        response.setOrderStatus("Pending");
+        return response;
+    }
+
+    // Record stored by an earlier request, with its request hashed as the service does
+    private IdempotencyRecord storedRecord(OrderRequestDTO request) throws Exception {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey("key-1");
+        record.setRequestHash(hex.toString());
+        record.setOrderId(ORDER_ID);
+        record.setResponseBody(objectMapper.writeValueAsString(response()));
+        record.setCreatedDateTime(LocalDateTime.now().minusMinutes(1));
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        return record;
+    }
+}
@@ -0,0 +1,120 @@
+package com.restaurant.ordersystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.ordersystem.config.JacksonConfig;
+import com.restaurant.ordersystem.model.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Content negotiation and conditional requests answered from the rendered menu payloads.
+ */
+@ExtendWith(MockitoExtension.class)
+class MenuPayloadCacheTest {
+
+    @Mock
+    private MenuCatalogService menuCatalogService;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    private MenuPayloadCache menuPayloadCache;
+
+    private byte[] categoriesJson;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Category category = new Category();
+        category.setCategoryId(1);
+        category.setName("Pizza");
+        when(menuCatalogService.getCatalog()).thenReturn(catalog(1, category));
+        categoriesJson = objectMapper.writeValueAsBytes(List.of(category));
+        menuPayloadCache = new MenuPayloadCache(menuCatalogService, objectMapper);
+    }
+
+    @Test
+    void plainJsonWithoutAcceptEncoding() {
+        ResponseEntity<byte[]> response = respond(null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(categoriesJson, response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        assertNotNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    void gzipWhenAccepted() throws IOException {
+        ResponseEntity<byte[]> response = respond(null, "deflate, gzip;q=0.8, br");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(categoriesJson, gunzip(response.getBody()));
+        assertNotEquals(respond(null, null).getHeaders().getETag(), response.getHeaders().getETag());
+    }
+
+    @Test
+    void gzipWithZeroQualityIsRefused() {
+        assertNull(respond(null, "gzip;q=0").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(respond(null, "gzip; q=0.000").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", respond(null, "gzip;q=0.5").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void notModifiedForTheETagOfEitherEncoding() {
+        String plainEtag = respond(null, null).getHeaders().getETag();
+        String gzipEtag = respond(null, "gzip").getHeaders().getETag();
+
+        ResponseEntity<byte[]> plainRevalidatedAsGzip = respond(plainEtag, "gzip");
+        ResponseEntity<byte[]> gzipRevalidatedAsPlain = respond(gzipEtag, null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, plainRevalidatedAsGzip.getStatusCode());
+        assertNull(plainRevalidatedAsGzip.getBody());
+        assertEquals(gzipEtag, plainRevalidatedAsGzip.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, gzipRevalidatedAsPlain.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, respond("\"other\", W/" + plainEtag, null).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, respond("*", null).getStatusCode());
+    }
+
+    @Test
+    void staleETagGetsTheNewVersion() {
+        String etag = respond(null, null).getHeaders().getETag();
+        Category category = new Category();
+        category.setCategoryId(1);
+        category.setName("Pasta");
+        when(menuCatalogService.getCatalog()).thenReturn(catalog(2, category));
+
+        ResponseEntity<byte[]> response = respond(etag, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+    }
+
+    private ResponseEntity<byte[]> respond(String ifNoneMatch, String acceptEncoding) {
+        return menuPayloadCache.respond(MenuPayloadCache.Resource.CATEGORIES, ifNoneMatch, acceptEncoding);
+    }
+
+    private static MenuCatalog catalog(long version, Category category) {
+        return new MenuCatalog(version, LocalDateTime.now(), List.of(), List.of(), List.of(category), List.of());
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.Order;
+import com.restaurant.ordersystem.model.OrderOutboxEvent;
+import com.restaurant.ordersystem.repository.OrderItemRepository;
+import com.restaurant.ordersystem.repository.OrderOutboxRepository;
+import com.restaurant.ordersystem.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Outcome of a relay run for each claimed outbox event, including events whose lease ran
+ * out and were taken over while the batch was being written.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    @Mock
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private DynamoDBService dynamoDBService;
+
+    @Mock
+    private OrderStatusService orderStatusService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderOutboxRelay orderOutboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        orderOutboxRelay = new OrderOutboxRelay(orderOutboxRepository, orderRepository, orderItemRepository,
+                dynamoDBService, orderStatusService, transactionManager);
+        ReflectionTestUtils.setField(orderOutboxRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(orderOutboxRelay, "maxBackoffSeconds", 300L);
+    }
+
+    @Test
+    void writtenEventsAreSentAndFailedOnesRescheduled() {
+        OrderOutboxEvent written = event(1L, "order-1");
+        OrderOutboxEvent failed = event(2L, "order-2");
+        relay(List.of(written, failed), List.of(order("order-1"), order("order-2")),
+                Map.of("order-2", "unprocessed after 5 attempts"), null);
+
+        assertEquals(OrderOutboxEvent.OutboxStatus.SENT, written.getStatus());
+        assertNotNull(written.getProcessedDateTime());
+        assertEquals(OrderOutboxEvent.OutboxStatus.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertEquals("unprocessed after 5 attempts", failed.getLastError());
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void eventsForMissingOrdersAreDropped() {
+        OrderOutboxEvent event = event(1L, "order-1");
+        relay(List.of(event), List.of(), Collections.emptyMap(), null);
+
+        assertEquals(OrderOutboxEvent.OutboxStatus.SENT, event.getStatus());
+        assertEquals("order not found", event.getLastError());
+    }
+
+    @Test
+    void eventReclaimedDuringTheWriteIsLeftToItsNewRelay() {
+        OrderOutboxEvent kept = event(1L, "order-1");
+        OrderOutboxEvent reclaimed = event(2L, "order-2");
+        LocalDateTime otherLease = LocalDateTime.now().plusMinutes(10).withNano(0);
+        // Another instance takes over event 2 after its lease expired, while this relay is writing
+        relay(List.of(kept, reclaimed), List.of(order("order-1"), order("order-2")),
+                Map.of("order-2", "throttled"), () -> reclaimed.setNextAttemptAt(otherLease));
+
+        assertEquals(OrderOutboxEvent.OutboxStatus.SENT, kept.getStatus());
+        assertEquals(OrderOutboxEvent.OutboxStatus.IN_FLIGHT, reclaimed.getStatus());
+        assertEquals(otherLease, reclaimed.getNextAttemptAt());
+        assertEquals(0, reclaimed.getAttempts());
+        assertNull(reclaimed.getLastError());
+    }
+
+    @Test
+    void failedBatchReschedulesEveryEvent() {
+        OrderOutboxEvent event = event(1L, "order-1");
+        when(orderOutboxRepository.claimDueEvents(any(), any())).thenReturn(List.of(event));
+        when(orderRepository.findAllById(any())).thenThrow(new IllegalStateException("connection lost"));
+        when(orderOutboxRepository.findAllById(any())).thenReturn(List.of(event));
+
+        orderOutboxRelay.relayPendingEvents();
+
+        assertEquals(OrderOutboxEvent.OutboxStatus.PENDING, event.getStatus());
+        assertEquals("connection lost", event.getLastError());
+        verifyNoInteractions(dynamoDBService);
+    }
+
+    private void relay(List<OrderOutboxEvent> events, List<Order> orders, Map<String, String> failures,
+                       Runnable duringWrite) {
+        when(orderOutboxRepository.claimDueEvents(any(), any())).thenReturn(events);
+        when(orderItemRepository.findByOrderIdsWithMenuDetails(any())).thenReturn(List.of());
+        when(orderRepository.findAllById(any())).thenReturn(orders);
+        when(orderStatusService.getHistories(any())).thenReturn(Collections.emptyMap());
+        for (Order order : orders) {
+            when(dynamoDBService.buildOrderItem(eq(order), any(), any(), any(), any()))
+                    .thenReturn(Map.of("orderId", AttributeValue.builder().s(order.getOrderId()).build()));
+        }
+        when(dynamoDBService.batchSaveOrders(any())).thenAnswer(invocation -> {
+            if (duringWrite != null) {
+                duringWrite.run();
+            }
+            return failures;
+        });
+        when(orderOutboxRepository.findAllById(any())).thenReturn(events);
+
+        orderOutboxRelay.relayPendingEvents();
+    }
+
+    private static OrderOutboxEvent event(Long id, String orderId) {
+        OrderOutboxEvent event = new OrderOutboxEvent();
+        event.setId(id);
+        event.setOrderId(orderId);
+        event.setEventType(OrderOutboxEvent.EventType.ORDER_PLACED);
+        event.setStatus(OrderOutboxEvent.OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        event.setCreatedDateTime(LocalDateTime.now().minusSeconds(1));
+        return event;
+    }
+
+    private static Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
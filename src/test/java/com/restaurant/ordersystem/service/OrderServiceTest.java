@@ -1,6 +1,7 @@
 package com.restaurant.ordersystem.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.ordersystem.config.JacksonConfig;
 import com.restaurant.ordersystem.dto.OrderRequestDTO;
 import com.restaurant.ordersystem.dto.OrderResponseDTO;
 import com.restaurant.ordersystem.exception.InvalidOrderException;
@@ -14,6 +15,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
 /**
  * Unit tests for the OrderService class using Mockito for mocking dependencies.
  *
@@ -31,17 +37,24 @@ import org.mockito.junit.jupiter.MockitoExtension;
  * - Verify interactions with verify() statements
  */
 
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -92,7 +105,19 @@ class OrderServiceTest {
     private DiscountService discountService;
 
     @Mock
-    private DynamoDBService dynamoDBService;
+    private DiscountRuleService discountRuleService;
+
+    @Mock
+    private CartPricingService cartPricingService;
+
+    @Mock
+    private OrderOutboxService orderOutboxService;
+
+    @Mock
+    private OrderStatusService orderStatusService;
+
+    @Mock
+    private PickupSlotService pickupSlotService;
 
     @Mock
     private RestaurantHoursUtil restaurantHoursUtil;
@@ -100,6 +125,12 @@ class OrderServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -159,8 +190,9 @@ class OrderServiceTest {
         cartItem.setMenuItem(menuItem);
         cartItem.setVariant(variant);
         cartItem.setQuantity(2);
-        cartItem.setPrice(BigDecimal.valueOf(12.99));
-        cartItem.setSubtotal(BigDecimal.valueOf(25.98));
+        // Stored when the item was added; checkout reprices it from the menu at 12.99
+        cartItem.setPrice(BigDecimal.valueOf(11.99));
+        cartItem.setSubtotal(BigDecimal.valueOf(23.98));
         cartItems.add(cartItem);
 
         // Setup cart
@@ -168,18 +200,24 @@ class OrderServiceTest {
         cart.setCartId(1);
         cart.setCustomer(customer);
         cart.setCartItems(cartItems);
-        cart.setTotalAmount(BigDecimal.valueOf(25.98));
+        cart.setTotalAmount(BigDecimal.valueOf(23.98));
         cart.setStatus("ACTIVE");
 
         // Setup order request
         orderRequest = new OrderRequestDTO();
         orderRequest.setCustomerId(1);
         orderRequest.setRestaurantId(1);
-        orderRequest.setPaymentMethod("Pay Online");
+        orderRequest.setPaymentMethod("UPI");
         orderRequest.setOrderDate(LocalDateTime.now());
         orderRequest.setDeliveryDate(LocalDateTime.now().plusHours(2));
     }
 
+    private void stubCampaignRules(DiscountRule... rules) {
+        DiscountRulePipeline pipeline = DiscountRulePipeline.compile(List.of(rules));
+        when(discountRuleService.evaluate(any(CartLines.class), anyLong())).thenAnswer(invocation ->
+                pipeline.evaluate(invocation.getArgument(0), invocation.getArgument(1), LocalDateTime.now()));
+    }
+
     /**
      * Test case for placing a valid order.
      *
@@ -192,11 +230,11 @@ class OrderServiceTest {
     @Test
     void testPlaceOrder_ValidRequest_ReturnsOrderResponse() {
         // Arrange - Configure mock objects to return test data
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(cartRepository.findCheckoutCart(1, "ACTIVE")).thenReturn(Optional.of(cart));
+        when(cartPricingService.price(anyList())).thenReturn(
+                new CartLines(new int[]{1}, new int[]{1}, new long[]{1299}, new int[]{2}));
         when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
-        when(cartRepository.findByCustomerAndStatus(customer, "ACTIVE")).thenReturn(Optional.of(cart));
-        when(cartItemRepository.findByCart(cart)).thenReturn(cartItems);
-        when(paymentService.createPayment(anyInt(), any(BigDecimal.class), anyString())).thenReturn("payment123");
+        when(paymentService.createPayment(any(Customer.class), any(BigDecimal.class), anyString())).thenReturn("payment123");
 
         // Use thenAnswer to dynamically set the order ID when save is called
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
@@ -204,14 +242,15 @@ class OrderServiceTest {
             order.setOrderId("order123");
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Set delivery date to a Tuesday at noon (restaurant is open)
-        LocalDateTime deliveryDate = LocalDateTime.now().with(DayOfWeek.TUESDAY).withHour(12).withMinute(0);
+        LocalDateTime deliveryDate = LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.TUESDAY)).withHour(12).withMinute(0);
         orderRequest.setDeliveryDate(deliveryDate);
 
         // Mock restaurant hours util to return true (restaurant is open)
         when(restaurantHoursUtil.isRestaurantOpen(eq(restaurant), any(LocalDateTime.class))).thenReturn(true);
+        stubCampaignRules();
 
         // Act
         OrderResponseDTO response = orderService.placeOrder(orderRequest);
@@ -222,41 +261,49 @@ class OrderServiceTest {
         assertEquals(customer.getCustomerId(), response.getCustomerId());
         assertEquals(restaurant.getRestaurantId(), response.getRestaurantId());
         assertEquals("payment123", response.getPaymentId());
-        assertEquals("Pay Online", response.getPaymentMethod());
+        assertEquals("UPI", response.getPaymentMethod());
         assertEquals("Paid", response.getPaymentStatus());
         assertEquals("Received", response.getOrderStatus());
-        assertEquals(cart.getTotalAmount(), response.getTotalPrice());
+        // Priced from the menu (2 x 12.99), not from the stale cart total
+        assertEquals(new BigDecimal("25.98"), response.getTotalPrice());
+        assertEquals(BigDecimal.ZERO, response.getDiscountValue());
+        assertEquals(new BigDecimal("25.98"), response.getFinalPrice());
         assertEquals(1, response.getOrderItems().size());
+        assertEquals(new BigDecimal("12.99"), response.getOrderItems().get(0).getPrice());
+        assertEquals(new BigDecimal("25.98"), response.getOrderItems().get(0).getSubtotal());
+        verify(paymentService).createPayment(any(Customer.class), eq(new BigDecimal("25.98")), anyString());
 
         // Verify interactions
-        verify(customerRepository).findById(1);
+        verify(cartRepository).findCheckoutCart(1, "ACTIVE");
         verify(restaurantRepository).findById(1);
-        verify(cartRepository).findByCustomerAndStatus(customer, "ACTIVE");
-        verify(cartItemRepository).findByCart(cart);
-        verify(paymentService).createPayment(anyInt(), any(BigDecimal.class), anyString());
+        verify(customerRepository, never()).findById(anyInt());
+        verify(cartItemRepository, never()).findByCart(any(Cart.class));
+        verify(paymentService).createPayment(any(Customer.class), any(BigDecimal.class), anyString());
         verify(orderRepository).save(any(Order.class));
-        verify(orderItemRepository).save(any(OrderItem.class));
-        verify(dynamoDBService).saveOrder(any(Order.class), eq(customer), eq(restaurant), anyList());
+        verify(orderItemRepository).saveAll(anyList());
+        verify(cartItemRepository).deleteByCart(cart);
+        verify(orderStatusService).recordStatus("order123", Order.OrderStatus.Received, "Order received");
+        verify(orderOutboxService).enqueue("order123", OrderOutboxEvent.EventType.ORDER_PLACED);
         verify(restaurantHoursUtil).isRestaurantOpen(eq(restaurant), any(LocalDateTime.class));
     }
 
     @Test
     void testPlaceOrder_WithCoupon_AppliesDiscount() {
         // Arrange
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(cartRepository.findCheckoutCart(1, "ACTIVE")).thenReturn(Optional.of(cart));
+        when(cartPricingService.price(anyList())).thenReturn(
+                new CartLines(new int[]{1}, new int[]{1}, new long[]{1299}, new int[]{2}));
         when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
-        when(cartRepository.findByCustomerAndStatus(customer, "ACTIVE")).thenReturn(Optional.of(cart));
-        when(cartItemRepository.findByCart(cart)).thenReturn(cartItems);
-        when(paymentService.createPayment(anyInt(), any(BigDecimal.class), anyString())).thenReturn("payment123");
+        when(paymentService.createPayment(any(Customer.class), any(BigDecimal.class), anyString())).thenReturn("payment123");
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setOrderId("order123");
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Set delivery date to a Tuesday at noon (restaurant is open)
-        LocalDateTime deliveryDate = LocalDateTime.now().with(DayOfWeek.TUESDAY).withHour(12).withMinute(0);
+        LocalDateTime deliveryDate = LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.TUESDAY)).withHour(12).withMinute(0);
         orderRequest.setDeliveryDate(deliveryDate);
         orderRequest.setCouponCode("DISCOUNT10");
 
@@ -269,8 +316,19 @@ class OrderServiceTest {
         coupon.setCouponCode("DISCOUNT10");
         coupon.setStatus(Coupon.CouponStatus.Active);
 
-        when(discountService.validateCoupon("DISCOUNT10")).thenReturn(coupon);
-        when(discountService.applyCouponDiscount(eq(coupon), any(BigDecimal.class))).thenReturn(BigDecimal.valueOf(2.60));
+        when(discountService.resolveCode(eq("DISCOUNT10"), any(Customer.class))).thenReturn(DiscountCodeResolution.coupon(coupon));
+        when(discountService.applyCouponDiscount(eq(coupon), any(BigDecimal.class))).thenReturn(new BigDecimal("2.60"));
+        when(discountService.markCouponAsUsed(coupon, customer)).thenReturn(true);
+
+        // A 10% campaign rule stacks on top of the coupon
+        DiscountRule campaign = new DiscountRule();
+        campaign.setRuleId(7);
+        campaign.setRuleType(DiscountRule.RuleType.Percentage);
+        campaign.setPercentage(10);
+        campaign.setPriority(1);
+        campaign.setStackable(true);
+        campaign.setStatus(DiscountRule.RuleStatus.Active);
+        stubCampaignRules(campaign);
 
         // Act
         OrderResponseDTO response = orderService.placeOrder(orderRequest);
@@ -281,20 +339,87 @@ class OrderServiceTest {
         assertEquals(customer.getCustomerId(), response.getCustomerId());
         assertEquals(restaurant.getRestaurantId(), response.getRestaurantId());
         assertEquals("payment123", response.getPaymentId());
-        assertEquals("Pay Online", response.getPaymentMethod());
+        assertEquals("UPI", response.getPaymentMethod());
         assertEquals("Paid", response.getPaymentStatus());
         assertEquals("Received", response.getOrderStatus());
-        assertEquals(cart.getTotalAmount(), response.getTotalPrice());
-        assertEquals(BigDecimal.valueOf(2.60), response.getDiscountValue());
-        assertEquals(cart.getTotalAmount().subtract(BigDecimal.valueOf(2.60)), response.getFinalPrice());
+        assertEquals(new BigDecimal("25.98"), response.getTotalPrice());
+        // 2.60 from the coupon plus 10% of 25.98 from the campaign rule
+        assertEquals(new BigDecimal("5.20"), response.getDiscountValue());
+        assertEquals(new BigDecimal("20.78"), response.getFinalPrice());
         assertEquals("DISCOUNT10", response.getCouponCode());
+        assertEquals(List.of(7), response.getAppliedRuleIds());
 
         // Verify interactions
-        verify(discountService).validateCoupon("DISCOUNT10");
-        verify(discountService).applyCouponDiscount(eq(coupon), any(BigDecimal.class));
+        verify(discountService).resolveCode(eq("DISCOUNT10"), any(Customer.class));
+        verify(discountService).markCouponAsUsed(coupon, customer);
+        verify(discountService).applyCouponDiscount(eq(coupon), eq(new BigDecimal("25.98")));
+        verify(discountRuleService).evaluate(any(CartLines.class), eq(2338L));
+        verify(paymentService).createPayment(any(Customer.class), eq(new BigDecimal("20.78")), anyString());
         verify(restaurantHoursUtil).isRestaurantOpen(eq(restaurant), any(LocalDateTime.class));
     }
 
+    @Test
+    void testPlaceOrder_VoucherWithoutDiscount_IsNotRedeemed() {
+        stubCheckout();
+        stubCampaignRules();
+        orderRequest.setCouponCode("FREEBIE");
+
+        // A free-item voucher whose item is not in the cart
+        Voucher voucher = new Voucher();
+        voucher.setVoucherId(1);
+        voucher.setVoucherCode("FREEBIE");
+        when(discountService.resolveCode(eq("FREEBIE"), any(Customer.class))).thenReturn(DiscountCodeResolution.voucher(voucher));
+        when(discountService.calculateVoucherDiscount(eq(voucher), any(BigDecimal.class), any(CartLines.class)))
+                .thenReturn(BigDecimal.ZERO);
+
+        OrderResponseDTO response = orderService.placeOrder(orderRequest);
+
+        assertEquals(BigDecimal.ZERO, response.getDiscountValue());
+        assertNull(response.getCouponCode());
+        verify(discountService, never()).markVoucherAsUsed(any(Voucher.class));
+    }
+
+    @Test
+    void testPlaceOrder_FailedRedemption_FailsTheOrder() {
+        when(cartRepository.findCheckoutCart(1, "ACTIVE")).thenReturn(Optional.of(cart));
+        when(cartPricingService.price(anyList())).thenReturn(
+                new CartLines(new int[]{1}, new int[]{1}, new long[]{1299}, new int[]{2}));
+        when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
+        when(restaurantHoursUtil.isRestaurantOpen(eq(restaurant), any(LocalDateTime.class))).thenReturn(true);
+        orderRequest.setDeliveryDate(LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.TUESDAY)).withHour(12).withMinute(0));
+        orderRequest.setCouponCode("SAVE5");
+
+        Voucher voucher = new Voucher();
+        voucher.setVoucherId(1);
+        voucher.setVoucherCode("SAVE5");
+        when(discountService.resolveCode(eq("SAVE5"), any(Customer.class))).thenReturn(DiscountCodeResolution.voucher(voucher));
+        when(discountService.calculateVoucherDiscount(eq(voucher), any(BigDecimal.class), any(CartLines.class)))
+                .thenReturn(new BigDecimal("5.00"));
+        when(discountService.markVoucherAsUsed(voucher)).thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+        // Not swallowed: the order is not placed with the voucher used up and no discount
+        assertThrows(CannotAcquireLockException.class, () -> orderService.placeOrder(orderRequest));
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(paymentService, never()).createPayment(any(Customer.class), any(BigDecimal.class), anyString());
+    }
+
+    // Open restaurant, active cart priced at 2 x 12.99, and saves that assign ids
+    private void stubCheckout() {
+        when(cartRepository.findCheckoutCart(1, "ACTIVE")).thenReturn(Optional.of(cart));
+        when(cartPricingService.price(anyList())).thenReturn(
+                new CartLines(new int[]{1}, new int[]{1}, new long[]{1299}, new int[]{2}));
+        when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
+        when(restaurantHoursUtil.isRestaurantOpen(eq(restaurant), any(LocalDateTime.class))).thenReturn(true);
+        when(paymentService.createPayment(any(Customer.class), any(BigDecimal.class), anyString())).thenReturn("payment123");
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId("order123");
+            return order;
+        });
+        when(orderItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        orderRequest.setDeliveryDate(LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.TUESDAY)).withHour(12).withMinute(0));
+    }
+
     /**
      * Test case for attempting to place an order when the restaurant is closed.
      *
@@ -313,7 +438,7 @@ class OrderServiceTest {
         when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
 
         // Set delivery date to a Monday (restaurant is closed)
-        LocalDateTime deliveryDate = LocalDateTime.now().with(DayOfWeek.MONDAY).withHour(12).withMinute(0);
+        LocalDateTime deliveryDate = LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).withHour(12).withMinute(0);
         orderRequest.setDeliveryDate(deliveryDate);
 
         // Mock restaurant hours util to return false (restaurant is closed)
@@ -339,24 +464,25 @@ class OrderServiceTest {
     @Test
     void testPlaceOrder_WithCustomWorkingHours_Success() {
         // Arrange
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customer));
+        when(cartRepository.findCheckoutCart(1, "ACTIVE")).thenReturn(Optional.of(cart));
+        when(cartPricingService.price(anyList())).thenReturn(
+                new CartLines(new int[]{1}, new int[]{1}, new long[]{1299}, new int[]{2}));
         when(restaurantRepository.findById(1)).thenReturn(Optional.of(restaurant));
-        when(cartRepository.findByCustomerAndStatus(customer, "ACTIVE")).thenReturn(Optional.of(cart));
-        when(cartItemRepository.findByCart(cart)).thenReturn(cartItems);
-        when(paymentService.createPayment(anyInt(), any(BigDecimal.class), anyString())).thenReturn("payment123");
+        when(paymentService.createPayment(any(Customer.class), any(BigDecimal.class), anyString())).thenReturn("payment123");
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setOrderId("order123");
             return order;
         });
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Set delivery date to a Wednesday at 3 PM (custom hours)
-        LocalDateTime deliveryDate = LocalDateTime.now().with(DayOfWeek.WEDNESDAY).withHour(15).withMinute(0);
+        LocalDateTime deliveryDate = LocalDateTime.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY)).withHour(15).withMinute(0);
         orderRequest.setDeliveryDate(deliveryDate);
 
         // Mock restaurant hours util to return true (restaurant is open)
         when(restaurantHoursUtil.isRestaurantOpen(eq(restaurant), any(LocalDateTime.class))).thenReturn(true);
+        stubCampaignRules();
 
         // Act
         OrderResponseDTO response = orderService.placeOrder(orderRequest);
@@ -369,5 +495,138 @@ class OrderServiceTest {
         verify(restaurantHoursUtil).isRestaurantOpen(eq(restaurant), any(LocalDateTime.class));
     }
 
+    /**
+     * Listing orders must issue the same number of queries regardless of how many
+     * orders are returned: one for the orders, one for all their items and one for
+     * all their payments.
+     */
+    @Test
+    void testGetAllOrders_QueryCountIndependentOfOrderCount() {
+        assertBulkQueriesForOrderCount(1);
+        reset(orderRepository, orderItemRepository, paymentService);
+        assertBulkQueriesForOrderCount(50);
+    }
+
+    private void assertBulkQueriesForOrderCount(int orderCount) {
+        List<Order> orders = new ArrayList<>();
+        List<OrderItem> items = new ArrayList<>();
+        Map<String, Payment> payments = new HashMap<>();
+
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setOrderId("order" + i);
+            order.setCustomer(customer);
+            order.setRestaurant(restaurant);
+            order.setPaymentId("payment" + i);
+            order.setStatus(Order.OrderStatus.Received);
+            orders.add(order);
+
+            OrderItem item = new OrderItem();
+            item.setOrderItemId(i);
+            item.setOrder(order);
+            item.setMenuItem(menuItem);
+            item.setVariant(variant);
+            item.setQuantity(2);
+            item.setPrice(BigDecimal.valueOf(12.99));
+            item.setSubtotal(BigDecimal.valueOf(25.98));
+            items.add(item);
+
+            Payment payment = new Payment();
+            payment.setPaymentId("payment" + i);
+            payment.setPaymentMethod(PaymentMethod.UPI);
+            payment.setStatus(PaymentStatus.PAID);
+            payments.put(payment.getPaymentId(), payment);
+        }
+
+        when(orderRepository.findAll()).thenReturn(orders);
+        when(orderItemRepository.findByOrderIdsWithMenuDetails(anyCollection())).thenReturn(items);
+        when(paymentService.getPaymentsByIds(anyCollection())).thenReturn(payments);
+
+        List<OrderResponseDTO> response = orderService.getAllOrders();
+
+        assertEquals(orderCount, response.size());
+        for (OrderResponseDTO dto : response) {
+            assertEquals(1, dto.getOrderItems().size());
+            assertEquals(2, dto.getTotalItems());
+            assertEquals("PAID", dto.getPaymentStatus());
+        }
+
+        verify(orderRepository, times(1)).findAll();
+        verify(orderItemRepository, times(1)).findByOrderIdsWithMenuDetails(anyCollection());
+        verify(paymentService, times(1)).getPaymentsByIds(anyCollection());
+        verify(orderRepository, never()).findOrderItemsByOrder(any(Order.class));
+        verify(orderItemRepository, never()).findByOrder(any(Order.class));
+        verify(paymentService, never()).getPaymentById(anyString());
+    }
+
+    @Test
+    void testExportOrders_Ndjson_OneLinePerOrder() throws Exception {
+        ObjectMapper json = new JacksonConfig().objectMapper();
+        when(objectMapper.writeValueAsString(any())).thenAnswer(invocation -> json.writeValueAsString(invocation.getArgument(0)));
+        stubExport(exportOrder("order1", null), exportOrder("order2", null));
+
+        StringWriter writer = new StringWriter();
+        long exported = orderService.exportOrders(LocalDateTime.now().minusDays(1), LocalDateTime.now(),
+                OrderService.ExportFormat.NDJSON, writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, exported);
+        assertEquals(2, lines.length);
+        assertEquals("order1", json.readTree(lines[0]).get("orderId").asText());
+        assertEquals("order2", json.readTree(lines[1]).get("orderId").asText());
+        assertEquals(25.98, json.readTree(lines[1]).get("totalPrice").asDouble());
+        verify(entityManager).clear();
+    }
 
+    @Test
+    void testExportOrders_Csv_HeaderAndQuotedFields() throws Exception {
+        stubExport(exportOrder("order1", "Ring twice, then \"wave\""));
+
+        StringWriter writer = new StringWriter();
+        orderService.exportOrders(LocalDateTime.now().minusDays(1), LocalDateTime.now(),
+                OrderService.ExportFormat.CSV, writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("orderId,customerId,customerName,"));
+        assertTrue(lines[1].startsWith("order1,1,John Doe,1,Test Restaurant,payment1,UPI,PAID,"));
+        assertTrue(lines[1].endsWith(",Received,2,25.98,0,25.98,,\"Ring twice, then \"\"wave\"\"\""));
+        verifyNoInteractions(objectMapper);
+    }
+
+    private void stubExport(Order... orders) {
+        List<OrderItem> items = new ArrayList<>();
+        Map<String, Payment> payments = new HashMap<>();
+        for (Order order : orders) {
+            OrderItem item = new OrderItem();
+            item.setOrderItemId(items.size() + 1);
+            item.setOrder(order);
+            item.setMenuItem(menuItem);
+            item.setVariant(variant);
+            item.setQuantity(2);
+            item.setPrice(BigDecimal.valueOf(12.99));
+            item.setSubtotal(BigDecimal.valueOf(25.98));
+            items.add(item);
+        }
+        Payment payment = new Payment();
+        payment.setPaymentId("payment1");
+        payment.setPaymentMethod(PaymentMethod.UPI);
+        payment.setStatus(PaymentStatus.PAID);
+        payments.put(payment.getPaymentId(), payment);
+
+        when(orderRepository.streamByOrderDateBetween(any(), any())).thenReturn(Stream.of(orders));
+        when(orderItemRepository.findByOrderIdsWithMenuDetails(anyCollection())).thenReturn(items);
+        when(paymentService.getPaymentsByIds(anyCollection())).thenReturn(payments);
+    }
+
+    private Order exportOrder(String orderId, String pickupInstructions) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setCustomer(customer);
+        order.setRestaurant(restaurant);
+        order.setPaymentId("payment1");
+        order.setStatus(Order.OrderStatus.Received);
+        order.setPickupInstructions(pickupInstructions);
+        return order;
+    }
 }
@@ -0,0 +1,77 @@
+package com.restaurant.ordersystem.service;
+
+import com.restaurant.ordersystem.model.PickupSlotCapacity;
+import com.restaurant.ordersystem.repository.PickupSlotCapacityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Admission against the in-memory slot counters and merging of the totals of all instances.
+ */
+@ExtendWith(MockitoExtension.class)
+class SlotCapacityServiceTest {
+
+    private static final LocalDateTime SLOT = LocalDate.now().plusDays(1).atTime(12, 0);
+
+    @Mock
+    private PickupSlotCapacityRepository pickupSlotCapacityRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SlotCapacityService slotCapacityService;
+
+    @BeforeEach
+    void setUp() {
+        slotCapacityService = new SlotCapacityService(pickupSlotCapacityRepository, transactionManager);
+    }
+
+    @Test
+    void reservationsStopAtCapacity() {
+        when(pickupSlotCapacityRepository.findByRestaurantIdAndSlotStart(1, SLOT))
+                .thenReturn(Optional.of(new PickupSlotCapacity(1L, 1, SLOT, 1, null)));
+
+        assertTrue(slotCapacityService.tryReserve(1, SLOT, 2));
+        assertFalse(slotCapacityService.tryReserve(1, SLOT, 2));
+        assertEquals(2, slotCapacityService.getReserved(1, SLOT));
+    }
+
+    @Test
+    void synchronizeLearnsSlotsBookedOnlyElsewhere() {
+        when(pickupSlotCapacityRepository.findBySlotStartGreaterThanEqual(any()))
+                .thenReturn(List.of(new PickupSlotCapacity(1L, 1, SLOT, 7, null)));
+
+        slotCapacityService.synchronize();
+
+        assertEquals(7, slotCapacityService.getReserved(1, SLOT));
+        verify(pickupSlotCapacityRepository, never()).findByRestaurantIdAndSlotStart(any(), any());
+    }
+
+    @Test
+    void synchronizeKeepsReservationsThatFailedToPush() {
+        when(pickupSlotCapacityRepository.findByRestaurantIdAndSlotStart(1, SLOT)).thenReturn(Optional.empty());
+        when(pickupSlotCapacityRepository.addReserved(eq(1), eq(SLOT), eq(1), any()))
+                .thenThrow(new IllegalStateException("database down"));
+        when(pickupSlotCapacityRepository.findBySlotStartGreaterThanEqual(any()))
+                .thenReturn(Collections.singletonList(new PickupSlotCapacity(1L, 1, SLOT, 3, null)));
+
+        assertTrue(slotCapacityService.tryReserve(1, SLOT, 10));
+        slotCapacityService.synchronize();
+
+        assertEquals(4, slotCapacityService.getReserved(1, SLOT));
+    }
+}
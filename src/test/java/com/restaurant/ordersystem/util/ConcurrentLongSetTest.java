@@ -0,0 +1,94 @@
+package com.restaurant.ordersystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongSetTest {
+
+    @Test
+    void addReportsWhetherTheValueIsNew() {
+        ConcurrentLongSet set = new ConcurrentLongSet(100);
+
+        assertTrue(set.add(0));
+        assertTrue(set.add(42));
+        assertTrue(set.add(Long.MAX_VALUE - 1));
+        assertFalse(set.add(0));
+        assertFalse(set.add(42));
+        assertFalse(set.add(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void setHoldsItsCapacity() {
+        // 12 values in 16 slots, so some of them are probed past others
+        ConcurrentLongSet set = new ConcurrentLongSet(12);
+        for (long value = 0; value < 12; value++) {
+            assertTrue(set.add(value * 16));
+        }
+        for (long value = 0; value < 12; value++) {
+            assertFalse(set.add(value * 16));
+        }
+    }
+
+    @Test
+    void tableIsSizedForTheCapacityAtThreeQuartersFull() {
+        assertEquals(16 * Long.BYTES, new ConcurrentLongSet(1).getMemoryBytes());
+        assertEquals(16 * Long.BYTES, new ConcurrentLongSet(12).getMemoryBytes());
+        assertEquals(32 * Long.BYTES, new ConcurrentLongSet(13).getMemoryBytes());
+        assertEquals(1000, new ConcurrentLongSet(1000).getCapacity());
+    }
+
+    @Test
+    void fullTableAndInvalidArgumentsAreRejected() {
+        ConcurrentLongSet set = new ConcurrentLongSet(12);
+        for (long value = 0; value < 16; value++) {
+            set.add(value);
+        }
+
+        assertThrows(IllegalStateException.class, () -> set.add(16));
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLongSet(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void concurrentAddsOfTheSameValuesSucceedOncePerValue() throws Exception {
+        int threads = 8;
+        int values = 20_000;
+        ConcurrentLongSet set = new ConcurrentLongSet(values);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<Integer> addAll = () -> {
+                    start.await();
+                    int added = 0;
+                    for (long value = 0; value < values; value++) {
+                        if (set.add(value)) {
+                            added++;
+                        }
+                    }
+                    return added;
+                };
+                results.add(executor.submit(addAll));
+            }
+            start.countDown();
+
+            int added = 0;
+            for (Future<Integer> result : results) {
+                added += result.get();
+            }
+            assertEquals(values, added);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.restaurant.ordersystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinorUnitsTest {
+
+    @Test
+    void toMinorRoundsHalfUpToCents() {
+        assertEquals(1299, MinorUnits.toMinor(new BigDecimal("12.99")));
+        assertEquals(1200, MinorUnits.toMinor(new BigDecimal("12")));
+        assertEquals(101, MinorUnits.toMinor(new BigDecimal("1.005")));
+        assertEquals(100, MinorUnits.toMinor(new BigDecimal("1.0049")));
+        assertEquals(0, MinorUnits.toMinor(null));
+    }
+
+    @Test
+    void toAmountHasTwoDecimals() {
+        assertEquals(new BigDecimal("12.99"), MinorUnits.toAmount(1299));
+        assertEquals(new BigDecimal("0.05"), MinorUnits.toAmount(5));
+        assertEquals(new BigDecimal("0.00"), MinorUnits.toAmount(0));
+    }
+
+    @Test
+    void percentOfRoundsHalfUp() {
+        assertEquals(130, MinorUnits.percentOf(1299, 10));
+        assertEquals(150, MinorUnits.percentOf(1001, 15));
+        assertEquals(1, MinorUnits.percentOf(10, 5));
+        assertEquals(0, MinorUnits.percentOf(9, 5));
+        assertEquals(0, MinorUnits.percentOf(1299, 0));
+        assertEquals(1299, MinorUnits.percentOf(1299, 100));
+    }
+}
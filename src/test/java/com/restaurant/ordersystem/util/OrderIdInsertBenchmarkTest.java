@@ -0,0 +1,117 @@
+package com.restaurant.ordersystem.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Insert throughput of the old order id scheme (random UUIDv4 in VARCHAR(36)) against the
+ * new one (UUIDv7 in BINARY(16)) on a real MySQL database. Both tables carry the same
+ * secondary index so the cost of the wider primary key in secondary entries is included.
+ *
+ * Skipped unless a database is given, e.g.:
+ * mvn test -Dtest=OrderIdInsertBenchmarkTest -Dbenchmark.jdbc.url="jdbc:mysql://localhost:3306/order_system_bench?rewriteBatchedStatements=true"
+ *   -Dbenchmark.jdbc.user=root -Dbenchmark.jdbc.password=1234 [-Dbenchmark.rows=500000]
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class OrderIdInsertBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdInsertBenchmarkTest.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Test
+    void compareInsertThroughput() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 200_000);
+
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url"),
+                System.getProperty("benchmark.jdbc.user", "root"),
+                System.getProperty("benchmark.jdbc.password", ""))) {
+
+            createTable(connection, "bench_orders_varchar", "VARCHAR(36)");
+            createTable(connection, "bench_orders_binary", "BINARY(16)");
+
+            double varcharRate = insertRows(connection, "bench_orders_varchar", rows, false);
+            double binaryRate = insertRows(connection, "bench_orders_binary", rows, true);
+
+            logger.info("Inserted {} rows: VARCHAR(36) UUIDv4 {} rows/s, BINARY(16) UUIDv7 {} rows/s ({}x)",
+                    rows, Math.round(varcharRate), Math.round(binaryRate),
+                    String.format("%.2f", binaryRate / varcharRate));
+
+            assertEquals(rows, countRows(connection, "bench_orders_varchar"));
+            assertEquals(rows, countRows(connection, "bench_orders_binary"));
+        }
+    }
+
+    private void createTable(Connection connection, String table, String idType) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "order_id " + idType + " NOT NULL PRIMARY KEY, "
+                    + "customer_id INT NOT NULL, "
+                    + "order_date DATETIME(6) NOT NULL, "
+                    + "pickup_instructions VARCHAR(80), "
+                    + "INDEX idx_" + table + "_customer (customer_id)) ENGINE=InnoDB");
+        }
+    }
+
+    private double insertRows(Connection connection, String table, int rows, boolean timeOrdered) throws Exception {
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                + " (order_id, customer_id, order_date, pickup_instructions) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                if (timeOrdered) {
+                    insert.setBytes(1, toBytes(OrderIdGenerator.newUuid()));
+                } else {
+                    insert.setString(1, UUID.randomUUID().toString());
+                }
+                insert.setInt(2, i % 10_000);
+                insert.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                insert.setString(4, "Leave at the counter");
+                insert.addBatch();
+
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return rows / seconds;
+    }
+
+    private long countRows(Connection connection, String table) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
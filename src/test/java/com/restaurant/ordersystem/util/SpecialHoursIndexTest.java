@@ -0,0 +1,142 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Date-specific hours: interval merging, closures versus replacement hours, and how they
+ * combine with the weekly schedule in {@link RestaurantSchedule}.
+ */
+class SpecialHoursIndexTest {
+
+    // A Tuesday, open 11:00-14:00 and 17:00-22:00 by default
+    private static final LocalDate TUESDAY = LocalDate.of(2026, 10, 20);
+    // A Monday, closed by default
+    private static final LocalDate MONDAY = LocalDate.of(2026, 10, 19);
+
+    @Test
+    void overlappingAndAdjacentRangesAreMerged() {
+        SpecialHoursIndex index = SpecialHoursIndex.compile(List.of(
+                special(TUESDAY, LocalTime.of(16, 0), LocalTime.of(17, 0), null),
+                special(TUESDAY, LocalTime.of(11, 0), LocalTime.of(13, 0), null),
+                special(TUESDAY, LocalTime.of(10, 0), LocalTime.of(12, 0), null),
+                special(TUESDAY, LocalTime.of(13, 1), LocalTime.of(14, 0), null)));
+        int position = index.find(TUESDAY);
+
+        assertTrue(position >= 0);
+        assertTrue(index.replacesWeeklyHours(position));
+        assertFalse(index.isOpen(position, minute(9, 59)));
+        assertTrue(index.isOpen(position, minute(10, 0)));
+        assertTrue(index.isOpen(position, minute(13, 0)));
+        assertTrue(index.isOpen(position, minute(13, 1)));
+        assertTrue(index.isOpen(position, minute(14, 0)));
+        assertFalse(index.isOpen(position, minute(14, 1)));
+        assertFalse(index.isOpen(position, minute(15, 59)));
+        assertTrue(index.isOpen(position, minute(16, 0)));
+        assertTrue(index.isOpen(position, minute(17, 0)));
+        assertFalse(index.isOpen(position, minute(17, 1)));
+        assertEquals(4, index.getRows(TUESDAY).size());
+    }
+
+    @Test
+    void datesWithoutRowsAreNotFound() {
+        SpecialHoursIndex index = SpecialHoursIndex.compile(List.of(
+                special(TUESDAY, LocalTime.of(10, 0), LocalTime.of(12, 0), null),
+                WeeklyOpeningHoursTest.row("TUESDAY", LocalTime.of(8, 0), LocalTime.of(9, 0), null)));
+
+        assertTrue(index.find(MONDAY) < 0);
+        assertTrue(index.find(TUESDAY.plusDays(7)) < 0);
+        assertTrue(index.getRows(MONDAY).isEmpty());
+        assertEquals(1, index.getRows(TUESDAY).size());
+        assertTrue(SpecialHoursIndex.compile(List.of()).find(TUESDAY) < 0);
+    }
+
+    @Test
+    void closuresDoNotReplaceWeeklyHours() {
+        SpecialHoursIndex index = SpecialHoursIndex.compile(List.of(
+                special(TUESDAY, LocalTime.of(12, 0), LocalTime.of(13, 0), "closed")));
+        int position = index.find(TUESDAY);
+
+        assertFalse(index.replacesWeeklyHours(position));
+        assertTrue(index.isClosed(position, minute(12, 0)));
+        assertTrue(index.isClosed(position, minute(13, 0)));
+        assertFalse(index.isClosed(position, minute(13, 1)));
+
+        RestaurantSchedule schedule = schedule(List.of(
+                special(TUESDAY, LocalTime.of(12, 0), LocalTime.of(13, 0), "CLOSED")));
+        assertTrue(schedule.isOpen(TUESDAY.atTime(11, 59)));
+        assertFalse(schedule.isOpen(TUESDAY.atTime(12, 30)));
+        assertTrue(schedule.isOpen(TUESDAY.atTime(13, 1)));
+        assertTrue(schedule.isOpen(TUESDAY.atTime(18, 0)));
+    }
+
+    @Test
+    void closureWinsOverReplacementHoursOnTheSameDate() {
+        RestaurantSchedule schedule = schedule(List.of(
+                special(TUESDAY, LocalTime.of(9, 0), LocalTime.of(15, 0), "OPEN"),
+                special(TUESDAY, LocalTime.of(12, 0), LocalTime.of(13, 0), "CLOSED")));
+
+        assertTrue(schedule.isOpen(TUESDAY.atTime(9, 0)));
+        assertTrue(schedule.isOpen(TUESDAY.atTime(11, 59)));
+        assertFalse(schedule.isOpen(TUESDAY.atTime(12, 0)));
+        assertFalse(schedule.isOpen(TUESDAY.atTime(13, 0)));
+        assertTrue(schedule.isOpen(TUESDAY.atTime(13, 1)));
+        // Replacement hours drop the weekly evening hours of the date
+        assertFalse(schedule.isOpen(TUESDAY.atTime(18, 0)));
+        // Other dates keep the weekly hours
+        assertTrue(schedule.isOpen(TUESDAY.plusDays(7).atTime(18, 0)));
+    }
+
+    @Test
+    void wholeDayClosureClosesEveryMinute() {
+        RestaurantSchedule schedule = schedule(List.of(
+                special(TUESDAY, LocalTime.of(0, 0), LocalTime.of(23, 59), "CLOSED")));
+
+        assertFalse(schedule.isOpen(TUESDAY.atTime(11, 0)));
+        assertFalse(schedule.isOpen(LocalDateTime.of(TUESDAY, LocalTime.of(21, 59, 59))));
+        assertTrue(schedule.isOpen(TUESDAY.plusDays(1).atTime(11, 0)));
+    }
+
+    @Test
+    void replacementHoursOpenADayThatIsClosedByDefault() {
+        RestaurantSchedule schedule = schedule(List.of(
+                special(MONDAY, LocalTime.of(10, 0, 30), LocalTime.of(12, 0), null)));
+
+        assertFalse(schedule.isOpen(MONDAY.atTime(9, 59)));
+        // A start with seconds opens at the next whole minute
+        assertFalse(schedule.isOpen(MONDAY.atTime(10, 0, 45)));
+        assertTrue(schedule.isOpen(MONDAY.atTime(10, 1)));
+        assertTrue(schedule.isOpen(MONDAY.atTime(12, 0, 30)));
+        assertFalse(schedule.isOpen(MONDAY.atTime(12, 1)));
+        assertFalse(schedule.isOpen(MONDAY.plusDays(7).atTime(11, 0)));
+    }
+
+    private static RestaurantSchedule schedule(List<RestaurantWorkingHours> rows) {
+        RestaurantHoursUtil restaurantHoursUtil = new RestaurantHoursUtil(null);
+        Map<DayOfWeek, List<RestaurantHoursUtil.TimeRange>> defaultHours = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            defaultHours.put(day, restaurantHoursUtil.getDefaultWorkingHours(day));
+        }
+        return new RestaurantSchedule(WeeklyOpeningHours.compile(rows, defaultHours), SpecialHoursIndex.compile(rows));
+    }
+
+    private static RestaurantWorkingHours special(LocalDate date, LocalTime start, LocalTime end, String status) {
+        RestaurantWorkingHours hours = WeeklyOpeningHoursTest.row(date.getDayOfWeek().name(), start, end, date);
+        hours.setStatus(status);
+        return hours;
+    }
+
+    private static int minute(int hour, int minute) {
+        return hour * 60 + minute;
+    }
+}
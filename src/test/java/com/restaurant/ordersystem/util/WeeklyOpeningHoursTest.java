@@ -0,0 +1,120 @@
+package com.restaurant.ordersystem.util;
+
+import com.restaurant.ordersystem.model.RestaurantWorkingHours;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boundaries of the compiled weekly schedule: default hours, per-day rows, and the
+ * one-minute resolution of the checks.
+ */
+class WeeklyOpeningHoursTest {
+
+    private Map<DayOfWeek, List<RestaurantHoursUtil.TimeRange>> defaultHours;
+
+    @BeforeEach
+    void setUp() {
+        RestaurantHoursUtil restaurantHoursUtil = new RestaurantHoursUtil(null);
+        defaultHours = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            defaultHours.put(day, restaurantHoursUtil.getDefaultWorkingHours(day));
+        }
+    }
+
+    @Test
+    void defaultHoursApplyToDaysWithoutRows() {
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(List.of(), defaultHours);
+
+        assertFalse(hours.isOpen(DayOfWeek.MONDAY, LocalTime.of(12, 0)));
+        assertFalse(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(10, 59)));
+        assertTrue(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(11, 0)));
+        assertTrue(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(14, 0)));
+        assertFalse(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(14, 1)));
+        assertFalse(hours.isOpen(DayOfWeek.SUNDAY, LocalTime.of(16, 59)));
+        assertTrue(hours.isOpen(DayOfWeek.SUNDAY, LocalTime.of(22, 0)));
+        assertTrue(hours.getCustomHours(DayOfWeek.TUESDAY).isEmpty());
+    }
+
+    @Test
+    void rowsReplaceDefaultHoursOfTheirDayOnly() {
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(
+                List.of(row("tuesday", LocalTime.of(8, 0), LocalTime.of(9, 30), null)), defaultHours);
+
+        assertTrue(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(8, 0)));
+        assertTrue(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(9, 30)));
+        assertFalse(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(12, 0)));
+        assertTrue(hours.isOpen(DayOfWeek.WEDNESDAY, LocalTime.of(12, 0)));
+        assertEquals(1, hours.getCustomHours(DayOfWeek.TUESDAY).size());
+    }
+
+    @Test
+    void rowsOnMondayOpenADayThatIsClosedByDefault() {
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(
+                List.of(row("MONDAY", LocalTime.of(11, 0), LocalTime.of(14, 0), null)), defaultHours);
+
+        assertTrue(hours.isOpen(DayOfWeek.MONDAY, LocalTime.of(12, 0)));
+    }
+
+    @Test
+    void endMinuteIsOpenUpToItsLastSecond() {
+        // Minute resolution: the per-second check this replaced treated 14:00:30 as closed
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(List.of(), defaultHours);
+
+        assertTrue(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(14, 0, 30)));
+        assertTrue(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(14, 0, 59)));
+        assertFalse(hours.isOpen(DayOfWeek.TUESDAY, LocalTime.of(14, 1, 0)));
+    }
+
+    @Test
+    void startWithSecondsOpensAtTheNextMinute() {
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(
+                List.of(row("FRIDAY", LocalTime.of(9, 0, 30), LocalTime.of(10, 0), null)), defaultHours);
+
+        assertFalse(hours.isOpen(DayOfWeek.FRIDAY, LocalTime.of(9, 0, 45)));
+        assertTrue(hours.isOpen(DayOfWeek.FRIDAY, LocalTime.of(9, 1)));
+    }
+
+    @Test
+    void lastMinuteOfTheWeekCanBeOpen() {
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(
+                List.of(row("SUNDAY", LocalTime.of(23, 0), LocalTime.of(23, 59), null)), defaultHours);
+
+        assertEquals(WeeklyOpeningHours.MINUTES_PER_WEEK - 1,
+                WeeklyOpeningHours.minuteOfWeek(DayOfWeek.SUNDAY, LocalTime.of(23, 59)));
+        assertTrue(hours.isOpen(DayOfWeek.SUNDAY, LocalTime.of(23, 59, 59)));
+        assertFalse(hours.isOpen(DayOfWeek.SUNDAY, LocalTime.of(22, 59)));
+    }
+
+    @Test
+    void datedInvalidAndReversedRowsAreIgnored() {
+        WeeklyOpeningHours hours = WeeklyOpeningHours.compile(List.of(
+                row("THURSDAY", LocalTime.of(6, 0), LocalTime.of(7, 0), LocalDate.of(2026, 10, 22)),
+                row("SATURDAY", LocalTime.of(15, 0), LocalTime.of(9, 0), null),
+                row("Someday", LocalTime.of(6, 0), LocalTime.of(7, 0), null)), defaultHours);
+
+        // The dated row is a special hours row and leaves Thursday on the defaults
+        assertFalse(hours.isOpen(DayOfWeek.THURSDAY, LocalTime.of(6, 30)));
+        assertTrue(hours.isOpen(DayOfWeek.THURSDAY, LocalTime.of(12, 0)));
+        // A reversed range still counts as Saturday's hours, so Saturday is closed all day
+        assertFalse(hours.isOpen(DayOfWeek.SATURDAY, LocalTime.of(12, 0)));
+        assertFalse(hours.isOpen(DayOfWeek.SATURDAY, LocalTime.of(10, 0)));
+    }
+
+    static RestaurantWorkingHours row(String day, LocalTime start, LocalTime end, LocalDate date) {
+        RestaurantWorkingHours hours = new RestaurantWorkingHours();
+        hours.setDayOfTheWeek(day);
+        hours.setStartTime(start);
+        hours.setEndTime(end);
+        hours.setDate(date);
+        return hours;
+    }
+}